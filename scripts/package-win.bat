@@ -40,6 +40,8 @@ jpackage ^
   --input "%APP_INPUT%" ^
   --main-jar "%MAIN_JAR%" ^
   --main-class "%MAIN_CLASS%" ^
+  --java-options "-XX:SharedArchiveFile=$APPDIR\app.jsa" ^
+  --java-options "-Xshare:auto" ^
   --dest "%JPACKAGE_DIR%"
 
 set "APP_BUNDLE=%JPACKAGE_DIR%\%APP_NAME%"
@@ -51,6 +53,21 @@ if not exist "%APP_BUNDLE%" (
   exit /b 1
 )
 
+rem Class-data sharing: run the packaged launcher once in training mode (builds every tab,
+rem starts a client, then exits), then dump the loaded classes into app\app.jsa.
+set "CLASS_LIST=%ROOT_DIR%\target\cds-classes.lst"
+if exist "%CLASS_LIST%" del "%CLASS_LIST%"
+if exist "%APP_BUNDLE%\app\app.jsa" del "%APP_BUNDLE%\app\app.jsa"
+set "JDK_JAVA_OPTIONS=-Xshare:off -XX:DumpLoadedClassList=%CLASS_LIST% -Drocketmq.gui.cdsTraining=true"
+start "" /wait "%APP_BUNDLE%\%APP_NAME%.exe"
+if exist "%CLASS_LIST%" (
+  set "JDK_JAVA_OPTIONS=-Xshare:dump -XX:SharedClassListFile=%CLASS_LIST% -XX:SharedArchiveFile=%APP_BUNDLE%\app\app.jsa"
+  start "" /wait "%APP_BUNDLE%\%APP_NAME%.exe"
+) else (
+  echo CDS training run failed, packaging without app.jsa
+)
+set "JDK_JAVA_OPTIONS="
+
 set "ZIP_NAME=rocketmq-gui-win.zip"
 set "ZIP_PATH=%DIST_DIR%\%ZIP_NAME%"
 if exist "%ZIP_PATH%" del "%ZIP_PATH%"
@@ -67,6 +67,8 @@ jpackage \
   --input "$APP_INPUT" \
   --main-jar "$MAIN_JAR" \
   --main-class "$MAIN_CLASS" \
+  --java-options '-XX:SharedArchiveFile=$APPDIR/app.jsa' \
+  --java-options '-Xshare:auto' \
   --dest "$JPACKAGE_DIR"
 
 APP_BUNDLE="${JPACKAGE_DIR}/${APP_NAME}.app"
@@ -78,6 +80,27 @@ if [[ ! -d "$APP_BUNDLE" ]]; then
   exit 1
 fi
 
+# Class-data sharing: run the packaged launcher once in training mode (builds every tab,
+# starts a client, then exits) to record the loaded classes, then dump them into app.jsa
+# next to the jar. Launchers honour JDK_JAVA_OPTIONS, so the archive matches the runtime and
+# class path the image really uses. Without a display the step is skipped; the app still
+# starts, just without the archive (-Xshare:auto).
+if [[ "$classifier" == "mac" ]]; then
+  LAUNCHER="$APP_BUNDLE/Contents/MacOS/$APP_NAME"
+else
+  LAUNCHER="$APP_BUNDLE/bin/$APP_NAME"
+fi
+APP_DIR="$(dirname "$(find "$APP_BUNDLE" -name "$MAIN_JAR" -print -quit)")"
+CLASS_LIST="$ROOT_DIR/target/cds-classes.lst"
+rm -f "$CLASS_LIST" "$APP_DIR/app.jsa"
+if JDK_JAVA_OPTIONS="-Xshare:off -XX:DumpLoadedClassList=$CLASS_LIST -Drocketmq.gui.cdsTraining=true" \
+    "$LAUNCHER" >/dev/null 2>&1 && [[ -s "$CLASS_LIST" ]]; then
+  JDK_JAVA_OPTIONS="-Xshare:dump -XX:SharedClassListFile=$CLASS_LIST -XX:SharedArchiveFile=$APP_DIR/app.jsa" \
+    "$LAUNCHER" >/dev/null 2>&1 || echo "CDS dump failed, packaging without app.jsa" >&2
+else
+  echo "CDS training run failed (no display?), packaging without app.jsa" >&2
+fi
+
 ZIP_NAME="rocketmq-gui-${classifier}.zip"
 ZIP_PATH="$DIST_DIR/$ZIP_NAME"
 rm -f "$ZIP_PATH"
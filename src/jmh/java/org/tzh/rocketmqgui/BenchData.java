@@ -0,0 +1,121 @@
+package org.tzh.rocketmqgui;
+
+import org.apache.rocketmq.common.admin.TopicOffset;
+import org.apache.rocketmq.common.admin.TopicStatsTable;
+import org.apache.rocketmq.common.message.MessageExt;
+import org.apache.rocketmq.common.message.MessageQueue;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * 基准测试用的数据，形状尽量贴近线上: Topic 命名带业务域/环境/序号，消息体是 JSON 样式的 ASCII。
+ * 固定随机种子，不同次运行之间可比。
+ */
+final class BenchData {
+    private static final String[] DOMAINS = {"order", "payment", "inventory", "user", "risk", "logistics",
+            "coupon", "search", "settle", "notify", "im", "report"};
+    private static final String[] EVENTS = {"created", "paid", "refund", "cancel", "sync", "callback",
+            "changed", "audit", "expired", "retry"};
+    private static final String[] ENVS = {"prod", "pre", "test", "gray"};
+
+    private BenchData() {
+    }
+
+    /**
+     * n 个不重复的 Topic 名称，混合 TOPIC_ORDER_PAID_PROD_0001 和 payment-refund.callback-17 两种风格
+     */
+    static List<String> topics(int n) {
+        Random r = new Random(42);
+        Set<String> out = new LinkedHashSet<>();
+        while (out.size() < n) {
+            String domain = DOMAINS[r.nextInt(DOMAINS.length)];
+            String event = EVENTS[r.nextInt(EVENTS.length)];
+            String env = ENVS[r.nextInt(ENVS.length)];
+            int seq = r.nextInt(10_000);
+            if (r.nextBoolean()) {
+                out.add(String.format("TOPIC_%s_%s_%s_%04d", domain, event, env, seq).toUpperCase());
+            } else {
+                out.add(domain + "-" + event + "." + env + "-" + seq);
+            }
+        }
+        return new ArrayList<>(out);
+    }
+
+    static byte[] body(int bytes, long seed) {
+        Random r = new Random(seed);
+        StringBuilder sb = new StringBuilder(bytes + 64);
+        sb.append("{\"orderId\":").append(Math.abs(r.nextLong())).append(",\"items\":[");
+        while (sb.length() < bytes - 2) {
+            sb.append("{\"sku\":\"SKU").append(r.nextInt(1_000_000)).append("\",\"qty\":").append(r.nextInt(10))
+                    .append(",\"note\":\"").append(Long.toString(r.nextLong(), 36)).append("\"},");
+        }
+        byte[] b = sb.toString().getBytes(StandardCharsets.US_ASCII);
+        byte[] out = new byte[bytes];
+        System.arraycopy(b, 0, out, 0, Math.min(b.length, bytes));
+        out[bytes - 2] = ']';
+        out[bytes - 1] = '}';
+        return out;
+    }
+
+    /**
+     * count 条消息，共用 distinctBodies 个消息体 (1MB 消息体不能每条一份)
+     */
+    static MessageExt[] messages(int count, int bodyBytes, int distinctBodies) {
+        byte[][] bodies = new byte[distinctBodies][];
+        for (int i = 0; i < distinctBodies; i++) bodies[i] = body(bodyBytes, i);
+        List<String> topics = topics(64);
+        InetSocketAddress[] brokers = {
+                new InetSocketAddress("10.12.0.11", 10911),
+                new InetSocketAddress("10.12.0.12", 10911),
+                new InetSocketAddress("10.12.0.13", 10911)};
+        long now = System.currentTimeMillis();
+        MessageExt[] out = new MessageExt[count];
+        for (int i = 0; i < count; i++) {
+            MessageExt m = new MessageExt();
+            m.setTopic(topics.get(i % topics.size()));
+            m.setTags("TagA");
+            m.setKeys("key-" + i);
+            m.setBody(bodies[i % distinctBodies]);
+            m.setStoreHost(brokers[i % brokers.length]);
+            m.setBornHost(new InetSocketAddress("10.20.1.7", 50000 + i % 1000));
+            m.setCommitLogOffset(1_000_000_000L + (long) i * bodyBytes);
+            m.setStoreTimestamp(now + i);
+            m.setBornTimestamp(now + i - 3);
+            m.setQueueId(i % 16);
+            m.setQueueOffset(i / 16);
+            out[i] = m;
+        }
+        return out;
+    }
+
+    /**
+     * 与 examineTopicStats 返回结构一致: 每个 Topic 在 brokers 个 Broker 上各 queuesPerBroker 个队列
+     */
+    static Map<String, TopicStatsTable> topicStats(List<String> topics, int brokers, int queuesPerBroker) {
+        Random r = new Random(7);
+        Map<String, TopicStatsTable> out = new HashMap<>();
+        for (String topic : topics) {
+            TopicStatsTable table = new TopicStatsTable();
+            for (int b = 0; b < brokers; b++) {
+                for (int q = 0; q < queuesPerBroker; q++) {
+                    TopicOffset o = new TopicOffset();
+                    long min = r.nextInt(1_000_000);
+                    o.setMinOffset(min);
+                    o.setMaxOffset(min + r.nextInt(50_000_000));
+                    o.setLastUpdateTimestamp(System.currentTimeMillis());
+                    table.getOffsetTable().put(new MessageQueue(topic, "broker-" + b, q), o);
+                }
+            }
+            out.put(topic, table);
+        }
+        return out;
+    }
+}
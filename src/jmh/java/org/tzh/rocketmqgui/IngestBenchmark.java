@@ -0,0 +1,117 @@
+package org.tzh.rocketmqgui;
+
+import org.apache.rocketmq.common.message.MessageDecoder;
+import org.apache.rocketmq.common.message.MessageExt;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 消费者接收路径: 回调线程 offer -> FX pulse drainTo -> 写入 CaptureStore -> 可见行解码 (msgId / 时间 / 预览)。
+ * 每个 op 是一条消息；ingestOneSecond 一次处理 10k 条，即 10k msg/s 下一秒的量。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class IngestBenchmark {
+    private static final int MESSAGES_PER_SECOND = 10_000;
+    // 与 RocketMQFXApp 中的值一致
+    private static final int CONSUMER_QUEUE_CAPACITY = 50_000;
+    private static final int MAX_APPEND_PER_PULSE = 20_000;
+
+    @Param({"1024", "65536", "1048576"})
+    public int bodyBytes;
+
+    private MessageExt[] messages;
+    private int next;
+    private IngestQueue<MessageExt> queue;
+    private List<MessageExt> drainBuffer;
+    private CaptureStore store;
+    private final SimpleDateFormat simpleDateFormat = new SimpleDateFormat("HH:mm:ss");
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        messages = BenchData.messages(MESSAGES_PER_SECOND, bodyBytes, 8);
+        queue = new IngestQueue<>(CONSUMER_QUEUE_CAPACITY);
+        drainBuffer = new ArrayList<>(MAX_APPEND_PER_PULSE);
+        // 界面默认的段大小；磁盘预算较小，写满后按段淘汰，长时间运行占用不变
+        store = new CaptureStore(64 * 1024 * 1024, 512L * 1024 * 1024);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        store.close();
+    }
+
+    private MessageExt nextMessage() {
+        MessageExt m = messages[next];
+        next = next + 1 == messages.length ? 0 : next + 1;
+        return m;
+    }
+
+    /**
+     * 表格第一次渲染一行: 包装成 MessageModel 后取三列的字符串 (走解码 LRU，未命中)
+     */
+    @Benchmark
+    public void firstRender(Blackhole bh) {
+        MessageModel row = MessageModel.from(nextMessage(), System.currentTimeMillis());
+        bh.consume(row.getMsgId());
+        bh.consume(row.getTime());
+        bh.consume(row.getBodyPreview());
+    }
+
+    /**
+     * 对照: 在接收时就把三列都解码成字符串 (懒解码之前的做法)
+     */
+    @Benchmark
+    public void eagerDecode(Blackhole bh) {
+        MessageExt m = nextMessage();
+        bh.consume(MessageDecoder.createMessageId(m.getStoreHost(), m.getCommitLogOffset()));
+        bh.consume(simpleDateFormat.format(new Date(System.currentTimeMillis())));
+        bh.consume(new String(m.getBody(), StandardCharsets.UTF_8));
+    }
+
+    @Benchmark
+    public long captureAppend() throws IOException {
+        return store.append(nextMessage());
+    }
+
+    /**
+     * 一秒的量: 10k 条逐条 offer，按 pulse 批量取出并写入 CaptureStore
+     */
+    @Benchmark
+    @OperationsPerInvocation(MESSAGES_PER_SECOND)
+    public long ingestOneSecond() throws IOException {
+        for (MessageExt m : messages) queue.offer(m);
+        long last = -1;
+        while (queue.size() > 0) {
+            drainBuffer.clear();
+            queue.drainTo(drainBuffer, MAX_APPEND_PER_PULSE);
+            for (MessageExt m : drainBuffer) last = store.append(m);
+        }
+        return last;
+    }
+}
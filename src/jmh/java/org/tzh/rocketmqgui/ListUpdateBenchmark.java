@@ -0,0 +1,112 @@
+package org.tzh.rocketmqgui;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+import org.apache.rocketmq.common.message.MessageExt;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 每个 pulse 把一批新消息放进表格 (最新的在最上面，超过上限裁掉最旧的)。
+ * 监听器模拟 TableView: 每个 change 都要遍历一遍。一个 op 是一个 pulse；
+ * 10k msg/s、60 fps 时每个 pulse 约 170 条，界面卡顿后追赶时一批会更大。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ListUpdateBenchmark {
+    private static final int MAX_ROWS = 10_000;
+
+    @Param({"170", "2000"})
+    public int batch;
+
+    private MessageExt[] messages;
+    private List<MessageModel> rows;
+    private int next;
+    private ObservableList<MessageModel> list;
+    private CaptureStore store;
+    private CapturedMessageList captured;
+    private long changes;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        messages = BenchData.messages(4096, 1024, 8);
+        rows = new ArrayList<>(messages.length);
+        for (MessageExt m : messages) rows.add(MessageModel.from(m, m.getStoreTimestamp()));
+        list = FXCollections.observableArrayList(rows.subList(0, Math.min(rows.size(), MAX_ROWS)));
+        list.addListener(this::onChange);
+        store = new CaptureStore(64 * 1024 * 1024, 512L * 1024 * 1024);
+        captured = new CapturedMessageList(store);
+        captured.addListener(this::onChange);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        store.close();
+    }
+
+    private void onChange(ListChangeListener.Change<? extends MessageModel> c) {
+        while (c.next()) changes += c.getAddedSize() + c.getRemovedSize();
+    }
+
+    private List<MessageModel> nextBatch() {
+        List<MessageModel> out = new ArrayList<>(batch);
+        for (int i = 0; i < batch; i++) {
+            out.add(rows.get(next));
+            next = next + 1 == rows.size() ? 0 : next + 1;
+        }
+        return out;
+    }
+
+    /**
+     * 对照: 逐条插入并逐条裁剪，每条消息触发两次 change
+     */
+    @Benchmark
+    public long perItemInsert() {
+        for (MessageModel m : nextBatch()) {
+            list.add(0, m);
+            if (list.size() > MAX_ROWS) list.remove(MAX_ROWS);
+        }
+        return changes;
+    }
+
+    @Benchmark
+    public long batchedInsert() {
+        list.addAll(0, nextBatch());
+        if (list.size() > MAX_ROWS) list.remove(MAX_ROWS, list.size());
+        return changes;
+    }
+
+    /**
+     * 现在的做法: 写入 CaptureStore，再由 CapturedMessageList 一次性通知 (含写盘)
+     */
+    @Benchmark
+    public long captureSync() throws IOException {
+        for (int i = 0; i < batch; i++) {
+            store.append(messages[next]);
+            next = next + 1 == messages.length ? 0 : next + 1;
+        }
+        captured.sync();
+        return changes;
+    }
+}
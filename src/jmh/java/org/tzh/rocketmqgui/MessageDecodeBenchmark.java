@@ -0,0 +1,74 @@
+package org.tzh.rocketmqgui;
+
+import org.apache.rocketmq.common.message.MessageDecoder;
+import org.apache.rocketmq.common.message.MessageExt;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 与消息体大小无关的单列解码: offset msgId 和接收时间的格式化，各自带一个对照实现。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MessageDecodeBenchmark {
+    private MessageExt message;
+    private byte[] hostBytes;
+    private long millis;
+    private final SimpleDateFormat simpleDateFormat = new SimpleDateFormat("HH:mm:ss");
+
+    @Setup
+    public void setup() {
+        message = BenchData.messages(1, 1024, 1)[0];
+        hostBytes = MessageModel.hostBytes(message.getStoreHost());
+        millis = message.getStoreTimestamp();
+    }
+
+    /**
+     * MessageModel 的做法: 接收时只存 ip+port 字节，渲染时再拼 msgId
+     */
+    @Benchmark
+    public String msgIdFromHostBytes() {
+        return MessageDecoder.createMessageId(ByteBuffer.allocate(hostBytes.length + 8), ByteBuffer.wrap(hostBytes),
+                message.getCommitLogOffset());
+    }
+
+    /**
+     * 对照: 每次从 SocketAddress 重新取地址
+     */
+    @Benchmark
+    public String msgIdFromSocketAddress() {
+        return MessageDecoder.createMessageId(message.getStoreHost(), message.getCommitLogOffset());
+    }
+
+    @Benchmark
+    public byte[] hostBytes() {
+        return MessageModel.hostBytes(message.getStoreHost());
+    }
+
+    @Benchmark
+    public String timeDateTimeFormatter() {
+        return MessageModel.formatTime(millis++);
+    }
+
+    @Benchmark
+    public String timeSimpleDateFormat() {
+        return simpleDateFormat.format(new Date(millis++));
+    }
+}
@@ -0,0 +1,99 @@
+package org.tzh.rocketmqgui;
+
+import org.apache.rocketmq.common.admin.TopicOffset;
+import org.apache.rocketmq.common.admin.TopicStatsTable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 监控 tick 对 examineTopicStats 结果的聚合 (startMonitor)，以及 DLQ 消息数的计算 (max - min)。
+ * 一个 op 是一次 tick 处理全部 Topic。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class OffsetAggregationBenchmark {
+    @Param({"20", "500"})
+    public int topics;
+
+    @Param({"16"})
+    public int queuesPerBroker;
+
+    private Map<String, TopicStatsTable> stats;
+    private ThroughputTracker tracker;
+    private long now;
+
+    @Setup
+    public void setup() {
+        stats = BenchData.topicStats(BenchData.topics(topics), 3, queuesPerBroker);
+        tracker = new ThroughputTracker();
+        now = System.currentTimeMillis();
+    }
+
+    /**
+     * startMonitor 每个 tick 做的事: 求和、算速率、生成写入 MetricsStore 的 map
+     */
+    @Benchmark
+    public void monitorTick(Blackhole bh) {
+        now += 3000;
+        Map<String, Double> rates = new LinkedHashMap<>();
+        Map<String, Long> offsets = new HashMap<>();
+        for (Map.Entry<String, TopicStatsTable> e : stats.entrySet()) {
+            long sum = ThroughputTracker.sumMaxOffset(e.getValue());
+            offsets.put("topic:" + e.getKey(), sum);
+            rates.put(e.getKey(), tracker.update(e.getKey(), sum, now));
+        }
+        // 两个 map 都要消费掉，否则 offsets 的构建可能被 JIT 消除
+        bh.consume(rates);
+        bh.consume(offsets);
+    }
+
+    @Benchmark
+    public long sumMaxOffsetLoop() {
+        long total = 0;
+        for (TopicStatsTable t : stats.values()) total += ThroughputTracker.sumMaxOffset(t);
+        return total;
+    }
+
+    /**
+     * 对照: 原 checkDLQ 的 stream 写法
+     */
+    @Benchmark
+    public long sumMaxOffsetStream() {
+        long total = 0;
+        for (TopicStatsTable t : stats.values()) {
+            total += t.getOffsetTable().values().stream().mapToLong(TopicOffset::getMaxOffset).sum();
+        }
+        return total;
+    }
+
+    /**
+     * 实际消息数 (DlqBrowser.getTotal 的算法)
+     */
+    @Benchmark
+    public long messageCount() {
+        long total = 0;
+        for (TopicStatsTable t : stats.values()) {
+            for (TopicOffset o : t.getOffsetTable().values()) total += Math.max(0, o.getMaxOffset() - o.getMinOffset());
+        }
+        return total;
+    }
+}
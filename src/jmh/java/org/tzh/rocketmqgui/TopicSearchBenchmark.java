@@ -0,0 +1,92 @@
+package org.tzh.rocketmqgui;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Topic 下拉框的搜索 (enableSearch): 每次输入后在后台线程查询前 200 个结果。
+ * linearScan 是建索引之前逐个 toLowerCase().contains() 的做法，作为对照。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TopicSearchBenchmark {
+    // 与 RocketMQFXApp.TOPIC_SEARCH_LIMIT 一致
+    private static final int LIMIT = 200;
+
+    @Param({"30000"})
+    public int topics;
+
+    // 空串、单字符、常见前缀、跨分隔符的子串、无结果
+    @Param({"", "o", "pay", "refund.pro", "zz_no_match"})
+    public String query;
+
+    private List<String> names;
+    private TopicSearchIndex index;
+
+    @Setup
+    public void setup() {
+        names = BenchData.topics(topics);
+        index = new TopicSearchIndex(names);
+    }
+
+    @Benchmark
+    public List<String> indexSearch() {
+        return index.search(query, LIMIT);
+    }
+
+    @Benchmark
+    public List<String> linearScan() {
+        String q = query.toLowerCase();
+        List<String> out = new ArrayList<>(LIMIT);
+        for (String name : names) {
+            if (name.toLowerCase().contains(q)) {
+                out.add(name);
+                if (out.size() >= LIMIT) break;
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Topic 列表变化时整体重建索引的耗时
+     */
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 3, time = 2)
+    @Measurement(iterations = 5, time = 2)
+    @Fork(1)
+    @State(Scope.Benchmark)
+    public static class Build {
+        @Param({"30000"})
+        public int topics;
+
+        private List<String> names;
+
+        @Setup
+        public void setup() {
+            names = BenchData.topics(topics);
+        }
+
+        @Benchmark
+        public TopicSearchIndex buildIndex() {
+            return new TopicSearchIndex(names);
+        }
+    }
+}
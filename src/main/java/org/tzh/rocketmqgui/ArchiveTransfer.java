@@ -0,0 +1,84 @@
+package org.tzh.rocketmqgui;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 正在进行的导出或回放。进度计数由工作线程更新，界面定时读取。
+ */
+public class ArchiveTransfer {
+    private final CompletableFuture<Long> done = new CompletableFuture<>();
+    private volatile boolean cancelled;
+    private volatile long messages;
+    private volatile long failed;
+    private volatile long bytes;
+    private volatile long totalBytes;
+    private volatile Runnable onCancel;
+
+    void progress(long messages, long bytes) {
+        this.messages = messages;
+        this.bytes = bytes;
+    }
+
+    void setFailed(long failed) {
+        this.failed = failed;
+    }
+
+    void setTotalBytes(long totalBytes) {
+        this.totalBytes = totalBytes;
+    }
+
+    void setOnCancel(Runnable onCancel) {
+        this.onCancel = onCancel;
+        if (cancelled && onCancel != null) onCancel.run();
+    }
+
+    void complete(long count) {
+        done.complete(count);
+    }
+
+    void fail(Throwable t) {
+        done.completeExceptionally(t);
+    }
+
+    public void cancel() {
+        cancelled = true;
+        Runnable r = onCancel;
+        if (r != null) r.run();
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    public long getMessages() {
+        return messages;
+    }
+
+    /**
+     * 导出时为失败的队列数，回放时为发送失败或跳过的消息数
+     */
+    public long getFailed() {
+        return failed;
+    }
+
+    /**
+     * 导出时为已写入的文件字节数，回放时为已读取的文件字节数
+     */
+    public long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * 回放时为文件总大小，导出时为 0 (未知)
+     */
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+
+    /**
+     * 结束时返回处理的消息数 (取消也算正常结束)
+     */
+    public CompletableFuture<Long> done() {
+        return done;
+    }
+}
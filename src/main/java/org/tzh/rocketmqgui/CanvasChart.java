@@ -0,0 +1,323 @@
+package org.tzh.rocketmqgui;
+
+import javafx.animation.AnimationTimer;
+import javafx.geometry.VPos;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.input.MouseButton;
+import javafx.scene.layout.Region;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
+import javafx.scene.text.TextAlignment;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 直接画在 Canvas 上的轻量时序折线图，替代 LineChart (后者每个点一个场景图节点)。
+ * - 数据是原始的 long[] / double[]，可见点数超过像素宽度时用 LTTB 降到约 2 点/像素，结果按视图缓存
+ * - 拖动平移，滚轮以光标为中心缩放，双击回到跟随最新数据的实时模式
+ * - 鼠标悬停显示十字线和每条曲线在该时刻的取值
+ * - 只在数据或视图变化时重绘，由 AnimationTimer 合并到每帧最多一次；画完即停，空闲时不占用 pulse
+ * 只能在 FX 线程使用。
+ */
+public class CanvasChart extends Region {
+    private static final Color[] PALETTE = {
+            Color.web("#1f77b4"), Color.web("#ff7f0e"), Color.web("#2ca02c"), Color.web("#d62728"),
+            Color.web("#9467bd"), Color.web("#8c564b"), Color.web("#e377c2"), Color.web("#7f7f7f"),
+            Color.web("#bcbd22"), Color.web("#17becf")
+    };
+    private static final double LEFT = 60, RIGHT = 15, TOP = 25, BOTTOM = 25;
+    private static final Font FONT = Font.font(11);
+
+    private final Canvas canvas = new Canvas();
+    private final Map<String, Series> series = new LinkedHashMap<>();
+    private final String title;
+    private long viewFrom;
+    private long viewTo;
+    private long liveWindow = 60_000L;
+    private boolean live = true;
+    private double mouseX = -1;
+    private double dragStartX;
+    private long dragFrom;
+    private long dragTo;
+    private int colorCounter;
+    private boolean dirty;
+    private boolean disposed;
+    private final AnimationTimer repaintTimer = new AnimationTimer() {
+        @Override
+        public void handle(long now) {
+            // 先停再画: paint 中再次 markDirty 会重新启动，下一帧继续
+            stop();
+            if (dirty) {
+                dirty = false;
+                paint();
+            }
+        }
+    };
+
+    public CanvasChart(String title) {
+        this.title = title;
+        getChildren().add(canvas);
+        canvas.widthProperty().addListener((obs, o, n) -> markDirty());
+        canvas.heightProperty().addListener((obs, o, n) -> markDirty());
+        installHandlers();
+        long now = System.currentTimeMillis();
+        viewFrom = now - liveWindow;
+        viewTo = now;
+        markDirty();
+    }
+
+    /**
+     * 替换一条曲线的数据 (时间需升序)
+     */
+    public void setSeries(String name, long[] times, double[] values) {
+        Series s = series.get(name);
+        if (s == null) {
+            s = new Series(name, PALETTE[colorCounter++ % PALETTE.length]);
+            series.put(name, s);
+        }
+        s.data = new TimeSeriesRing.Window(times, values);
+        s.view = null;
+        markDirty();
+    }
+
+    public void removeSeries(String name) {
+        if (series.remove(name) != null) markDirty();
+    }
+
+    /**
+     * 实时模式下的可见时间跨度；会切回实时模式
+     */
+    public void setLiveWindow(long windowMillis) {
+        this.liveWindow = windowMillis;
+        this.live = true;
+        followNow();
+    }
+
+    /**
+     * 实时模式下把视图右端对齐到当前时间 (每次采样后调用)
+     */
+    public void followNow() {
+        if (!live) return;
+        long now = System.currentTimeMillis();
+        setView(now - liveWindow, now);
+    }
+
+    public void dispose() {
+        disposed = true;
+        repaintTimer.stop();
+    }
+
+    @Override
+    protected void layoutChildren() {
+        canvas.setWidth(getWidth());
+        canvas.setHeight(getHeight());
+    }
+
+    @Override
+    protected double computePrefWidth(double height) {
+        return 600;
+    }
+
+    @Override
+    protected double computePrefHeight(double width) {
+        return 300;
+    }
+
+    private void setView(long from, long to) {
+        if (to - from < 1000) return; // 最小 1 秒
+        viewFrom = from;
+        viewTo = to;
+        markDirty();
+    }
+
+    private void markDirty() {
+        if (disposed) return;
+        // dirty 为 true 时定时器一定在运行，只在第一次标记时启动
+        if (!dirty) repaintTimer.start();
+        dirty = true;
+    }
+
+    private void installHandlers() {
+        setOnMouseMoved(e -> {
+            mouseX = e.getX();
+            markDirty();
+        });
+        setOnMouseExited(e -> {
+            mouseX = -1;
+            markDirty();
+        });
+        setOnMousePressed(e -> {
+            dragStartX = e.getX();
+            dragFrom = viewFrom;
+            dragTo = viewTo;
+        });
+        setOnMouseDragged(e -> {
+            double plotWidth = getWidth() - LEFT - RIGHT;
+            if (plotWidth <= 0) return;
+            long shift = (long) ((dragStartX - e.getX()) / plotWidth * (dragTo - dragFrom));
+            live = false;
+            mouseX = e.getX();
+            setView(dragFrom + shift, dragTo + shift);
+        });
+        setOnScroll(e -> {
+            double plotWidth = getWidth() - LEFT - RIGHT;
+            if (plotWidth <= 0 || e.getDeltaY() == 0) return;
+            double factor = e.getDeltaY() > 0 ? 0.8 : 1.25;
+            double ratio = Math.min(1, Math.max(0, (e.getX() - LEFT) / plotWidth));
+            long span = viewTo - viewFrom;
+            long anchor = viewFrom + (long) (ratio * span);
+            long newSpan = (long) (span * factor);
+            live = false;
+            setView(anchor - (long) (ratio * newSpan), anchor + (long) ((1 - ratio) * newSpan));
+        });
+        setOnMouseClicked(e -> {
+            if (e.getButton() == MouseButton.PRIMARY && e.getClickCount() == 2) {
+                live = true;
+                followNow();
+            }
+        });
+    }
+
+    private void paint() {
+        double w = canvas.getWidth();
+        double h = canvas.getHeight();
+        GraphicsContext gc = canvas.getGraphicsContext2D();
+        gc.setFill(Color.WHITE);
+        gc.fillRect(0, 0, w, h);
+        double plotW = w - LEFT - RIGHT;
+        double plotH = h - TOP - BOTTOM;
+        if (plotW <= 10 || plotH <= 10) return;
+
+        // 1. 可见数据 (必要时降采样) 与纵轴范围
+        int maxPoints = (int) Math.max(50, plotW * 2);
+        double yMin = 0, yMax = 0;
+        for (Series s : series.values()) {
+            s.ensureView(viewFrom, viewTo, maxPoints);
+            TimeSeriesRing.Window v = s.view;
+            for (int i = 0; i < v.size(); i++) {
+                if (v.times[i] < viewFrom || v.times[i] > viewTo) continue;
+                yMin = Math.min(yMin, v.values[i]);
+                yMax = Math.max(yMax, v.values[i]);
+            }
+        }
+        if (yMax <= yMin) yMax = yMin + 1;
+        yMax += (yMax - yMin) * 0.1;
+
+        // 2. 坐标轴与网格
+        gc.setFont(FONT);
+        gc.setStroke(Color.web("#e0e0e0"));
+        gc.setLineWidth(1);
+        gc.setFill(Color.web("#444444"));
+        gc.setTextBaseline(VPos.CENTER);
+        gc.setTextAlign(TextAlignment.RIGHT);
+        for (int i = 0; i <= 5; i++) {
+            double value = yMin + (yMax - yMin) * i / 5;
+            double y = TOP + plotH - plotH * i / 5;
+            gc.strokeLine(LEFT, y, LEFT + plotW, y);
+            gc.fillText(formatValue(value), LEFT - 5, y);
+        }
+        gc.setTextAlign(TextAlignment.CENTER);
+        gc.setTextBaseline(VPos.TOP);
+        for (int i = 0; i <= 6; i++) {
+            double x = LEFT + plotW * i / 6;
+            gc.strokeLine(x, TOP, x, TOP + plotH);
+            gc.fillText(MessageModel.formatTime(viewFrom + (viewTo - viewFrom) * i / 6), x, TOP + plotH + 4);
+        }
+        gc.setStroke(Color.GRAY);
+        gc.strokeRect(LEFT, TOP, plotW, plotH);
+
+        // 3. 曲线 (裁剪到绘图区)
+        gc.save();
+        gc.beginPath();
+        gc.rect(LEFT, TOP, plotW, plotH);
+        gc.clip();
+        gc.setLineWidth(1.5);
+        double span = viewTo - viewFrom;
+        for (Series s : series.values()) {
+            TimeSeriesRing.Window v = s.view;
+            if (v.size() == 0) continue;
+            gc.setStroke(s.color);
+            gc.beginPath();
+            for (int i = 0; i < v.size(); i++) {
+                double x = LEFT + (v.times[i] - viewFrom) / span * plotW;
+                double y = TOP + plotH - (v.values[i] - yMin) / (yMax - yMin) * plotH;
+                if (i == 0) gc.moveTo(x, y);
+                else gc.lineTo(x, y);
+            }
+            gc.stroke();
+        }
+        gc.restore();
+
+        // 4. 标题与图例
+        gc.setTextAlign(TextAlignment.LEFT);
+        gc.setTextBaseline(VPos.TOP);
+        gc.setFill(Color.BLACK);
+        gc.fillText(title + (live ? "" : "  (paused - double-click for live)"), LEFT, 5);
+        double legendX = LEFT + plotW;
+        gc.setTextAlign(TextAlignment.RIGHT);
+        for (Series s : series.values()) {
+            gc.setFill(s.color);
+            gc.fillText(s.name, legendX, 5);
+            legendX -= gc.getFont().getSize() * 0.6 * s.name.length() + 15;
+        }
+
+        // 5. 十字线与读数 (取原始数据中最近的点)
+        if (mouseX >= LEFT && mouseX <= LEFT + plotW) {
+            long t = viewFrom + (long) ((mouseX - LEFT) / plotW * span);
+            gc.setStroke(Color.web("#888888"));
+            gc.setLineWidth(1);
+            gc.strokeLine(mouseX, TOP, mouseX, TOP + plotH);
+            gc.setTextAlign(TextAlignment.LEFT);
+            double ty = TOP + 5;
+            gc.setFill(Color.BLACK);
+            gc.fillText(MessageModel.formatTime(t), mouseX + 5, ty);
+            for (Series s : series.values()) {
+                int idx = nearest(s.data, t);
+                if (idx < 0) continue;
+                ty += 14;
+                gc.setFill(s.color);
+                gc.fillText(s.name + ": " + formatValue(s.data.values[idx]), mouseX + 5, ty);
+            }
+        }
+    }
+
+    private static int nearest(TimeSeriesRing.Window data, long t) {
+        if (data.size() == 0) return -1;
+        int i = data.indexAtOrAfter(t);
+        if (i >= data.size()) return data.size() - 1;
+        if (i > 0 && t - data.times[i - 1] < data.times[i] - t) return i - 1;
+        return i;
+    }
+
+    private static String formatValue(double v) {
+        if (Math.abs(v) >= 1_000_000) return String.format("%.1fM", v / 1_000_000);
+        if (Math.abs(v) >= 10_000) return String.format("%.1fk", v / 1_000);
+        return String.format("%.1f", v);
+    }
+
+    private static final class Series {
+        final String name;
+        final Color color;
+        TimeSeriesRing.Window data = new TimeSeriesRing.Window(new long[0], new double[0]);
+        // 当前视图的降采样结果，视图或数据不变时直接复用
+        TimeSeriesRing.Window view;
+        long viewFrom;
+        long viewTo;
+        int viewPoints;
+
+        Series(String name, Color color) {
+            this.name = name;
+            this.color = color;
+        }
+
+        void ensureView(long from, long to, int maxPoints) {
+            if (view != null && viewFrom == from && viewTo == to && viewPoints == maxPoints) return;
+            view = data.slice(from, to).downsample(maxPoints);
+            viewFrom = from;
+            viewTo = to;
+            viewPoints = maxPoints;
+        }
+    }
+}
@@ -0,0 +1,343 @@
+package org.tzh.rocketmqgui;
+
+import org.apache.rocketmq.common.message.MessageExt;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Consumer 抓取消息的磁盘存储。
+ * 消息按追加顺序写入内存映射的段文件 (默认 64MB 一个)，堆上只保留每条记录的位置索引 (8 字节/条)。
+ * read 只解出定长字段和 body 开头的预览，完整 body 由 readBody 按需读取。
+ * 段文件总大小超过磁盘预算时，整段淘汰最旧的数据。
+ * 记录格式: [int 记录长度][long storeTimestamp][long localReceivedTime][int queueId][long queueOffset]
+ * [long commitLogOffset][byte+bytes storeHost][short+bytes msgId][short+bytes topic][short+bytes tag]
+ * [int 原始 body 长度][int+bytes body]
+ * 超过一个段的 body 截断保存，原始长度留在记录里，表格和复制的内容会标出截断。
+ * msgId 只在没有 storeHost 时才写入，其余情况读取时由 storeHost + commitLogOffset 计算。
+ * 写入路径复用 topic/tag/storeHost 的编码结果，稳定流量下除了记录本身几乎不分配对象。
+ * 所有公开方法都是同步的，写入方是 FX 线程的 drain，读取方是表格渲染。
+ */
+public class CaptureStore implements Closeable {
+    private static final File ROOT = new File(System.getProperty("user.home"), ".rocketmq_fx_capture");
+    private static final int FIXED_PART = 4 + 8 + 8 + 4 + 8 + 8 + 1 + 2 + 2 + 2 + 4 + 4;
+    private static final byte[] EMPTY = new byte[0];
+    private static final int TAG_CACHE_SIZE = 256;
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static boolean leftoversCleaned;
+
+    private final File dir;
+    private final int segmentSize;
+    private final long diskBudget;
+    private final List<Segment> segments = new ArrayList<>();
+    // 每条记录的位置: (段编号 << 32) | 段内偏移，index[0] 对应 indexBase
+    private long[] index = new long[4096];
+    private long indexBase;
+    private long firstSeq;
+    private long nextSeq;
+    private long evicted;
+    private int segmentCounter;
+    private boolean closed;
+    // 写入路径的编码缓存
+    private SocketAddress lastHost;
+    private byte[] lastHostBytes = EMPTY;
+    private String lastTopic;
+    private byte[] lastTopicBytes = EMPTY;
+    private final Map<String, byte[]> tagBytesCache = new HashMap<>();
+
+    public CaptureStore(int segmentSize, long diskBudget) throws IOException {
+        this.segmentSize = segmentSize;
+        this.diskBudget = Math.max(diskBudget, 2L * segmentSize);
+        cleanLeftovers();
+        this.dir = new File(ROOT, "session-" + ProcessHandle.current().pid() + "-" + System.nanoTime());
+        if (!dir.mkdirs()) {
+            throw new IOException("Cannot create capture dir " + dir);
+        }
+    }
+
+    /**
+     * 追加一条消息，返回其序号 (单调递增，淘汰/清空后也不会复用)
+     */
+    public synchronized long append(MessageExt msg) throws IOException {
+        if (closed) throw new IOException("Capture store closed");
+        byte[] hostBytes = hostBytes(msg.getStoreHost());
+        byte[] idBytes = hostBytes.length == 0 ? utf8(msg.getMsgId()) : EMPTY;
+        byte[] topicBytes = topicBytes(msg.getTopic());
+        byte[] tagBytes = tagBytes(msg.getTags());
+        byte[] body = msg.getBody() == null ? EMPTY : msg.getBody();
+        int varPart = hostBytes.length + idBytes.length + topicBytes.length + tagBytes.length;
+        int bodyLen = Math.min(body.length, segmentSize - FIXED_PART - varPart);
+        int recordLen = FIXED_PART + varPart + bodyLen;
+
+        Segment seg = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+        if (seg == null || seg.buffer.remaining() < recordLen) {
+            seg = rollSegment();
+        }
+        MappedByteBuffer buf = seg.buffer;
+        int pos = buf.position();
+        buf.putInt(recordLen);
+        buf.putLong(msg.getStoreTimestamp());
+        buf.putLong(System.currentTimeMillis());
+        buf.putInt(msg.getQueueId());
+        buf.putLong(msg.getQueueOffset());
+        buf.putLong(msg.getCommitLogOffset());
+        buf.put((byte) hostBytes.length);
+        buf.put(hostBytes);
+        putShortBytes(buf, idBytes);
+        putShortBytes(buf, topicBytes);
+        putShortBytes(buf, tagBytes);
+        buf.putInt(body.length);
+        buf.putInt(bodyLen);
+        buf.put(body, 0, bodyLen);
+        seg.count++;
+
+        long seq = nextSeq++;
+        int slot = (int) (seq - indexBase);
+        if (slot == index.length) {
+            index = Arrays.copyOf(index, index.length * 2);
+        }
+        index[slot] = ((long) seg.id << 32) | pos;
+        return seq;
+    }
+
+    /**
+     * 按序号读取一条记录 (body 只带前 MessageModel.PREVIEW_BYTES 字节)，已淘汰时返回 null
+     */
+    public synchronized MessageModel read(long seq) {
+        ByteBuffer buf = locate(seq);
+        if (buf == null) return null;
+        long storeTimestamp = buf.getLong();
+        long receivedTime = buf.getLong();
+        int queueId = buf.getInt();
+        long queueOffset = buf.getLong();
+        long commitLogOffset = buf.getLong();
+        byte[] host = null;
+        int hostLen = buf.get();
+        if (hostLen > 0) {
+            host = new byte[hostLen];
+            buf.get(host);
+        }
+        String msgId = getShortString(buf);
+        String topic = getShortString(buf);
+        String tag = getShortString(buf);
+        int originalLen = buf.getInt();
+        int bodyLen = buf.getInt();
+        byte[] preview = new byte[Math.min(bodyLen, MessageModel.PREVIEW_BYTES)];
+        buf.get(preview);
+        return new MessageModel(seq, host == null ? msgId : null, topic, tag, preview, bodyLen, originalLen, host,
+                commitLogOffset, storeTimestamp, queueId, queueOffset, receivedTime);
+    }
+
+    /**
+     * 读取一条记录保存的完整 body (复制等操作时调用)，已淘汰时返回 null；
+     * 超大 body 只有保存下来的部分，见 MessageModel.isBodyTruncated
+     */
+    public synchronized byte[] readBody(long seq) {
+        ByteBuffer buf = locate(seq);
+        if (buf == null) return null;
+        buf.position(buf.position() + 8 + 8 + 4 + 8 + 8);
+        buf.position(buf.position() + buf.get());
+        skipShortBytes(buf);
+        skipShortBytes(buf);
+        skipShortBytes(buf);
+        buf.getInt();
+        byte[] body = new byte[buf.getInt()];
+        buf.get(body);
+        return body;
+    }
+
+    // 定位到记录长度之后，已淘汰时返回 null
+    private ByteBuffer locate(long seq) {
+        if (seq < firstSeq || seq >= nextSeq) return null;
+        long loc = index[(int) (seq - indexBase)];
+        Segment seg = segments.get((int) (loc >>> 32) - segments.get(0).id);
+        ByteBuffer buf = seg.buffer.duplicate();
+        buf.position((int) loc + 4);
+        return buf;
+    }
+
+    /**
+     * 删除所有段文件，序号继续递增
+     */
+    public synchronized void clear() {
+        for (Segment seg : segments) seg.delete();
+        segments.clear();
+        evicted += nextSeq - firstSeq;
+        firstSeq = nextSeq;
+        indexBase = nextSeq;
+        index = new long[4096];
+    }
+
+    public synchronized long getFirstSeq() {
+        return firstSeq;
+    }
+
+    public synchronized long getNextSeq() {
+        return nextSeq;
+    }
+
+    public synchronized long size() {
+        return nextSeq - firstSeq;
+    }
+
+    public synchronized long getEvicted() {
+        return evicted;
+    }
+
+    public synchronized long getDiskUsage() {
+        return (long) segments.size() * segmentSize;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (closed) return;
+        closed = true;
+        for (Segment seg : segments) seg.delete();
+        segments.clear();
+        dir.delete();
+    }
+
+    private Segment rollSegment() throws IOException {
+        Segment seg = new Segment(segmentCounter++, new File(dir, String.format("%020d", nextSeq) + SEGMENT_SUFFIX), segmentSize);
+        segments.add(seg);
+        // 超过磁盘预算: 整段淘汰最旧的数据 (至少保留正在写的段)
+        while (segments.size() > 1 && (long) segments.size() * segmentSize > diskBudget) {
+            Segment oldest = segments.remove(0);
+            firstSeq += oldest.count;
+            evicted += oldest.count;
+            oldest.delete();
+        }
+        compactIndex();
+        return seg;
+    }
+
+    private void compactIndex() {
+        int dead = (int) (firstSeq - indexBase);
+        if (dead == 0 || dead < index.length / 2) return;
+        int live = (int) (nextSeq - firstSeq);
+        long[] fresh = new long[Math.max(4096, Integer.highestOneBit(Math.max(1, live)) * 2)];
+        System.arraycopy(index, dead, fresh, 0, live);
+        index = fresh;
+        indexBase = firstSeq;
+    }
+
+    private byte[] hostBytes(SocketAddress host) {
+        if (host == null) return EMPTY;
+        if (!host.equals(lastHost)) {
+            byte[] bytes = MessageModel.hostBytes(host);
+            lastHostBytes = bytes == null ? EMPTY : bytes;
+            lastHost = host;
+        }
+        return lastHostBytes;
+    }
+
+    private byte[] topicBytes(String topic) {
+        if (topic == null) return EMPTY;
+        if (!topic.equals(lastTopic)) {
+            lastTopicBytes = utf8(topic);
+            lastTopic = topic;
+        }
+        return lastTopicBytes;
+    }
+
+    private byte[] tagBytes(String tag) {
+        if (tag == null) return EMPTY;
+        byte[] bytes = tagBytesCache.get(tag);
+        if (bytes == null) {
+            if (tagBytesCache.size() >= TAG_CACHE_SIZE) tagBytesCache.clear();
+            bytes = utf8(tag);
+            tagBytesCache.put(tag, bytes);
+        }
+        return bytes;
+    }
+
+    private static void putShortBytes(ByteBuffer buf, byte[] bytes) {
+        buf.putShort((short) bytes.length);
+        buf.put(bytes);
+    }
+
+    private static void skipShortBytes(ByteBuffer buf) {
+        int len = buf.getShort() & 0xFFFF;
+        buf.position(buf.position() + len);
+    }
+
+    private static String getShortString(ByteBuffer buf) {
+        int len = buf.getShort() & 0xFFFF;
+        byte[] bytes = new byte[len];
+        buf.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] utf8(String s) {
+        if (s == null) return EMPTY;
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        return bytes.length > 0xFFFF ? Arrays.copyOf(bytes, 0xFFFF) : bytes;
+    }
+
+    // 清理之前进程异常退出遗留的 session 目录
+    private static synchronized void cleanLeftovers() {
+        if (leftoversCleaned) return;
+        leftoversCleaned = true;
+        File[] dirs = ROOT.listFiles((d, name) -> name.startsWith("session-"));
+        if (dirs == null) return;
+        for (File d : dirs) {
+            String[] parts = d.getName().split("-");
+            try {
+                long pid = Long.parseLong(parts[1]);
+                if (ProcessHandle.of(pid).map(ProcessHandle::isAlive).orElse(false)) continue;
+            } catch (RuntimeException ignored) {
+                // 名字不规范的目录也一并清理
+            }
+            File[] files = d.listFiles();
+            if (files != null) for (File f : files) f.delete();
+            d.delete();
+        }
+    }
+
+    // 主动释放映射，Windows 下不释放无法删除文件
+    static void unmap(MappedByteBuffer buffer) {
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field f = unsafeClass.getDeclaredField("theUnsafe");
+            f.setAccessible(true);
+            Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+            invokeCleaner.invoke(f.get(null), buffer);
+        } catch (Exception ignored) {
+            // 释放失败时交给 GC
+        }
+    }
+
+    private static class Segment {
+        final int id;
+        final File file;
+        final MappedByteBuffer buffer;
+        int count;
+
+        Segment(int id, File file, int size) throws IOException {
+            this.id = id;
+            this.file = file;
+            try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+                this.buffer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+            }
+        }
+
+        void delete() {
+            unmap(buffer);
+            file.delete();
+        }
+    }
+}
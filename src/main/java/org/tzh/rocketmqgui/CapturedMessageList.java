@@ -0,0 +1,131 @@
+package org.tzh.rocketmqgui;
+
+import javafx.collections.ObservableListBase;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * CaptureStore 的只读视图，给 TableView 用 (最新的在最上面)。
+ * 只有可见行会被 get 到，读到的行放进一个小的 LRU 缓存，滚动时按需从映射段里解码。
+ * 行上只有 body 预览，缓存占用的堆与消息大小无关。
+ * 只能在 FX 线程使用；写入后调用 sync() 把新增/淘汰一次性通知给表格。
+ * setFilter 之后只显示给定的序号 (搜索结果)，此时 sync() 不产生变化，直到过滤被清除。
+ */
+public class CapturedMessageList extends ObservableListBase<MessageModel> {
+    private static final int CACHE_SIZE = 1024;
+    // 已被淘汰但表格还没来得及移除的行
+    private static final MessageModel EVICTED = MessageModel.sent("", "", "", "<evicted>".getBytes(StandardCharsets.UTF_8));
+
+    private final CaptureStore store;
+    private final Map<Long, MessageModel> cache = new LinkedHashMap<Long, MessageModel>(CACHE_SIZE, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, MessageModel> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+    private long publishedFirst;
+    private long publishedNext;
+    // 非 null 时只显示这些序号 (最新的在前)
+    private long[] filter;
+
+    public CapturedMessageList(CaptureStore store) {
+        this.store = store;
+        this.publishedFirst = store.getFirstSeq();
+        this.publishedNext = store.getNextSeq();
+    }
+
+    /**
+     * 对比 store 的最新状态，生成一次 change: 尾部移除被淘汰的旧行，头部插入新行
+     */
+    public void sync() {
+        if (filter != null) return;
+        long first = store.getFirstSeq();
+        long next = store.getNextSeq();
+        if (first == publishedFirst && next == publishedNext) return;
+
+        int oldSize = size();
+        int removed = (int) Math.min(oldSize, first - publishedFirst);
+        int added = (int) (next - Math.max(first, publishedNext));
+        publishedFirst = first;
+        publishedNext = next;
+        if (removed > 0) {
+            cache.keySet().removeIf(seq -> seq < first);
+        }
+
+        beginChange();
+        if (removed > 0) nextRemove(oldSize - removed, Collections.nCopies(removed, EVICTED));
+        if (added > 0) nextAdd(0, added);
+        endChange();
+    }
+
+    /**
+     * 替换为搜索结果视图；传 null 恢复显示全部抓取的消息。
+     * 新结果只是在旧结果前面多了新消息、尾部少了旧消息时 (搜索生效期间持续抓取)，
+     * 只通知头部插入和尾部移除，表格的选中行和滚动位置不受影响
+     */
+    public void setFilter(long[] seqs) {
+        if (seqs == null && filter == null) return;
+        if (seqs != null && filter != null && (Arrays.equals(seqs, filter) || shiftFilter(seqs))) return;
+        int oldSize = size();
+        filter = seqs;
+        if (seqs == null) {
+            publishedFirst = store.getFirstSeq();
+            publishedNext = store.getNextSeq();
+            cache.keySet().removeIf(seq -> seq < publishedFirst);
+        }
+        beginChange();
+        if (oldSize > 0) nextRemove(0, Collections.nCopies(oldSize, EVICTED));
+        if (size() > 0) nextAdd(0, size());
+        endChange();
+    }
+
+    // seqs 是否为 "若干新序号 + 旧结果的一个前缀"，是则按增量通知
+    private boolean shiftFilter(long[] seqs) {
+        long[] old = filter;
+        int added = 0;
+        if (old.length > 0) {
+            while (added < seqs.length && seqs[added] != old[0]) added++;
+        } else {
+            added = seqs.length;
+        }
+        int kept = seqs.length - added;
+        if (kept > old.length) return false;
+        for (int i = 0; i < kept; i++) {
+            if (seqs[added + i] != old[i]) return false;
+        }
+        filter = seqs;
+        int removed = old.length - kept;
+        beginChange();
+        if (removed > 0) nextRemove(kept, Collections.nCopies(removed, EVICTED));
+        if (added > 0) nextAdd(0, added);
+        endChange();
+        return true;
+    }
+
+    public boolean isFiltered() {
+        return filter != null;
+    }
+
+    @Override
+    public MessageModel get(int index) {
+        if (index < 0 || index >= size()) throw new IndexOutOfBoundsException("Index: " + index);
+        long seq = filter != null ? filter[index] : publishedNext - 1 - index;
+        MessageModel row = cache.get(seq);
+        if (row == null) {
+            row = store.read(seq);
+            if (row == null) return EVICTED;
+            cache.put(seq, row);
+        }
+        return row;
+    }
+
+    @Override
+    public int size() {
+        if (filter != null) return filter.length;
+        return (int) (publishedNext - publishedFirst);
+    }
+}
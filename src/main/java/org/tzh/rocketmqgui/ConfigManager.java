@@ -33,6 +33,39 @@ public class ConfigManager {
         }
     }
 
+    // Consumer 抓取的磁盘预算 (MB)，可在配置文件中修改 capture.diskBudgetMb
+    public long getCaptureDiskBudgetMb() {
+        return getLong("capture.diskBudgetMb", 1024);
+    }
+
+    // 单个段文件大小 (MB)
+    public int getCaptureSegmentMb() {
+        return (int) getLong("capture.segmentMb", 64);
+    }
+
+    // 本地监控历史保留天数
+    public int getMetricsRetentionDays() {
+        return (int) getLong("metrics.retentionDays", 7);
+    }
+
+    // 连接池中最多保留的集群连接数
+    public int getPoolMaxClusters() {
+        return (int) getLong("pool.maxClusters", 5);
+    }
+
+    // 连接池中的连接空闲多久后关闭 (分钟)
+    public long getPoolIdleMinutes() {
+        return getLong("pool.idleMinutes", 30);
+    }
+
+    private long getLong(String key, long def) {
+        try {
+            return Long.parseLong(props.getProperty(key, String.valueOf(def)).trim());
+        } catch (NumberFormatException e) {
+            return def;
+        }
+    }
+
     public List<String> getHistory() {
         String history = props.getProperty("history", "");
         if (history.isEmpty()) return new ArrayList<>();
@@ -0,0 +1,260 @@
+package org.tzh.rocketmqgui;
+
+import org.apache.rocketmq.client.consumer.DefaultMQPushConsumer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 按 NameServer 地址缓存已启动的 RocketMQManager，切换集群时直接复用，不再重新启动客户端。
+ * - 每个连接同一时刻只借给一个窗口 (owner)，消费者和 Topic 增量状态都在 manager 里，不能共享
+ * - 归还后保持运行 (元数据后台刷新继续进行)，超出 maxSize 时按 LRU 关闭，空闲超过 idleMillis 也会关闭
+ * - 启动和关闭客户端都比较慢，不在锁内进行
+ */
+public class ConnectionPool {
+    private static final long EVICT_INTERVAL_SECONDS = 30;
+
+    private final int maxSize;
+    private final long idleMillis;
+    // access-order: 迭代顺序即最久未使用在前
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    // 正在启动的地址，其他调用方等待同一个结果
+    private final Map<String, CompletableFuture<RocketMQManager>> starting = new HashMap<>();
+    private final ScheduledExecutorService evictor;
+    private boolean closed;
+
+    private static final class Entry {
+        final RocketMQManager manager;
+        Object owner;
+        long releasedAt;
+
+        Entry(RocketMQManager manager, Object owner) {
+            this.manager = manager;
+            this.owner = owner;
+        }
+    }
+
+    public ConnectionPool(int maxSize, long idleMillis) {
+        this.maxSize = Math.max(1, maxSize);
+        this.idleMillis = idleMillis;
+        evictor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "connection-evictor");
+            t.setDaemon(true);
+            return t;
+        });
+        evictor.scheduleWithFixedDelay(this::evictIdle, EVICT_INTERVAL_SECONDS, EVICT_INTERVAL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * 取出已连接的 manager，没有则在调用线程上新建 (阻塞直到客户端启动完成)；
+     * 同一地址正在启动 (例如预热) 时等待它完成
+     *
+     * @param owner 借用方 (窗口)，同一地址已被其他 owner 借走时抛出 IllegalStateException
+     */
+    public RocketMQManager acquire(String addr, Object owner) throws Exception {
+        while (true) {
+            CompletableFuture<RocketMQManager> pending;
+            boolean mine = false;
+            synchronized (this) {
+                if (closed) throw new IllegalStateException("Connection pool is closed");
+                Entry e = entries.get(addr);
+                if (e != null) {
+                    if (e.owner != null && e.owner != owner) {
+                        throw new IllegalStateException(addr + " is already open in another window");
+                    }
+                    e.owner = owner;
+                    return e.manager;
+                }
+                pending = starting.get(addr);
+                if (pending == null) {
+                    pending = new CompletableFuture<>();
+                    starting.put(addr, pending);
+                    mine = true;
+                }
+            }
+            if (mine) return start(addr, owner, pending);
+            try {
+                pending.get();
+            } catch (ExecutionException startFailed) {
+                // 别人发起的启动失败了，由本次调用重试
+            }
+        }
+    }
+
+    /**
+     * 在后台启动一个空闲连接，界面还在构建时就把最慢的客户端启动做掉
+     */
+    public void prewarm(String addr) {
+        CompletableFuture<RocketMQManager> pending = new CompletableFuture<>();
+        synchronized (this) {
+            if (closed || entries.containsKey(addr) || starting.containsKey(addr)) return;
+            starting.put(addr, pending);
+        }
+        try {
+            evictor.execute(() -> {
+                try {
+                    start(addr, null, pending);
+                } catch (Exception ignored) {
+                    // 预热失败不影响之后的正常连接
+                }
+            });
+        } catch (RuntimeException rejected) {
+            synchronized (this) {
+                starting.remove(addr);
+            }
+            pending.cancel(false);
+        }
+    }
+
+    // 锁外启动客户端，完成后放入池中并唤醒等待同一地址的调用方
+    private RocketMQManager start(String addr, Object owner, CompletableFuture<RocketMQManager> pending) throws Exception {
+        RocketMQManager manager;
+        try {
+            manager = new RocketMQManager(addr);
+        } catch (Exception ex) {
+            synchronized (this) {
+                starting.remove(addr);
+            }
+            pending.completeExceptionally(ex);
+            throw ex;
+        }
+        List<RocketMQManager> evicted = new ArrayList<>();
+        boolean pooled;
+        synchronized (this) {
+            starting.remove(addr);
+            pooled = !closed;
+            if (pooled) {
+                Entry e = new Entry(manager, owner);
+                e.releasedAt = System.currentTimeMillis();
+                entries.put(addr, e);
+                evictOverflow(evicted);
+            } else {
+                evicted.add(manager);
+            }
+        }
+        closeLater(evicted);
+        if (!pooled) {
+            IllegalStateException ex = new IllegalStateException("Connection pool is closed");
+            pending.completeExceptionally(ex);
+            throw ex;
+        }
+        pending.complete(manager);
+        return manager;
+    }
+
+    /**
+     * 归还: 停掉借用方启动的消费者，连接本身保持运行，下次切回来时直接使用
+     */
+    public void release(String addr, RocketMQManager manager, Object owner) {
+        List<RocketMQManager> evicted = new ArrayList<>();
+        DefaultMQPushConsumer consumer;
+        synchronized (this) {
+            Entry e = entries.get(addr);
+            if (e == null || e.manager != manager || e.owner != owner) return;
+            // 先清掉借用方的状态，再标记为空闲，避免被其他窗口借走后误停；消费者只摘下，在锁外关闭
+            consumer = manager.detachConsumer();
+            manager.setTopicsListener(null);
+            e.owner = null;
+            e.releasedAt = System.currentTimeMillis();
+            evictOverflow(evicted);
+        }
+        if (consumer != null) consumer.shutdown();
+        closeLater(evicted);
+    }
+
+    /**
+     * 移出连接池并关闭 (界面上的 Disconnect)
+     */
+    public void close(String addr, RocketMQManager manager) {
+        synchronized (this) {
+            Entry e = entries.get(addr);
+            if (e == null || e.manager != manager) return;
+            entries.remove(addr);
+        }
+        closeQuietly(manager);
+    }
+
+    public synchronized boolean isWarm(String addr) {
+        Entry e = entries.get(addr);
+        return e != null && e.owner == null;
+    }
+
+    /**
+     * 当前池中的地址，最近使用的在前
+     */
+    public synchronized List<String> getAddresses() {
+        List<String> list = new ArrayList<>(entries.keySet());
+        Collections.reverse(list);
+        return list;
+    }
+
+    public void shutdown() {
+        List<RocketMQManager> all = new ArrayList<>();
+        synchronized (this) {
+            if (closed) return;
+            closed = true;
+            for (Entry e : entries.values()) all.add(e.manager);
+            entries.clear();
+        }
+        evictor.shutdownNow();
+        for (RocketMQManager m : all) closeQuietly(m);
+    }
+
+    // 超出容量时从最久未使用的开始关闭，正在被借用的跳过
+    private void evictOverflow(List<RocketMQManager> out) {
+        Iterator<Entry> it = entries.values().iterator();
+        int size = entries.size();
+        while (size > maxSize && it.hasNext()) {
+            Entry e = it.next();
+            if (e.owner != null) continue;
+            it.remove();
+            out.add(e.manager);
+            size--;
+        }
+    }
+
+    private void evictIdle() {
+        List<RocketMQManager> evicted = new ArrayList<>();
+        long now = System.currentTimeMillis();
+        synchronized (this) {
+            Iterator<Entry> it = entries.values().iterator();
+            while (it.hasNext()) {
+                Entry e = it.next();
+                if (e.owner == null && now - e.releasedAt > idleMillis) {
+                    it.remove();
+                    evicted.add(e.manager);
+                }
+            }
+        }
+        for (RocketMQManager m : evicted) closeQuietly(m);
+    }
+
+    private void closeLater(List<RocketMQManager> managers) {
+        if (managers.isEmpty()) return;
+        try {
+            evictor.execute(() -> {
+                for (RocketMQManager m : managers) closeQuietly(m);
+            });
+        } catch (RuntimeException rejected) {
+            for (RocketMQManager m : managers) closeQuietly(m);
+        }
+    }
+
+    private static void closeQuietly(RocketMQManager manager) {
+        try {
+            manager.disconnect();
+        } catch (Exception e) {
+            manager.shutdown();
+        }
+    }
+}
@@ -0,0 +1,395 @@
+package org.tzh.rocketmqgui;
+
+import org.apache.rocketmq.client.consumer.DefaultMQPullConsumer;
+import org.apache.rocketmq.client.consumer.PullResult;
+import org.apache.rocketmq.client.consumer.PullStatus;
+import org.apache.rocketmq.client.producer.DefaultMQProducer;
+import org.apache.rocketmq.common.admin.TopicOffset;
+import org.apache.rocketmq.common.message.Message;
+import org.apache.rocketmq.common.message.MessageConst;
+import org.apache.rocketmq.common.message.MessageExt;
+import org.apache.rocketmq.common.message.MessageQueue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 一个消费组的死信队列 (%DLQ%group) 的浏览与重投。
+ * - scan: 各队列从 minOffset 到 maxOffset 并行拉取，消息不保留，只累加到聚合组 (原 Topic + 重试次数 + 消息体特征)，
+ *   内存只与组数有关；组数达到上限后新出现的消息体特征并入同 Topic/重试次数下的 "(other)" 组
+ * - resend: 再扫一遍，命中所选组的消息经有界队列交给单个发送线程，按 Topic 批量、限速发回原 Topic
+ * 同一时刻只进行一个操作；进度计数由工作线程更新，界面定时读取。
+ */
+public class DlqBrowser {
+    static final int MAX_GROUPS = 2000;
+    private static final int PULL_BATCH = 32;
+    private static final long QUEUE_SCAN_TIMEOUT_MS = 30 * 60_000;
+    // 重投的拉取会在限速发送的背压下阻塞，耗时取决于消息数和速率，不设墙钟超时 (取消走 SearchHandle)
+    private static final long NO_TIMEOUT = 0;
+    // 消息体特征只看前 256 字节，数字串折叠成一个 #，只差流水号/时间戳的消息归为一组
+    private static final int SIGNATURE_BYTES = 256;
+    private static final int SAMPLE_CHARS = 160;
+    private static final long OTHER_SIGNATURE = 0;
+    private static final String UNKNOWN_TOPIC = "";
+    // 拉取线程与发送线程之间最多缓冲的批次数 (每批最多 PULL_BATCH 条)
+    private static final int SEND_BUFFER_BATCHES = 64;
+    private static final int MAX_SEND_BATCH_BYTES = 1024 * 1024;
+
+    /**
+     * 聚合组的标识
+     */
+    public static final class Key {
+        final String originTopic;
+        final int reconsumeTimes;
+        final long signature;
+
+        Key(String originTopic, int reconsumeTimes, long signature) {
+            this.originTopic = originTopic;
+            this.reconsumeTimes = reconsumeTimes;
+            this.signature = signature;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) return false;
+            Key k = (Key) o;
+            return signature == k.signature && reconsumeTimes == k.reconsumeTimes && originTopic.equals(k.originTopic);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(originTopic, reconsumeTimes, signature);
+        }
+    }
+
+    /**
+     * 一组相似的死信消息，sample 为第一条的消息体开头
+     */
+    public static final class Group {
+        final Key key;
+        final String sample;
+        final String sampleMsgId;
+        private long count;
+        private long firstStore = Long.MAX_VALUE;
+        private long lastStore;
+
+        Group(Key key, String sample, String sampleMsgId) {
+            this.key = key;
+            this.sample = sample;
+            this.sampleMsgId = sampleMsgId;
+        }
+
+        synchronized void add(long storeTime) {
+            count++;
+            if (storeTime < firstStore) firstStore = storeTime;
+            if (storeTime > lastStore) lastStore = storeTime;
+        }
+
+        public Key getKey() {
+            return key;
+        }
+
+        /**
+         * 原 Topic，死信消息里没有 RETRY_TOPIC 属性时为空串 (无法重投)
+         */
+        public String getOriginTopic() {
+            return key.originTopic;
+        }
+
+        public int getReconsumeTimes() {
+            return key.reconsumeTimes;
+        }
+
+        public boolean isOther() {
+            return key.signature == OTHER_SIGNATURE;
+        }
+
+        public String getSample() {
+            return sample;
+        }
+
+        public String getSampleMsgId() {
+            return sampleMsgId;
+        }
+
+        public synchronized long getCount() {
+            return count;
+        }
+
+        public synchronized long getFirstStore() {
+            return firstStore;
+        }
+
+        public synchronized long getLastStore() {
+            return lastStore;
+        }
+    }
+
+    // 4.9.4 客户端里按位点拉取只有 DefaultMQPullConsumer，没有可替换的接口
+    @SuppressWarnings("deprecation")
+    private final DefaultMQPullConsumer puller;
+    private final FanOut fanOut;
+    private final String dlqTopic;
+    private final Map<MessageQueue, TopicOffset> offsets;
+    private final Callable<DefaultMQProducer> producer;
+    private final ConcurrentHashMap<Key, Group> groups = new ConcurrentHashMap<>();
+    private final AtomicLong scanned = new AtomicLong();
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private volatile SearchHandle active;
+
+    /**
+     * @param offsets  DLQ Topic 各队列的位点范围 (examineTopicStats)
+     * @param producer 第一次重投时才取，Producer 是懒启动的
+     */
+    @SuppressWarnings("deprecation") // DefaultMQPullConsumer，见 puller
+    DlqBrowser(DefaultMQPullConsumer puller, FanOut fanOut, String dlqTopic, Map<MessageQueue, TopicOffset> offsets,
+               Callable<DefaultMQProducer> producer) {
+        this.puller = puller;
+        this.fanOut = fanOut;
+        this.dlqTopic = dlqTopic;
+        this.offsets = offsets;
+        this.producer = producer;
+    }
+
+    public String getDlqTopic() {
+        return dlqTopic;
+    }
+
+    public int getQueueCount() {
+        return offsets.size();
+    }
+
+    /**
+     * 当前的消息数: 各队列 maxOffset - minOffset 之和 (过期清理后 minOffset 大于 0)
+     */
+    public long getTotal() {
+        long total = 0;
+        for (TopicOffset o : offsets.values()) total += Math.max(0, o.getMaxOffset() - o.getMinOffset());
+        return total;
+    }
+
+    public long getScanned() {
+        return scanned.get();
+    }
+
+    public long getSent() {
+        return sent.get();
+    }
+
+    public long getFailed() {
+        return failed.get();
+    }
+
+    /**
+     * 聚合结果快照，按条数降序
+     */
+    public List<Group> getGroups() {
+        List<Group> list = new ArrayList<>(groups.values());
+        list.sort(Comparator.comparingLong(Group::getCount).reversed());
+        return list;
+    }
+
+    public void cancel() {
+        SearchHandle h = active;
+        if (h != null) h.cancel();
+    }
+
+    /**
+     * 重新扫描整个 DLQ 并聚合，之前的结果清空
+     */
+    public synchronized SearchHandle scan() {
+        cancel();
+        groups.clear();
+        scanned.set(0);
+        SearchHandle handle = new SearchHandle(Integer.MAX_VALUE);
+        active = handle;
+        handle.setParts(offsets.size());
+        for (Map.Entry<MessageQueue, TopicOffset> e : offsets.entrySet()) {
+            handle.track(fanOut.submit(() -> {
+                pullQueue(e.getKey(), e.getValue(), handle, batch -> {
+                    // 重新扫描时旧任务手里的最后一批不能混进新结果
+                    if (handle.isCancelled()) return;
+                    for (MessageExt m : batch) aggregate(m);
+                    scanned.addAndGet(batch.size());
+                });
+                return null;
+            }, QUEUE_SCAN_TIMEOUT_MS));
+        }
+        return handle;
+    }
+
+    /**
+     * 把属于 selected 组的消息发回原 Topic，ratePerSec 为 0 时不限速。
+     * 原 Topic 未知的组跳过；"(other)" 组会重投该 Topic/重试次数下所有未单独成组的消息。
+     */
+    public synchronized SearchHandle resend(Set<Key> selected, int ratePerSec, int batchSize) {
+        cancel();
+        scanned.set(0);
+        sent.set(0);
+        failed.set(0);
+        SearchHandle handle = new SearchHandle(Integer.MAX_VALUE);
+        active = handle;
+        BlockingQueue<List<Message>> buffer = new ArrayBlockingQueue<>(SEND_BUFFER_BATCHES);
+        AtomicInteger pulling = new AtomicInteger(offsets.size());
+        handle.setParts(offsets.size() + 1);
+        for (Map.Entry<MessageQueue, TopicOffset> e : offsets.entrySet()) {
+            CompletableFuture<Void> part = fanOut.submit(() -> {
+                pullQueue(e.getKey(), e.getValue(), handle, batch -> {
+                    List<Message> out = new ArrayList<>();
+                    for (MessageExt m : batch) {
+                        Key key = keyOf(m);
+                        if (!key.originTopic.isEmpty() && selected.contains(key)) {
+                            out.add(MessageArchive.forResend(m, key.originTopic));
+                        }
+                    }
+                    scanned.addAndGet(batch.size());
+                    if (out.isEmpty()) return;
+                    try {
+                        buffer.put(out);
+                    } catch (InterruptedException ie) {
+                        // 取消: 保留中断标记，拉取循环随即退出
+                        Thread.currentThread().interrupt();
+                    }
+                });
+                return null;
+            }, NO_TIMEOUT);
+            part.whenComplete((v, t) -> pulling.decrementAndGet());
+            handle.track(part);
+        }
+        CompletableFuture<Void> sender = new CompletableFuture<>();
+        handle.track(sender);
+        Thread t = new Thread(() -> {
+            try {
+                runSender(buffer, pulling, handle, ratePerSec, Math.max(1, batchSize));
+                sender.complete(null);
+            } catch (Throwable ex) {
+                handle.cancel();
+                sender.completeExceptionally(ex);
+            }
+        }, "dlq-resend");
+        t.setDaemon(true);
+        t.start();
+        return handle;
+    }
+
+    private void runSender(BlockingQueue<List<Message>> buffer, AtomicInteger pulling, SearchHandle handle,
+                           int ratePerSec, int batchSize) throws Exception {
+        DefaultMQProducer p = producer.call();
+        long intervalNanos = ratePerSec > 0 ? 1_000_000_000L / ratePerSec : 0;
+        long next = System.nanoTime();
+        while (!handle.isCancelled()) {
+            List<Message> pulled = buffer.poll(100, TimeUnit.MILLISECONDS);
+            if (pulled == null) {
+                if (pulling.get() == 0 && buffer.isEmpty()) return;
+                continue;
+            }
+            // 同一次拉取的消息可能来自不同的原 Topic，按 Topic、条数和大小切成发送批次
+            int from = 0;
+            while (from < pulled.size()) {
+                String topic = pulled.get(from).getTopic();
+                int to = from, bytes = 0;
+                while (to < pulled.size() && to - from < batchSize && pulled.get(to).getTopic().equals(topic)
+                        && (to == from || bytes + pulled.get(to).getBody().length <= MAX_SEND_BATCH_BYTES)) {
+                    bytes += pulled.get(to).getBody().length;
+                    to++;
+                }
+                List<Message> batch = pulled.subList(from, to);
+                if (intervalNanos > 0) {
+                    long now = System.nanoTime();
+                    if (next > now) Thread.sleep((next - now) / 1_000_000, (int) ((next - now) % 1_000_000));
+                    else if (now - next > TimeUnit.SECONDS.toNanos(1)) next = now;
+                    next += intervalNanos * batch.size();
+                }
+                try {
+                    MetricsRegistry.get().time("rpc.send",
+                            () -> batch.size() == 1 ? p.send(batch.get(0)) : p.send(new ArrayList<>(batch)));
+                    sent.addAndGet(batch.size());
+                } catch (InterruptedException ie) {
+                    throw ie;
+                } catch (Exception ex) {
+                    failed.addAndGet(batch.size());
+                }
+                from = to;
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface BatchSink {
+        void accept(List<MessageExt> batch) throws Exception;
+    }
+
+    private void pullQueue(MessageQueue mq, TopicOffset range, SearchHandle handle, BatchSink sink) throws Exception {
+        long offset = range.getMinOffset();
+        long stop = range.getMaxOffset();
+        while (offset < stop && !handle.isCancelled()) {
+            if (Thread.currentThread().isInterrupted()) return;
+            long from = offset;
+            PullResult result = MetricsRegistry.get().time("rpc.pull", () -> puller.pull(mq, "*", from, PULL_BATCH));
+            if (result.getPullStatus() == PullStatus.FOUND) {
+                sink.accept(result.getMsgFoundList());
+            }
+            // 扫描期间被过期清理掉的位点，Broker 会把 nextBeginOffset 指向新的 minOffset
+            if (result.getNextBeginOffset() <= offset) return;
+            offset = result.getNextBeginOffset();
+        }
+    }
+
+    private void aggregate(MessageExt m) {
+        Group g = groups.get(keyOf(m));
+        if (g == null) {
+            g = groups.computeIfAbsent(keyOf(m), k -> k.signature == OTHER_SIGNATURE
+                    ? new Group(k, "(other bodies)", "") : new Group(k, sample(m.getBody()), m.getMsgId()));
+        }
+        g.add(m.getStoreTimestamp());
+    }
+
+    // 组数已满时新特征归入 "(other)"；重投时按同样的规则映射，"(other)" 组才能选中它包含的消息
+    private Key keyOf(MessageExt m) {
+        String origin = m.getProperty(MessageConst.PROPERTY_RETRY_TOPIC);
+        Key key = new Key(origin == null ? UNKNOWN_TOPIC : origin, m.getReconsumeTimes(), signature(m.getBody()));
+        if (groups.size() < MAX_GROUPS || groups.containsKey(key)) return key;
+        return new Key(key.originTopic, key.reconsumeTimes, OTHER_SIGNATURE);
+    }
+
+    static long signature(byte[] body) {
+        // FNV-1a，连续数字只计一次
+        long h = 0xcbf29ce484222325L;
+        if (body == null) return 1;
+        boolean digits = false;
+        for (int i = 0, n = Math.min(body.length, SIGNATURE_BYTES); i < n; i++) {
+            byte b = body[i];
+            if (b >= '0' && b <= '9') {
+                if (digits) continue;
+                digits = true;
+                b = '#';
+            } else {
+                digits = false;
+            }
+            h ^= b & 0xff;
+            h *= 0x100000001b3L;
+        }
+        return h == OTHER_SIGNATURE ? 1 : h;
+    }
+
+    private static String sample(byte[] body) {
+        if (body == null) return "";
+        String s = new String(body, 0, Math.min(body.length, SAMPLE_CHARS * 2), StandardCharsets.UTF_8);
+        s = s.replaceAll("\\s+", " ").trim();
+        return s.length() > SAMPLE_CHARS ? s.substring(0, SAMPLE_CHARS) + "..." : s;
+    }
+}
@@ -0,0 +1,115 @@
+package org.tzh.rocketmqgui;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+
+/**
+ * 管理端 RPC 的并行扇出。
+ * 固定大小的线程池即并发上限；每个调用从真正开始执行时计时，超时后中断该调用，
+ * 一个慢 Broker / 慢 Topic 不会拖住整批请求。
+ */
+public class FanOut {
+
+    @FunctionalInterface
+    public interface Call<K, V> {
+        V apply(K key) throws Exception;
+    }
+
+    private final ThreadPoolExecutor pool;
+    private final ScheduledExecutorService timer;
+
+    public FanOut(String name, int concurrency) {
+        AtomicInteger counter = new AtomicInteger();
+        this.pool = new ThreadPoolExecutor(concurrency, concurrency, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+            Thread t = new Thread(r, name + "-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        this.pool.allowCoreThreadTimeOut(true);
+        this.timer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, name + "-timeout");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * 提交单个调用；超时或取消返回的 future 时会中断执行线程
+     *
+     * @param timeoutMs 不大于 0 表示不限时，只能通过取消结束
+     */
+    public <V> CompletableFuture<V> submit(Callable<V> call, long timeoutMs) {
+        CompletableFuture<V> result = new CompletableFuture<>();
+        AtomicReference<Future<?>> work = new AtomicReference<>();
+        work.set(pool.submit(() -> {
+            if (result.isDone()) return;
+            ScheduledFuture<?> timeout = timeoutMs <= 0 ? null : timer.schedule(() -> {
+                if (result.completeExceptionally(new TimeoutException("Timed out after " + timeoutMs + "ms"))) {
+                    Future<?> f = work.get();
+                    if (f != null) f.cancel(true);
+                }
+            }, timeoutMs, TimeUnit.MILLISECONDS);
+            try {
+                result.complete(call.call());
+            } catch (Throwable t) {
+                result.completeExceptionally(t);
+            } finally {
+                if (timeout != null) timeout.cancel(false);
+            }
+        }));
+        result.whenComplete((v, t) -> {
+            if (t instanceof CancellationException) work.get().cancel(true);
+        });
+        return result;
+    }
+
+    /**
+     * 对每个 key 并行调用，阻塞直到全部完成或超时。
+     * 失败/超时的 key 不出现在结果里，交给 onError 处理 (可为 null)。
+     */
+    public <K, V> Map<K, V> invokeAll(Collection<K> keys, Call<K, V> call, long timeoutMs, BiConsumer<K, Throwable> onError)
+            throws InterruptedException {
+        Map<K, CompletableFuture<V>> futures = new LinkedHashMap<>();
+        for (K key : keys) {
+            futures.put(key, submit(() -> call.apply(key), timeoutMs));
+        }
+        Map<K, V> results = new LinkedHashMap<>();
+        try {
+            for (Map.Entry<K, CompletableFuture<V>> e : futures.entrySet()) {
+                try {
+                    V v = e.getValue().get();
+                    if (v != null) results.put(e.getKey(), v);
+                } catch (ExecutionException ex) {
+                    if (onError != null) onError.accept(e.getKey(), ex.getCause());
+                } catch (CancellationException ex) {
+                    if (onError != null) onError.accept(e.getKey(), ex);
+                }
+            }
+        } catch (InterruptedException ie) {
+            for (CompletableFuture<V> f : futures.values()) f.cancel(true);
+            throw ie;
+        }
+        return results;
+    }
+
+    public void shutdown() {
+        pool.shutdownNow();
+        timer.shutdownNow();
+    }
+}
@@ -0,0 +1,119 @@
+package org.tzh.rocketmqgui;
+
+import javafx.beans.property.LongProperty;
+import javafx.beans.property.SimpleLongProperty;
+import javafx.beans.property.SimpleStringProperty;
+import javafx.beans.property.StringProperty;
+import org.apache.rocketmq.common.admin.ConsumeStats;
+import org.apache.rocketmq.common.admin.OffsetWrapper;
+import org.apache.rocketmq.common.message.MessageQueue;
+
+import java.util.Map;
+
+/**
+ * Lag Overview 表中的一行。
+ * 每次刷新只在数值真正变化时才写 Property，没变化的行不会触发重绘或重新排序。
+ */
+public class GroupLagRow {
+    private final String group;
+    private final LongProperty totalLag = new SimpleLongProperty(-1);
+    private final StringProperty worstQueue = new SimpleStringProperty("");
+    private final LongProperty worstQueueLag = new SimpleLongProperty(-1);
+    private final LongProperty lastConsumeTime = new SimpleLongProperty(0);
+    private final StringProperty error = new SimpleStringProperty("");
+
+    public GroupLagRow(String group) {
+        this.group = group;
+    }
+
+    /**
+     * 后台线程里从 ConsumeStats 提炼出来的结果，FX 线程再调用 apply
+     */
+    public static final class Snapshot {
+        final long totalLag;
+        final String worstQueue;
+        final long worstQueueLag;
+        final long lastConsumeTime;
+
+        public Snapshot(ConsumeStats stats) {
+            long total = 0, worst = -1, last = 0;
+            String worstName = "";
+            for (Map.Entry<MessageQueue, OffsetWrapper> e : stats.getOffsetTable().entrySet()) {
+                OffsetWrapper w = e.getValue();
+                long lag = Math.max(0, w.getBrokerOffset() - w.getConsumerOffset());
+                total += lag;
+                if (lag > worst) {
+                    worst = lag;
+                    MessageQueue mq = e.getKey();
+                    worstName = mq.getTopic() + "@" + mq.getBrokerName() + "#" + mq.getQueueId();
+                }
+                last = Math.max(last, w.getLastTimestamp());
+            }
+            this.totalLag = total;
+            this.worstQueue = worstName;
+            this.worstQueueLag = Math.max(0, worst);
+            this.lastConsumeTime = last;
+        }
+    }
+
+    /**
+     * @return 是否有任何字段发生变化
+     */
+    public boolean apply(Snapshot s) {
+        boolean changed = false;
+        if (totalLag.get() != s.totalLag) {
+            totalLag.set(s.totalLag);
+            changed = true;
+        }
+        if (!worstQueue.get().equals(s.worstQueue)) {
+            worstQueue.set(s.worstQueue);
+            changed = true;
+        }
+        if (worstQueueLag.get() != s.worstQueueLag) {
+            worstQueueLag.set(s.worstQueueLag);
+            changed = true;
+        }
+        if (lastConsumeTime.get() != s.lastConsumeTime) {
+            lastConsumeTime.set(s.lastConsumeTime);
+            changed = true;
+        }
+        if (!error.get().isEmpty()) {
+            error.set("");
+            changed = true;
+        }
+        return changed;
+    }
+
+    public void setError(String message) {
+        String m = message == null ? "error" : message;
+        if (!error.get().equals(m)) error.set(m);
+    }
+
+    public String getGroup() {
+        return group;
+    }
+
+    public long getTotalLag() {
+        return totalLag.get();
+    }
+
+    public LongProperty totalLagProperty() {
+        return totalLag;
+    }
+
+    public StringProperty worstQueueProperty() {
+        return worstQueue;
+    }
+
+    public LongProperty worstQueueLagProperty() {
+        return worstQueueLag;
+    }
+
+    public LongProperty lastConsumeTimeProperty() {
+        return lastConsumeTime;
+    }
+
+    public StringProperty errorProperty() {
+        return error;
+    }
+}
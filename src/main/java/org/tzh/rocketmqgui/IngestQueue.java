@@ -0,0 +1,69 @@
+package org.tzh.rocketmqgui;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 消费线程 -> FX 线程的有界无锁交接队列。
+ * 生产方 (RocketMQ 回调线程) 只做 offer，FX 线程每个 pulse 调用一次 drainTo 批量取走。
+ * 队列满时直接丢弃新消息并计数，避免 runLater 队列把堆撑爆。
+ */
+public class IngestQueue<T> {
+    private final ConcurrentLinkedQueue<T> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final AtomicLong dropped = new AtomicLong();
+    private final int capacity;
+
+    public IngestQueue(int capacity) {
+        this.capacity = capacity;
+    }
+
+    /**
+     * @return false 表示队列已满，消息被丢弃
+     */
+    public boolean offer(T item) {
+        if (size.incrementAndGet() > capacity) {
+            size.decrementAndGet();
+            dropped.incrementAndGet();
+            return false;
+        }
+        queue.offer(item);
+        return true;
+    }
+
+    /**
+     * 取出最多 max 条，按入队顺序追加到 target
+     *
+     * @return 实际取出的条数
+     */
+    public int drainTo(List<T> target, int max) {
+        int n = 0;
+        T item;
+        while (n < max && (item = queue.poll()) != null) {
+            target.add(item);
+            n++;
+        }
+        if (n > 0) size.addAndGet(-n);
+        return n;
+    }
+
+    public void clear() {
+        int n = 0;
+        while (queue.poll() != null) n++;
+        if (n > 0) size.addAndGet(-n);
+    }
+
+    public int size() {
+        return size.get();
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public long getDropped() {
+        return dropped.get();
+    }
+}
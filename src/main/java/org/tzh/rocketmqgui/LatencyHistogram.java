@@ -0,0 +1,102 @@
+package org.tzh.rocketmqgui;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * HDR 风格的对数-线性直方图，单位微秒。
+ * 128 以下每个值一个桶，之上每个 2 的幂区间再分 64 个子桶，相对误差约 1.5%，最大约 19 小时。
+ * 记录只是一次数组下标计算加一次原子自增，不分配对象，可在发送回调等热路径上使用。
+ */
+public class LatencyHistogram {
+    private static final int LINEAR = 128;
+    private static final int SUB_BUCKETS = 64;
+    private static final int MAX_SHIFT = 30;
+    private static final long MAX_VALUE = (2L * SUB_BUCKETS << MAX_SHIFT) - 1;
+    private static final int BUCKETS = LINEAR + MAX_SHIFT * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+    public void recordMicros(long micros) {
+        counts.incrementAndGet(index(Math.max(0, Math.min(micros, MAX_VALUE))));
+    }
+
+    public void recordNanos(long nanos) {
+        recordMicros(nanos / 1000);
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) counts.set(i, 0);
+    }
+
+    /**
+     * 取当前计数的快照，后续计算不受并发写入影响
+     */
+    public Snapshot snapshot() {
+        long[] copy = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) copy[i] = counts.get(i);
+        return new Snapshot(copy);
+    }
+
+    static int index(long v) {
+        if (v < LINEAR) return (int) v;
+        int msb = 63 - Long.numberOfLeadingZeros(v);
+        int shift = msb - 6;
+        return (int) (LINEAR + (shift - 1) * SUB_BUCKETS + ((v >>> shift) - SUB_BUCKETS));
+    }
+
+    // 桶的上界
+    static long highestValue(int index) {
+        if (index < LINEAR) return index;
+        int k = index - LINEAR;
+        int shift = k / SUB_BUCKETS + 1;
+        long sub = k % SUB_BUCKETS + SUB_BUCKETS;
+        return ((sub + 1) << shift) - 1;
+    }
+
+    public static final class Snapshot {
+        private final long[] counts;
+        private final long total;
+
+        Snapshot(long[] counts) {
+            this.counts = counts;
+            long t = 0;
+            for (long c : counts) t += c;
+            this.total = t;
+        }
+
+        public long count() {
+            return total;
+        }
+
+        /**
+         * @param p 0~1 之间，如 0.99
+         * @return 微秒，没有数据时返回 0
+         */
+        public long percentile(double p) {
+            if (total == 0) return 0;
+            long target = Math.max(1, (long) Math.ceil(p * total));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= target) return highestValue(i);
+            }
+            return highestValue(counts.length - 1);
+        }
+
+        public long max() {
+            for (int i = counts.length - 1; i >= 0; i--) {
+                if (counts[i] > 0) return highestValue(i);
+            }
+            return 0;
+        }
+
+        public double mean() {
+            if (total == 0) return 0;
+            double sum = 0;
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] > 0) sum += (double) counts[i] * highestValue(i);
+            }
+            return sum / total;
+        }
+    }
+}
@@ -0,0 +1,291 @@
+package org.tzh.rocketmqgui;
+
+import org.apache.rocketmq.client.producer.DefaultMQProducer;
+import org.apache.rocketmq.client.producer.SendCallback;
+import org.apache.rocketmq.client.producer.SendResult;
+import org.apache.rocketmq.common.UtilAll;
+import org.apache.rocketmq.common.message.Message;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Producer 页的压测发送器。
+ * - 每个 producer 实例 (独立 instanceName，即独立的网络连接) 配一个发送线程
+ * - 可选目标速率 (按批次均匀节拍，落后时不补发) 或不限速
+ * - 可选批量 send(Collection) 与异步发送；异步时每个线程的在途窗口由一个回调对象池控制，池空即阻塞
+ * - 消息体只在启动时生成一次并被所有消息共享，热路径上不做格式化和拷贝
+ * start/stop 都会阻塞，不要在 FX 线程调用。
+ */
+public class LoadGenerator {
+    private static final String GROUP = "FX_LOADGEN_GROUP";
+    // 停止时等待在途异步请求返回的上限
+    private static final long DRAIN_TIMEOUT_MS = 5000;
+
+    /**
+     * 压测参数
+     */
+    public static final class Settings {
+        public String topic;
+        public String tag = "*";
+        // 目标总速率 msg/s，0 表示不限速
+        public int rate;
+        // 消息体字节数，0 表示直接使用模板
+        public int messageSize = 256;
+        public String bodyTemplate = "";
+        public int batchSize = 1;
+        public boolean async = true;
+        // 每个 producer 的最大在途请求数 (仅异步)
+        public int maxInFlight = 1000;
+        public int producers = 1;
+    }
+
+    private final String namesrvAddr;
+    private final Settings settings;
+    private final byte[] body;
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final List<DefaultMQProducer> producers = new ArrayList<>();
+    private final List<Worker> workers = new ArrayList<>();
+    private volatile boolean running;
+    private volatile String lastError;
+    private long startedAt;
+
+    public LoadGenerator(String namesrvAddr, Settings settings) {
+        if (settings.topic == null || settings.topic.isEmpty()) {
+            throw new IllegalArgumentException("Topic is required");
+        }
+        this.namesrvAddr = namesrvAddr;
+        this.settings = settings;
+        this.body = buildBody(settings.bodyTemplate, settings.messageSize);
+    }
+
+    public synchronized void start() throws Exception {
+        if (running) return;
+        int n = Math.max(1, settings.producers);
+        String pid = String.valueOf(UtilAll.getPid());
+        try {
+            for (int i = 0; i < n; i++) {
+                DefaultMQProducer p = new DefaultMQProducer(GROUP);
+                p.setNamesrvAddr(namesrvAddr);
+                p.setInstanceName("loadgen-" + pid + "-" + i);
+                p.start();
+                producers.add(p);
+            }
+        } catch (Exception e) {
+            shutdownProducers();
+            throw e;
+        }
+        running = true;
+        startedAt = System.currentTimeMillis();
+        // 总速率平均分给各线程
+        double perThreadRate = settings.rate > 0 ? (double) settings.rate / n : 0;
+        for (int i = 0; i < n; i++) {
+            Worker w = new Worker(producers.get(i), perThreadRate);
+            Thread t = new Thread(w, "loadgen-" + i);
+            t.setDaemon(true);
+            w.thread = t;
+            workers.add(w);
+            t.start();
+        }
+    }
+
+    public synchronized void stop() {
+        if (!running) return;
+        running = false;
+        for (Worker w : workers) w.thread.interrupt();
+        long deadline = System.currentTimeMillis() + DRAIN_TIMEOUT_MS;
+        for (Worker w : workers) {
+            try {
+                w.thread.join(Math.max(1, deadline - System.currentTimeMillis()));
+                w.awaitInFlight(deadline);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        workers.clear();
+        shutdownProducers();
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    public long getSent() {
+        return sent.sum();
+    }
+
+    public long getFailed() {
+        return failed.sum();
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    public long getStartedAt() {
+        return startedAt;
+    }
+
+    /**
+     * 发送延迟 (每次 send 调用一个样本，批量时是整批的延迟)
+     */
+    public LatencyHistogram.Snapshot latencySnapshot() {
+        return latency.snapshot();
+    }
+
+    private void shutdownProducers() {
+        for (DefaultMQProducer p : producers) {
+            try {
+                p.shutdown();
+            } catch (Exception ignored) {
+            }
+        }
+        producers.clear();
+    }
+
+    static byte[] buildBody(String template, int size) {
+        byte[] t = template == null ? new byte[0] : template.getBytes(StandardCharsets.UTF_8);
+        if (size <= 0) return t.length > 0 ? t : new byte[]{'x'};
+        if (t.length == 0) t = new byte[]{'x'};
+        byte[] b = new byte[size];
+        for (int i = 0; i < size; i += t.length) {
+            System.arraycopy(t, 0, b, i, Math.min(t.length, size - i));
+        }
+        return b;
+    }
+
+    private final class Worker implements Runnable {
+        private final DefaultMQProducer producer;
+        // 每批之间的间隔，0 表示不限速
+        private final long intervalNanos;
+        private final int batch = Math.max(1, settings.batchSize);
+        private final int window = Math.max(1, settings.maxInFlight);
+        // 空闲的回调对象；取不到说明在途已满
+        private final BlockingQueue<InFlight> idle = new ArrayBlockingQueue<>(window);
+        private final List<Message> batchBuffer = new ArrayList<>(batch);
+        Thread thread;
+
+        Worker(DefaultMQProducer producer, double rate) {
+            this.producer = producer;
+            this.intervalNanos = rate > 0 ? (long) (batch * 1_000_000_000L / rate) : 0;
+            if (settings.async) {
+                for (int i = 0; i < window; i++) idle.add(new InFlight(idle));
+            }
+        }
+
+        @Override
+        public void run() {
+            long next = System.nanoTime();
+            while (running) {
+                if (intervalNanos > 0) {
+                    long now = System.nanoTime();
+                    if (next > now) {
+                        LockSupport.parkNanos(next - now);
+                        if (!running) break;
+                    } else if (now - next > TimeUnit.SECONDS.toNanos(1)) {
+                        // 落后超过 1 秒 (broker 变慢)，重新对齐，不要突发补发
+                        next = now;
+                    }
+                    next += intervalNanos;
+                }
+                try {
+                    if (settings.async) sendAsync();
+                    else sendSync();
+                } catch (InterruptedException e) {
+                    break;
+                }
+            }
+        }
+
+        private void sendSync() throws InterruptedException {
+            long start = System.nanoTime();
+            try {
+                if (batch == 1) {
+                    producer.send(newMessage());
+                } else {
+                    producer.send(fillBatch());
+                }
+                latency.recordNanos(System.nanoTime() - start);
+                sent.add(batch);
+            } catch (InterruptedException e) {
+                throw e;
+            } catch (Exception e) {
+                failed.add(batch);
+                lastError = e.getMessage();
+            } finally {
+                batchBuffer.clear();
+            }
+        }
+
+        private void sendAsync() throws InterruptedException {
+            InFlight cb = idle.take();
+            cb.count = batch;
+            cb.start = System.nanoTime();
+            try {
+                if (batch == 1) {
+                    producer.send(newMessage(), cb);
+                } else {
+                    producer.send(fillBatch(), cb);
+                }
+            } catch (InterruptedException e) {
+                idle.offer(cb);
+                throw e;
+            } catch (Exception e) {
+                // 同步抛出时不会再回调，这里自己归还
+                cb.onException(e);
+            } finally {
+                // batch() 在 send 返回前已经完成编码，列表可以复用
+                batchBuffer.clear();
+            }
+        }
+
+        private Message newMessage() {
+            return new Message(settings.topic, settings.tag, body);
+        }
+
+        private List<Message> fillBatch() {
+            for (int i = 0; i < batch; i++) batchBuffer.add(newMessage());
+            return batchBuffer;
+        }
+
+        void awaitInFlight(long deadline) throws InterruptedException {
+            if (!settings.async) return;
+            while (idle.size() < window && System.currentTimeMillis() < deadline) {
+                Thread.sleep(20);
+            }
+        }
+    }
+
+    private final class InFlight implements SendCallback {
+        private final BlockingQueue<InFlight> pool;
+        long start;
+        int count;
+
+        InFlight(BlockingQueue<InFlight> pool) {
+            this.pool = pool;
+        }
+
+        @Override
+        public void onSuccess(SendResult sendResult) {
+            latency.recordNanos(System.nanoTime() - start);
+            sent.add(count);
+            pool.offer(this);
+        }
+
+        @Override
+        public void onException(Throwable e) {
+            failed.add(count);
+            lastError = e.getMessage();
+            pool.offer(this);
+        }
+    }
+}
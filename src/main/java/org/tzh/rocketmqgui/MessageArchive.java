@@ -0,0 +1,265 @@
+package org.tzh.rocketmqgui;
+
+import org.apache.rocketmq.common.message.Message;
+import org.apache.rocketmq.common.message.MessageAccessor;
+import org.apache.rocketmq.common.message.MessageConst;
+import org.apache.rocketmq.common.message.MessageDecoder;
+import org.apache.rocketmq.common.message.MessageExt;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * 导出/回放用的本地消息文件格式。
+ * 文件头 [int magic][int version]，之后是若干压缩块 [int rawLen][int compressedLen][deflate 数据]，
+ * 块内按顺序存放消息: [short+topic][int flag][long bornTs][long storeTs][int queueId][long queueOffset]
+ * [int+properties (含 TAGS/KEYS)][int+body]。
+ * 读写都只持有一个块 (约 1MB) 的缓冲，文件大小不受堆限制。
+ */
+public final class MessageArchive {
+    private static final int MAGIC = 0x524D5141; // "RMQA"
+    private static final int VERSION = 1;
+    private static final int CHUNK_BYTES = 1024 * 1024;
+    private static final int IO_BUFFER = 1024 * 1024;
+
+    private MessageArchive() {
+    }
+
+    public static Writer create(File file) throws IOException {
+        return new Writer(file);
+    }
+
+    public static Reader open(File file) throws IOException {
+        return new Reader(file);
+    }
+
+    /**
+     * 顺序写入，非线程安全；close 时写出最后一个块
+     */
+    public static final class Writer implements Closeable {
+        private final DataOutputStream out;
+        private final ExposedBuffer raw = new ExposedBuffer(CHUNK_BYTES + 64 * 1024);
+        private final DataOutputStream record = new DataOutputStream(raw);
+        private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        private byte[] compressed = new byte[CHUNK_BYTES];
+        private long messages;
+        private long bytesWritten;
+
+        private Writer(File file) throws IOException {
+            out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), IO_BUFFER));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            bytesWritten = 8;
+        }
+
+        public void write(MessageExt msg) throws IOException {
+            writeString(record, msg.getTopic(), true);
+            record.writeInt(msg.getFlag());
+            record.writeLong(msg.getBornTimestamp());
+            record.writeLong(msg.getStoreTimestamp());
+            record.writeInt(msg.getQueueId());
+            record.writeLong(msg.getQueueOffset());
+            Map<String, String> props = msg.getProperties();
+            writeString(record, props == null ? "" : MessageDecoder.messageProperties2String(props), false);
+            byte[] body = msg.getBody();
+            int len = body == null ? 0 : body.length;
+            record.writeInt(len);
+            if (len > 0) record.write(body);
+            messages++;
+            if (raw.size() >= CHUNK_BYTES) flushChunk();
+        }
+
+        public long getMessages() {
+            return messages;
+        }
+
+        public long getBytesWritten() {
+            return bytesWritten;
+        }
+
+        private void flushChunk() throws IOException {
+            int rawLen = raw.size();
+            if (rawLen == 0) return;
+            deflater.reset();
+            deflater.setInput(raw.array(), 0, rawLen);
+            deflater.finish();
+            int n = 0;
+            while (!deflater.finished()) {
+                if (n == compressed.length) {
+                    byte[] bigger = new byte[compressed.length * 2];
+                    System.arraycopy(compressed, 0, bigger, 0, n);
+                    compressed = bigger;
+                }
+                n += deflater.deflate(compressed, n, compressed.length - n);
+            }
+            out.writeInt(rawLen);
+            out.writeInt(n);
+            out.write(compressed, 0, n);
+            bytesWritten += 8 + n;
+            raw.reset();
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                flushChunk();
+            } finally {
+                deflater.end();
+                out.close();
+            }
+        }
+    }
+
+    /**
+     * 顺序读取，next 返回 null 表示到达文件末尾。
+     * 返回的消息保留原始属性 (包括 UNIQ_KEY 等系统属性)，重新发送前用 {@link #forResend} 处理。
+     */
+    public static final class Reader implements Closeable {
+        private final DataInputStream in;
+        private final Inflater inflater = new Inflater();
+        private byte[] compressed = new byte[CHUNK_BYTES];
+        private byte[] chunk = new byte[CHUNK_BYTES];
+        private ByteBuffer current = ByteBuffer.allocate(0);
+        private final long fileSize;
+        private long bytesRead;
+
+        private Reader(File file) throws IOException {
+            fileSize = file.length();
+            in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), IO_BUFFER));
+            if (in.readInt() != MAGIC) {
+                in.close();
+                throw new IOException("Not a message archive: " + file);
+            }
+            int version = in.readInt();
+            if (version != VERSION) {
+                in.close();
+                throw new IOException("Unsupported archive version " + version);
+            }
+            bytesRead = 8;
+        }
+
+        public Message next() throws IOException {
+            if (!current.hasRemaining() && !readChunk()) return null;
+            ByteBuffer b = current;
+            String topic = readString(b, true);
+            Message msg = new Message();
+            msg.setTopic(topic);
+            msg.setFlag(b.getInt());
+            b.getLong(); // bornTs
+            b.getLong(); // storeTs
+            b.getInt(); // queueId
+            b.getLong(); // queueOffset
+            String props = readString(b, false);
+            if (!props.isEmpty()) MessageAccessor.setProperties(msg, MessageDecoder.string2messageProperties(props));
+            byte[] body = new byte[b.getInt()];
+            b.get(body);
+            msg.setBody(body);
+            return msg;
+        }
+
+        public long getFileSize() {
+            return fileSize;
+        }
+
+        public long getBytesRead() {
+            return bytesRead;
+        }
+
+        private boolean readChunk() throws IOException {
+            int rawLen;
+            try {
+                rawLen = in.readInt();
+            } catch (EOFException eof) {
+                return false;
+            }
+            int compLen = in.readInt();
+            if (compressed.length < compLen) compressed = new byte[compLen];
+            if (chunk.length < rawLen) chunk = new byte[rawLen];
+            in.readFully(compressed, 0, compLen);
+            bytesRead += 8 + compLen;
+            inflater.reset();
+            inflater.setInput(compressed, 0, compLen);
+            try {
+                int n = 0;
+                while (n < rawLen && !inflater.finished()) {
+                    int r = inflater.inflate(chunk, n, rawLen - n);
+                    if (r == 0 && (inflater.needsInput() || inflater.needsDictionary())) break;
+                    n += r;
+                }
+                if (n != rawLen) throw new IOException("Corrupted chunk at byte " + bytesRead);
+            } catch (DataFormatException e) {
+                throw new IOException("Corrupted chunk at byte " + bytesRead, e);
+            }
+            current = ByteBuffer.wrap(chunk, 0, rawLen);
+            return true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            inflater.end();
+            in.close();
+        }
+    }
+
+    /**
+     * 生成可重新发送的消息: 去掉 Broker/客户端写入的系统属性 (保留 Tag 和 Key)，可选改投到另一个 Topic
+     */
+    public static Message forResend(Message archived, String targetTopic) {
+        Message msg = new Message();
+        msg.setTopic(targetTopic == null || targetTopic.isEmpty() ? archived.getTopic() : targetTopic);
+        msg.setFlag(archived.getFlag());
+        msg.setBody(archived.getBody());
+        Map<String, String> props = archived.getProperties();
+        if (props != null) {
+            for (Map.Entry<String, String> e : props.entrySet()) {
+                String k = e.getKey();
+                if (!MessageConst.STRING_HASH_SET.contains(k)
+                        || MessageConst.PROPERTY_TAGS.equals(k) || MessageConst.PROPERTY_KEYS.equals(k)) {
+                    MessageAccessor.putProperty(msg, k, e.getValue());
+                }
+            }
+        }
+        return msg;
+    }
+
+    private static void writeString(DataOutputStream out, String s, boolean shortLen) throws IOException {
+        byte[] b = s == null ? new byte[0] : s.getBytes(StandardCharsets.UTF_8);
+        if (shortLen) out.writeShort(b.length);
+        else out.writeInt(b.length);
+        out.write(b);
+    }
+
+    private static String readString(ByteBuffer b, boolean shortLen) {
+        int len = shortLen ? (b.getShort() & 0xFFFF) : b.getInt();
+        if (len == 0) return "";
+        String s = new String(b.array(), b.arrayOffset() + b.position(), len, StandardCharsets.UTF_8);
+        b.position(b.position() + len);
+        return s;
+    }
+
+    // 可以直接拿到内部数组的 ByteArrayOutputStream，压缩时免一次拷贝
+    private static final class ExposedBuffer extends ByteArrayOutputStream {
+        ExposedBuffer(int size) {
+            super(size);
+        }
+
+        byte[] array() {
+            return buf;
+        }
+    }
+}
@@ -0,0 +1,325 @@
+package org.tzh.rocketmqgui;
+
+import org.apache.rocketmq.common.message.MessageClientExt;
+import org.apache.rocketmq.common.message.MessageConst;
+import org.apache.rocketmq.common.message.MessageExt;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 抓取消息的倒排索引: token -> 消息序号 (CaptureStore 的 seq)。
+ * - 索引的内容: 消息体前 4KB 中的字母数字串、Tag、每个 Key (整体及拆分)、msgId
+ * - FX 线程只负责 submit 入队，分词和写倒排表都在后台线程里批量完成
+ * - 序号单调递增，倒排表天然有序；淘汰时按下界整体裁剪，不逐条删除
+ * 查询是多个 token 的 AND，外加把整个查询串当作一个 token 的精确匹配 (Key 中带分隔符时)。
+ */
+public class MessageIndex {
+    private static final int QUEUE_CAPACITY = 100_000;
+    private static final int WORKER_BATCH = 4096;
+    private static final int MAX_BODY_SCAN = 4096;
+    private static final int MAX_TOKENS_PER_MESSAGE = 64;
+    private static final int MIN_TOKEN = 2;
+    private static final int MAX_TOKEN = 64;
+
+    private final BlockingQueue<Pending> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final Map<String, Postings> postings = new HashMap<>();
+    private final Thread worker;
+    // 低于此序号的消息已被淘汰
+    private volatile long evictBefore;
+    private long prunedBefore;
+    private volatile long dropped;
+    private volatile long indexed;
+    private volatile boolean closed;
+    private volatile Runnable onIndexed;
+
+    public MessageIndex() {
+        worker = new Thread(this::runWorker, "capture-index");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * 提交一条刚写入 CaptureStore 的消息，队列满时丢弃 (该消息只是搜不到)。
+     * 只取出要分词的字段和消息体开头，队列不持有 MessageExt (消息已在 CaptureStore 里)
+     */
+    public void submit(long seq, MessageExt msg) {
+        if (seq > Integer.MAX_VALUE || !queue.offer(new Pending((int) seq, msg))) dropped++;
+    }
+
+    /**
+     * CaptureStore 淘汰了 firstSeq 之前的消息，倒排表在后台线程里裁剪
+     */
+    public void evictBefore(long firstSeq) {
+        if (firstSeq > evictBefore) evictBefore = firstSeq;
+    }
+
+    public synchronized void clear() {
+        queue.clear();
+        postings.clear();
+    }
+
+    /**
+     * 每处理完一批后在索引线程上回调，用于刷新正在生效的过滤
+     */
+    public void setOnIndexed(Runnable onIndexed) {
+        this.onIndexed = onIndexed;
+    }
+
+    /**
+     * @return 命中的消息序号，最新的在前；查询串中没有可用 token 时返回 null
+     */
+    public synchronized long[] search(String query, int limit) {
+        List<String> tokens = new ArrayList<>();
+        tokenize(query, tokens, Integer.MAX_VALUE);
+        String whole = query == null ? "" : query.trim().toLowerCase();
+        if (tokens.isEmpty() && whole.length() < MIN_TOKEN) return null;
+
+        long floor = evictBefore;
+        int[] hits = null;
+        if (!tokens.isEmpty()) {
+            // 从最短的倒排表开始求交
+            List<Postings> lists = new ArrayList<>();
+            for (String t : new LinkedHashSet<>(tokens)) {
+                Postings p = postings.get(t);
+                if (p == null) {
+                    lists = null;
+                    break;
+                }
+                lists.add(p);
+            }
+            if (lists != null) {
+                lists.sort((a, b) -> Integer.compare(a.size - a.start, b.size - b.start));
+                hits = Arrays.copyOfRange(lists.get(0).seqs, lists.get(0).start, lists.get(0).size);
+                for (int i = 1; i < lists.size() && hits.length > 0; i++) {
+                    hits = intersect(hits, lists.get(i));
+                }
+            }
+        }
+        Postings exact = whole.length() > MAX_TOKEN ? null : postings.get(whole);
+        if (exact != null) {
+            int[] e = Arrays.copyOfRange(exact.seqs, exact.start, exact.size);
+            hits = hits == null ? e : union(hits, e);
+        }
+        if (hits == null) return new long[0];
+
+        int n = 0;
+        long[] result = new long[Math.min(limit, hits.length)];
+        for (int i = hits.length - 1; i >= 0 && n < result.length; i--) {
+            if (hits[i] >= floor) result[n++] = hits[i];
+        }
+        return n == result.length ? result : Arrays.copyOf(result, n);
+    }
+
+    public synchronized int getTokenCount() {
+        return postings.size();
+    }
+
+    public long getIndexed() {
+        return indexed;
+    }
+
+    public long getDropped() {
+        return dropped;
+    }
+
+    public void close() {
+        closed = true;
+        worker.interrupt();
+    }
+
+    private void runWorker() {
+        List<Pending> batch = new ArrayList<>(WORKER_BATCH);
+        List<String> tokens = new ArrayList<>();
+        List<int[]> ranges = new ArrayList<>();
+        while (!closed) {
+            try {
+                Pending first = queue.poll(200, TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    queue.drainTo(batch, WORKER_BATCH - 1);
+                }
+            } catch (InterruptedException e) {
+                return;
+            }
+            // 锁外分词，锁内只做追加
+            tokens.clear();
+            ranges.clear();
+            for (Pending p : batch) {
+                int from = tokens.size();
+                extractTokens(p, tokens);
+                ranges.add(new int[]{p.seq, from, tokens.size()});
+            }
+            synchronized (this) {
+                for (int[] r : ranges) {
+                    for (int i = r[1]; i < r[2]; i++) {
+                        postings.computeIfAbsent(tokens.get(i), k -> new Postings()).add(r[0]);
+                    }
+                }
+                if (evictBefore > prunedBefore) prune();
+            }
+            indexed += batch.size();
+            boolean changed = !batch.isEmpty();
+            batch.clear();
+            Runnable callback = onIndexed;
+            if (changed && callback != null) callback.run();
+        }
+    }
+
+    // 把所有倒排表裁到淘汰下界，空表直接删除
+    private void prune() {
+        long floor = evictBefore;
+        Iterator<Postings> it = postings.values().iterator();
+        while (it.hasNext()) {
+            Postings p = it.next();
+            p.trimBelow(floor);
+            if (p.start == p.size) it.remove();
+        }
+        prunedBefore = floor;
+    }
+
+    private static void extractTokens(Pending msg, List<String> out) {
+        int from = out.size();
+        String tag = msg.tag;
+        if (tag != null && !tag.isEmpty()) out.add(tag.toLowerCase());
+        String keys = msg.keys;
+        if (keys != null) {
+            for (String k : keys.split(MessageConst.KEY_SEPARATOR)) {
+                if (k.length() >= MIN_TOKEN && k.length() <= MAX_TOKEN) out.add(k.toLowerCase());
+                tokenize(k, out, MAX_TOKENS_PER_MESSAGE);
+            }
+        }
+        if (msg.msgId != null) out.add(msg.msgId.toLowerCase());
+        if (msg.offsetMsgId != null) out.add(msg.offsetMsgId.toLowerCase());
+        if (msg.bodyHead != null && msg.bodyHead.length > 0) {
+            tokenize(new String(msg.bodyHead, StandardCharsets.UTF_8), out, from + MAX_TOKENS_PER_MESSAGE);
+        }
+        // 同一条消息里重复的 token 只记一次
+        if (out.size() - from > 1) {
+            Set<String> unique = new LinkedHashSet<>(out.subList(from, out.size()));
+            out.subList(from, out.size()).clear();
+            out.addAll(unique);
+        }
+    }
+
+    // 按非字母数字切分并转小写，out 达到 maxSize 后停止
+    private static void tokenize(String text, List<String> out, int maxSize) {
+        if (text == null) return;
+        int start = -1;
+        for (int i = 0; i <= text.length() && out.size() < maxSize; i++) {
+            boolean word = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (word && start < 0) {
+                start = i;
+            } else if (!word && start >= 0) {
+                int len = i - start;
+                if (len >= MIN_TOKEN && len <= MAX_TOKEN) out.add(text.substring(start, i).toLowerCase());
+                start = -1;
+            }
+        }
+    }
+
+    private static int[] intersect(int[] a, Postings p) {
+        int[] out = new int[a.length];
+        int n = 0;
+        int j = p.start;
+        for (int v : a) {
+            j = p.lowerBound(v, j);
+            if (j >= p.size) break;
+            if (p.seqs[j] == v) out[n++] = v;
+        }
+        return Arrays.copyOf(out, n);
+    }
+
+    private static int[] union(int[] a, int[] b) {
+        int[] out = new int[a.length + b.length];
+        int i = 0, j = 0, n = 0;
+        while (i < a.length || j < b.length) {
+            int v;
+            if (j >= b.length || (i < a.length && a[i] < b[j])) v = a[i++];
+            else if (i >= a.length || b[j] < a[i]) v = b[j++];
+            else {
+                v = a[i++];
+                j++;
+            }
+            out[n++] = v;
+        }
+        return Arrays.copyOf(out, n);
+    }
+
+    // 待索引的一条消息: 只保留分词用到的字段，消息体最多 MAX_BODY_SCAN 字节
+    private static final class Pending {
+        final int seq;
+        final String tag;
+        final String keys;
+        final String msgId;
+        final String offsetMsgId;
+        final byte[] bodyHead;
+
+        Pending(int seq, MessageExt msg) {
+            this.seq = seq;
+            this.tag = msg.getTags();
+            this.keys = msg.getKeys();
+            this.msgId = msg.getMsgId();
+            this.offsetMsgId = msg instanceof MessageClientExt ? ((MessageClientExt) msg).getOffsetMsgId() : null;
+            byte[] body = msg.getBody();
+            this.bodyHead = body == null || body.length <= MAX_BODY_SCAN ? body : Arrays.copyOf(body, MAX_BODY_SCAN);
+        }
+    }
+
+    // 有序的序号数组，start 之前的部分已被淘汰
+    private static final class Postings {
+        int[] seqs = new int[4];
+        int start;
+        int size;
+
+        void add(int seq) {
+            if (size == seqs.length) {
+                // 扩容时顺便丢掉已淘汰的前缀
+                int live = size - start;
+                int[] bigger = new int[Math.max(4, live * 2)];
+                System.arraycopy(seqs, start, bigger, 0, live);
+                seqs = bigger;
+                size = live;
+                start = 0;
+            }
+            seqs[size++] = seq;
+        }
+
+        void trimBelow(long floor) {
+            start = lowerBound(floor, start);
+            if (start > 0 && size - start < seqs.length / 4) {
+                seqs = Arrays.copyOfRange(seqs, start, Math.max(start + 4, size));
+                size -= start;
+                start = 0;
+            }
+        }
+
+        // 从 from 开始第一个 >= v 的位置 (指数查找 + 二分)
+        int lowerBound(long v, int from) {
+            int lo = from, step = 1;
+            int hi = from;
+            while (hi < size && seqs[hi] < v) {
+                lo = hi + 1;
+                hi += step;
+                step <<= 1;
+            }
+            hi = Math.min(hi, size);
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (seqs[mid] < v) lo = mid + 1;
+                else hi = mid;
+            }
+            return lo;
+        }
+    }
+}
@@ -1,45 +1,240 @@
 package org.tzh.rocketmqgui;
 
-import javafx.beans.property.SimpleStringProperty;
-
-public class MessageModel {
-    private final SimpleStringProperty msgId;
-    private final SimpleStringProperty topic;
-    private final SimpleStringProperty tag;
-    private final SimpleStringProperty time;
-    private final SimpleStringProperty body;
+import org.apache.rocketmq.common.message.MessageDecoder;
+import org.apache.rocketmq.common.message.MessageExt;
+
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 表格中的一行消息 (不可变)。
+ * 只保存原始 body 字节和基本类型字段，msgId / 时间 / body 预览这些字符串在单元格真正渲染时才解码，
+ * 解码结果放在一个小的 LRU 缓存里 (只覆盖可见行)，不常驻在每一行上。
+ * CaptureStore 读出的行只带 body 开头的预览字节，完整 body 按 seq 从 CaptureStore.readBody 读取。
+ */
+public final class MessageModel {
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("HH:mm:ss").withZone(ZoneId.systemDefault());
+    static final int PREVIEW_BYTES = 1024;
+    private static final int PREVIEW_CHARS = 256;
+    private static final int DECODE_CACHE_SIZE = 512;
+    // key 是行的 cacheKey，不引用行对象本身，缓存不会让已经滚出视图的行 (和它的 body) 留在堆上
+    private static final Map<Long, Decoded> DECODE_CACHE = new LinkedHashMap<Long, Decoded>(DECODE_CACHE_SIZE, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Decoded> eldest) {
+            return size() > DECODE_CACHE_SIZE;
+        }
+    };
+    // 不在 CaptureStore 里的行 (发送记录、搜索结果) 用负数做 cacheKey，与 seq 不冲突
+    private static final AtomicLong DETACHED_KEYS = new AtomicLong();
+
+    // 已知的 msgId (如发送结果里的 offsetMsgId)；为 null 时按 storeHost + commitLogOffset 计算
+    private final String msgId;
+    private final String topic;
+    private final String tag;
+    // 完整 body，或 CaptureStore 行的开头预览 (此时 bodyLength 更大)
+    private final byte[] body;
+    private final int bodyLength;
+    // 消息原本的 body 长度；大于 bodyLength 时 body 在 CaptureStore 里被截断了
+    private final int originalBodyLength;
+    // CaptureStore 的序号，不在 store 里的行为 -1
+    private final long seq;
+    private final long cacheKey;
+    private final byte[] storeHost;
+    private final long commitLogOffset;
+    private final long storeTimestamp;
+    private final long queueOffset;
+    private final int queueId;
     // [新增] 记录本地接收时间戳，用于高亮判断
     private final long localReceivedTime;
-    public MessageModel(String msgId, String topic, String tag, String time, String body) {
-        this.msgId = new SimpleStringProperty(msgId);
-        this.topic = new SimpleStringProperty(topic);
-        this.tag = new SimpleStringProperty(tag);
-        this.time = new SimpleStringProperty(time);
-        this.body = new SimpleStringProperty(body);
-        this.localReceivedTime = System.currentTimeMillis();
+
+    public MessageModel(String msgId, String topic, String tag, byte[] body, byte[] storeHost, long commitLogOffset,
+                        long storeTimestamp, int queueId, long queueOffset, long localReceivedTime) {
+        this(-1L, msgId, topic, tag, body, body == null ? 0 : body.length, body == null ? 0 : body.length, storeHost,
+                commitLogOffset, storeTimestamp, queueId, queueOffset, localReceivedTime);
+    }
+
+    /**
+     * CaptureStore 读出的行
+     *
+     * @param bodyPreview        body 的开头部分
+     * @param bodyLength         保存下来的 body 长度
+     * @param originalBodyLength 消息原本的 body 长度
+     */
+    MessageModel(long seq, String msgId, String topic, String tag, byte[] bodyPreview, int bodyLength,
+                 int originalBodyLength, byte[] storeHost, long commitLogOffset, long storeTimestamp, int queueId,
+                 long queueOffset, long localReceivedTime) {
+        this.seq = seq;
+        this.cacheKey = seq >= 0 ? seq : -DETACHED_KEYS.incrementAndGet();
+        this.msgId = msgId;
+        this.topic = topic;
+        this.tag = tag;
+        this.body = bodyPreview == null ? new byte[0] : bodyPreview;
+        this.bodyLength = Math.max(bodyLength, this.body.length);
+        this.originalBodyLength = Math.max(originalBodyLength, this.bodyLength);
+        this.storeHost = storeHost;
+        this.commitLogOffset = commitLogOffset;
+        this.storeTimestamp = storeTimestamp;
+        this.queueId = queueId;
+        this.queueOffset = queueOffset;
+        this.localReceivedTime = localReceivedTime;
+    }
+
+    /**
+     * 直接引用 MessageExt 的字段，不做任何解码
+     */
+    public static MessageModel from(MessageExt msg, long localReceivedTime) {
+        byte[] host = hostBytes(msg.getStoreHost());
+        return new MessageModel(host == null ? msg.getMsgId() : null, msg.getTopic(), msg.getTags(), msg.getBody(),
+                host, msg.getCommitLogOffset(), msg.getStoreTimestamp(), msg.getQueueId(), msg.getQueueOffset(),
+                localReceivedTime);
+    }
+
+    // 生产者发送成功后的记录
+    public static MessageModel sent(String msgId, String topic, String tag, byte[] body) {
+        return new MessageModel(msgId, topic, tag, body, null, -1L, 0L, -1, -1L, System.currentTimeMillis());
+    }
+
+    /**
+     * InetSocketAddress -> ip 字节 + 2 字节端口，与 MessageDecoder.createMessageId 的布局一致
+     */
+    public static byte[] hostBytes(SocketAddress address) {
+        if (!(address instanceof InetSocketAddress)) return null;
+        InetSocketAddress inet = (InetSocketAddress) address;
+        if (inet.getAddress() == null) return null;
+        byte[] ip = inet.getAddress().getAddress();
+        byte[] bytes = new byte[ip.length + 4];
+        System.arraycopy(ip, 0, bytes, 0, ip.length);
+        ByteBuffer.wrap(bytes, ip.length, 4).putInt(inet.getPort());
+        return bytes;
+    }
+
+    public static String formatTime(long millis) {
+        return TIME_FORMAT.format(Instant.ofEpochMilli(millis));
     }
 
     public String getMsgId() {
-        return msgId.get();
+        return decoded().msgId;
     }
 
     public String getTopic() {
-        return topic.get();
+        return topic;
     }
 
     public String getTag() {
-        return tag.get();
+        return tag;
     }
 
     public String getTime() {
-        return time.get();
+        return decoded().time;
+    }
+
+    // 单元格里显示的截断预览
+    public String getBodyPreview() {
+        return decoded().bodyPreview;
     }
 
+    // 行上持有的 body，只在复制等操作时调用，不缓存；isBodyComplete 为 false 时只是开头部分
     public String getBody() {
-        return body.get();
+        return new String(body, StandardCharsets.UTF_8);
+    }
+
+    public byte[] getBodyBytes() {
+        return body;
+    }
+
+    public int getBodyLength() {
+        return bodyLength;
+    }
+
+    public boolean isBodyComplete() {
+        return body.length >= bodyLength;
+    }
+
+    public boolean isBodyTruncated() {
+        return originalBodyLength > bodyLength;
+    }
+
+    // body 被截断时附在预览和复制内容后面的说明，未截断时为空串
+    public String getTruncationNote() {
+        return isBodyTruncated() ? " [truncated: " + bodyLength + " of " + originalBodyLength + " bytes captured]" : "";
+    }
+
+    public long getSeq() {
+        return seq;
+    }
+
+    public byte[] getStoreHost() {
+        return storeHost;
+    }
+
+    public long getCommitLogOffset() {
+        return commitLogOffset;
+    }
+
+    public long getStoreTimestamp() {
+        return storeTimestamp;
+    }
+
+    public int getQueueId() {
+        return queueId;
+    }
+
+    public long getQueueOffset() {
+        return queueOffset;
     }
 
     public long getLocalReceivedTime() {
         return localReceivedTime;
     }
-}
\ No newline at end of file
+
+    private Decoded decoded() {
+        synchronized (DECODE_CACHE) {
+            Decoded d = DECODE_CACHE.get(cacheKey);
+            if (d == null) {
+                d = new Decoded(decodeMsgId(), formatTime(localReceivedTime), decodePreview());
+                DECODE_CACHE.put(cacheKey, d);
+            }
+            return d;
+        }
+    }
+
+    private String decodeMsgId() {
+        if (msgId != null || storeHost == null) return msgId;
+        try {
+            // 利用 StoreHost (Broker地址) 和 CommitLogOffset (物理偏移量) 计算 ID
+            ByteBuffer addr = ByteBuffer.wrap(storeHost);
+            return MessageDecoder.createMessageId(ByteBuffer.allocate(storeHost.length + 8), addr, commitLogOffset);
+        } catch (Exception e) {
+            return "";
+        }
+    }
+
+    private String decodePreview() {
+        int len = Math.min(body.length, PREVIEW_BYTES);
+        String s = new String(body, 0, len, StandardCharsets.UTF_8);
+        if (s.length() > PREVIEW_CHARS) {
+            return s.substring(0, PREVIEW_CHARS) + "…" + getTruncationNote();
+        }
+        return (len < bodyLength ? s + "…" : s) + getTruncationNote();
+    }
+
+    private static final class Decoded {
+        final String msgId;
+        final String time;
+        final String bodyPreview;
+
+        Decoded(String msgId, String time, String bodyPreview) {
+            this.msgId = msgId;
+            this.time = time;
+            this.bodyPreview = bodyPreview;
+        }
+    }
+}
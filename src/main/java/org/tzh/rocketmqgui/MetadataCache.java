@@ -0,0 +1,106 @@
+package org.tzh.rocketmqgui;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 集群元数据 (集群信息、Topic 列表、订阅组) 的内存缓存。
+ * - 未过期直接返回内存中的值
+ * - 过期但不超过 4 倍 TTL: 先返回旧值，后台线程刷新 (stale-while-revalidate)
+ * - 更旧或从未加载: 同步加载；同一个 key 同时只有一个加载在进行
+ * 每个 RocketMQManager 一份，即每个集群一份。
+ */
+public class MetadataCache {
+
+    @FunctionalInterface
+    public interface Loader<V> {
+        V load() throws Exception;
+    }
+
+    private static final int STALE_FACTOR = 4;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final ExecutorService refresher = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "metadata-refresh");
+        t.setDaemon(true);
+        return t;
+    });
+
+    @SuppressWarnings("unchecked")
+    public <V> V get(String key, long ttlMs, Loader<V> loader) throws Exception {
+        Entry e = entries.computeIfAbsent(key, k -> new Entry());
+        synchronized (e) {
+            long age = System.currentTimeMillis() - e.loadedAt;
+            if (e.value != null && age < ttlMs) {
+                return (V) e.value;
+            }
+            if (e.value != null && age < ttlMs * STALE_FACTOR) {
+                refreshAsync(key, e, loader);
+                return (V) e.value;
+            }
+            V v = loader.load();
+            e.set(v);
+            return v;
+        }
+    }
+
+    /**
+     * 忽略 TTL 强制重新加载 (如用户点击 Refresh)
+     */
+    public <V> V reload(String key, Loader<V> loader) throws Exception {
+        Entry e = entries.computeIfAbsent(key, k -> new Entry());
+        synchronized (e) {
+            V v = loader.load();
+            e.set(v);
+            return v;
+        }
+    }
+
+    public void invalidate(String key) {
+        Entry e = entries.get(key);
+        if (e != null) {
+            synchronized (e) {
+                e.loadedAt = 0;
+            }
+        }
+    }
+
+    public void shutdown() {
+        refresher.shutdownNow();
+        entries.clear();
+    }
+
+    private <V> void refreshAsync(String key, Entry e, Loader<V> loader) {
+        if (e.refreshing) return;
+        e.refreshing = true;
+        try {
+            refresher.submit(() -> {
+                try {
+                    V v = loader.load();
+                    synchronized (e) {
+                        e.set(v);
+                    }
+                } catch (Exception ignored) {
+                    // 刷新失败继续用旧值，下次访问再试
+                } finally {
+                    e.refreshing = false;
+                }
+            });
+        } catch (RuntimeException rejected) {
+            e.refreshing = false;
+        }
+    }
+
+    private static final class Entry {
+        volatile Object value;
+        volatile long loadedAt;
+        volatile boolean refreshing;
+
+        void set(Object v) {
+            value = v;
+            loadedAt = System.currentTimeMillis();
+        }
+    }
+}
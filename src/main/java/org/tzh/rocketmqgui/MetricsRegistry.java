@@ -0,0 +1,247 @@
+package org.tzh.rocketmqgui;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanOperationInfo;
+import javax.management.MBeanParameterInfo;
+import javax.management.ObjectName;
+import javax.management.ReflectionException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * 工具自身的运行指标，进程内全局一份，所有窗口共用。
+ * - counter: LongAdder，多线程自增不争用
+ * - timer: LatencyHistogram (微秒)，记录一次只是数组下标计算加一次原子自增
+ * - gauge: 读取时才求值；同名的可由多个窗口各注册一个，取值为总和
+ * 同时注册为 JMX MBean (org.tzh.rocketmqgui:type=Metrics)，属性名与 Diagnostics 页中的名称一致。
+ */
+public final class MetricsRegistry implements DynamicMBean {
+    private static final MetricsRegistry INSTANCE = new MetricsRegistry();
+    private static final String OBJECT_NAME = "org.tzh.rocketmqgui:type=Metrics";
+
+    private final Map<String, LongAdder> counters = new ConcurrentHashMap<>();
+    private final Map<String, LatencyHistogram> timers = new ConcurrentHashMap<>();
+    private final Map<String, List<LongSupplier>> gauges = new ConcurrentHashMap<>();
+
+    public enum Kind { COUNTER, GAUGE, TIMER }
+
+    /**
+     * 某一时刻的一个指标；TIMER 的 value 为次数，百分位单位为微秒
+     */
+    public static final class Reading {
+        final String name;
+        final Kind kind;
+        final long value;
+        final LatencyHistogram.Snapshot histogram;
+
+        Reading(String name, Kind kind, long value, LatencyHistogram.Snapshot histogram) {
+            this.name = name;
+            this.kind = kind;
+            this.value = value;
+            this.histogram = histogram;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public Kind getKind() {
+            return kind;
+        }
+
+        public long getValue() {
+            return value;
+        }
+
+        /**
+         * 只有 TIMER 有，其余为 null
+         */
+        public LatencyHistogram.Snapshot getHistogram() {
+            return histogram;
+        }
+    }
+
+    @FunctionalInterface
+    public interface TimedCall<T> {
+        T call() throws Exception;
+    }
+
+    private MetricsRegistry() {
+    }
+
+    public static MetricsRegistry get() {
+        return INSTANCE;
+    }
+
+    public LongAdder counter(String name) {
+        LongAdder c = counters.get(name);
+        return c != null ? c : counters.computeIfAbsent(name, k -> new LongAdder());
+    }
+
+    public LatencyHistogram timer(String name) {
+        LatencyHistogram h = timers.get(name);
+        return h != null ? h : timers.computeIfAbsent(name, k -> new LatencyHistogram());
+    }
+
+    public void gauge(String name, LongSupplier supplier) {
+        gauges.computeIfAbsent(name, k -> new CopyOnWriteArrayList<>()).add(supplier);
+    }
+
+    public void removeGauge(String name, LongSupplier supplier) {
+        List<LongSupplier> list = gauges.get(name);
+        if (list != null) list.remove(supplier);
+    }
+
+    /**
+     * 计时执行；抛出异常时额外计入 name + ".errors"
+     */
+    public <T> T time(String name, TimedCall<T> call) throws Exception {
+        long start = System.nanoTime();
+        try {
+            return call.call();
+        } catch (Exception e) {
+            counter(name + ".errors").increment();
+            throw e;
+        } finally {
+            timer(name).recordNanos(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * 包装给 FanOut 等只接受 Callable 的地方
+     */
+    public <T> Callable<T> timed(String name, TimedCall<T> call) {
+        return () -> time(name, call);
+    }
+
+    /**
+     * 清零计数器和直方图 (gauge 是实时值，不受影响)
+     */
+    public void reset() {
+        for (LongAdder c : counters.values()) c.reset();
+        for (LatencyHistogram h : timers.values()) h.reset();
+    }
+
+    /**
+     * 全部指标按名称排序的快照
+     */
+    public List<Reading> read() {
+        Map<String, Reading> sorted = new TreeMap<>();
+        for (Map.Entry<String, LongAdder> e : counters.entrySet()) {
+            sorted.put(e.getKey(), new Reading(e.getKey(), Kind.COUNTER, e.getValue().sum(), null));
+        }
+        for (Map.Entry<String, List<LongSupplier>> e : gauges.entrySet()) {
+            if (e.getValue().isEmpty()) continue;
+            sorted.put(e.getKey(), new Reading(e.getKey(), Kind.GAUGE, gaugeValue(e.getValue()), null));
+        }
+        for (Map.Entry<String, LatencyHistogram> e : timers.entrySet()) {
+            LatencyHistogram.Snapshot s = e.getValue().snapshot();
+            sorted.put(e.getKey(), new Reading(e.getKey(), Kind.TIMER, s.count(), s));
+        }
+        return new ArrayList<>(sorted.values());
+    }
+
+    private static long gaugeValue(List<LongSupplier> suppliers) {
+        long sum = 0;
+        for (LongSupplier s : suppliers) {
+            try {
+                sum += s.getAsLong();
+            } catch (RuntimeException ignored) {
+                // 窗口关闭过程中的 gauge 可能已经失效
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * 注册到平台 MBeanServer，重复调用无副作用
+     */
+    public synchronized void registerJmx() {
+        try {
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (!ManagementFactory.getPlatformMBeanServer().isRegistered(name)) {
+                ManagementFactory.getPlatformMBeanServer().registerMBean(this, name);
+            }
+        } catch (Exception e) {
+            // JMX 不可用不影响使用
+            e.printStackTrace();
+        }
+    }
+
+    // --- DynamicMBean: TIMER 展开为 .count / .p50Micros / .p99Micros / .maxMicros ---
+
+    @Override
+    public Object getAttribute(String attribute) {
+        return flatten().get(attribute);
+    }
+
+    @Override
+    public AttributeList getAttributes(String[] attributes) {
+        Map<String, Object> all = flatten();
+        AttributeList list = new AttributeList();
+        for (String a : attributes) {
+            if (all.containsKey(a)) list.add(new Attribute(a, all.get(a)));
+        }
+        return list;
+    }
+
+    @Override
+    public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+        // 指标全部只读，没有可写属性
+        throw new AttributeNotFoundException("Metrics are read-only: " + attribute.getName());
+    }
+
+    @Override
+    public AttributeList setAttributes(AttributeList attributes) {
+        return new AttributeList();
+    }
+
+    @Override
+    public Object invoke(String actionName, Object[] params, String[] signature) throws ReflectionException {
+        if ("reset".equals(actionName)) {
+            reset();
+            return null;
+        }
+        throw new ReflectionException(new NoSuchMethodException(actionName), "Unknown operation: " + actionName);
+    }
+
+    @Override
+    public MBeanInfo getMBeanInfo() {
+        List<MBeanAttributeInfo> attrs = new ArrayList<>();
+        for (String name : flatten().keySet()) {
+            attrs.add(new MBeanAttributeInfo(name, "long", name, true, false, false));
+        }
+        MBeanOperationInfo reset = new MBeanOperationInfo("reset", "Zero all counters and timers",
+                new MBeanParameterInfo[0], "void", MBeanOperationInfo.ACTION);
+        return new MBeanInfo(getClass().getName(), "RocketMQ GUI internal metrics",
+                attrs.toArray(new MBeanAttributeInfo[0]), null, new MBeanOperationInfo[]{reset}, null);
+    }
+
+    private Map<String, Object> flatten() {
+        Map<String, Object> out = new TreeMap<>();
+        for (Reading r : read()) {
+            if (r.kind != Kind.TIMER) {
+                out.put(r.name, r.value);
+                continue;
+            }
+            out.put(r.name + ".count", r.value);
+            out.put(r.name + ".p50Micros", r.histogram.percentile(0.5));
+            out.put(r.name + ".p99Micros", r.histogram.percentile(0.99));
+            out.put(r.name + ".maxMicros", r.histogram.max());
+        }
+        return out;
+    }
+}
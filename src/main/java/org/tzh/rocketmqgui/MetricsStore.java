@@ -0,0 +1,373 @@
+package org.tzh.rocketmqgui;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * 每个集群一份的本地时序存储，用来在重启后恢复 Dashboard / Lag 的历史曲线。
+ * 目录 ~/.rocketmq_fx_metrics/&lt;namesrv&gt;/ 下是按起始时间命名的段文件，只追加、内存映射写入。
+ * 段内的帧: [byte 类型][varint 长度][内容]
+ * - DEFINE: [varint 序列编号][utf8 名称]，序列在每个段内第一次出现时写一次
+ * - SAMPLE: [varlong 与上一帧的时间差][varint 条数]{[varint 序列编号][zigzag varlong 与该序列上一个值的差]}
+ * 差值状态在每个段开头重置，所以每个段可以单独读取。每次启动写新的段，关闭时截掉预分配的空余部分。
+ * record 只入队，编码与写盘在后台线程批量进行。
+ */
+public class MetricsStore implements Closeable {
+    private static final File ROOT = new File(System.getProperty("user.home"), ".rocketmq_fx_metrics");
+    private static final String SUFFIX = ".tsdb";
+    private static final int SEGMENT_BYTES = 8 * 1024 * 1024;
+    private static final byte DEFINE = 1;
+    private static final byte SAMPLE = 2;
+    private static final int QUEUE_CAPACITY = 1024;
+
+    private final File dir;
+    private final long retentionMillis;
+    private final BlockingQueue<Sample> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final Thread writer;
+    private volatile boolean closed;
+    private volatile IOException writeError;
+    private volatile Consumer<IOException> onWriteError = e -> { };
+    // 以下只在写线程中访问
+    private volatile File segmentFile;
+    private MappedByteBuffer segment;
+    private final Map<String, Integer> ids = new HashMap<>();
+    private final Map<Integer, Long> lastValues = new HashMap<>();
+    private long lastTime;
+    private ByteBuffer scratch = ByteBuffer.allocate(64 * 1024);
+
+    /**
+     * 一次采样: 同一时刻若干序列的值
+     */
+    public static final class Sample {
+        final long time;
+        final Map<String, Long> values;
+
+        public Sample(long time, Map<String, Long> values) {
+            this.time = time;
+            this.values = values;
+        }
+    }
+
+    /**
+     * 读回的一条序列，按时间升序
+     */
+    public static final class Series {
+        public long[] times = new long[64];
+        public long[] values = new long[64];
+        public int size;
+
+        void add(long t, long v) {
+            if (size == times.length) {
+                times = Arrays.copyOf(times, size * 2);
+                values = Arrays.copyOf(values, size * 2);
+            }
+            times[size] = t;
+            values[size] = v;
+            size++;
+        }
+    }
+
+    public MetricsStore(String namesrvAddr, int retentionDays) throws IOException {
+        this.dir = new File(ROOT, namesrvAddr.replaceAll("[^A-Za-z0-9._-]", "_"));
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Cannot create metrics dir " + dir);
+        }
+        this.retentionMillis = TimeUnit.DAYS.toMillis(Math.max(1, retentionDays));
+        deleteExpired();
+        writer = new Thread(this::runWriter, "metrics-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * 写盘失败 (磁盘满、映射失败等) 时在写线程上回调一次，之后 store 视为已关闭，record 一律返回 false
+     */
+    public void setOnWriteError(Consumer<IOException> onWriteError) {
+        this.onWriteError = onWriteError == null ? e -> { } : onWriteError;
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * 写线程因错误退出时的异常，正常时为 null
+     */
+    public IOException getWriteError() {
+        return writeError;
+    }
+
+    /**
+     * 非阻塞；写线程跟不上时丢弃该次采样
+     */
+    public boolean record(long time, Map<String, Long> values) {
+        if (closed || values.isEmpty()) return false;
+        return queue.offer(new Sample(time, values));
+    }
+
+    /**
+     * 读出 fromMillis 之后的所有历史 (不含本次运行写入的段)
+     */
+    public Map<String, Series> read(long fromMillis) throws IOException {
+        Map<String, Series> out = new LinkedHashMap<>();
+        List<File> files = listSegments();
+        for (int i = 0; i < files.size(); i++) {
+            File f = files.get(i);
+            // 下一个段的起点早于 from，说明这个段整体都更旧
+            if (i + 1 < files.size() && startOf(files.get(i + 1)) <= fromMillis) continue;
+            if (f.equals(segmentFile)) continue;
+            readSegment(f, fromMillis, out);
+        }
+        return out;
+    }
+
+    @Override
+    public void close() {
+        if (closed) return;
+        closed = true;
+        writer.interrupt();
+        try {
+            writer.join(2000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void runWriter() {
+        List<Sample> batch = new ArrayList<>();
+        try {
+            while (!closed || !queue.isEmpty()) {
+                Sample first;
+                try {
+                    first = closed ? queue.poll() : queue.poll(1, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    // close() 之后把队列里剩下的写完
+                    continue;
+                }
+                if (first == null) continue;
+                batch.add(first);
+                queue.drainTo(batch);
+                for (Sample s : batch) write(s);
+                batch.clear();
+            }
+        } catch (IOException e) {
+            // 写线程不再运行: 标记关闭，不让调用方继续往队列里塞采样
+            writeError = e;
+            closed = true;
+            queue.clear();
+            onWriteError.accept(e);
+        } finally {
+            finishSegment();
+        }
+    }
+
+    private void write(Sample s) throws IOException {
+        if (segment == null) openSegment(s.time);
+        for (String name : s.values.keySet()) {
+            if (!ids.containsKey(name) && !writeDefine(name)) {
+                // 段已满，换新段后重新定义
+                rollSegment(s.time);
+                write(s);
+                return;
+            }
+        }
+        scratch.clear();
+        putVarLong(scratch, Math.max(0, s.time - lastTime));
+        putVarLong(scratch, s.values.size());
+        for (Map.Entry<String, Long> e : s.values.entrySet()) {
+            ensureScratch(20);
+            int id = ids.get(e.getKey());
+            Long prev = lastValues.get(id);
+            long v = e.getValue();
+            putVarLong(scratch, id);
+            putVarLong(scratch, zigzag(v - (prev == null ? 0 : prev)));
+        }
+        scratch.flip();
+        if (!putFrame(SAMPLE, scratch)) {
+            rollSegment(s.time);
+            write(s);
+            return;
+        }
+        lastTime = s.time;
+        for (Map.Entry<String, Long> e : s.values.entrySet()) lastValues.put(ids.get(e.getKey()), e.getValue());
+    }
+
+    private boolean writeDefine(String name) {
+        int id = ids.size();
+        byte[] b = name.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer payload = ByteBuffer.allocate(5 + b.length);
+        putVarLong(payload, id);
+        payload.put(b);
+        payload.flip();
+        if (!putFrame(DEFINE, payload)) return false;
+        ids.put(name, id);
+        return true;
+    }
+
+    // 整帧写入，空间不够时返回 false，不写任何字节
+    private boolean putFrame(byte type, ByteBuffer payload) {
+        int len = payload.remaining();
+        if (segment.remaining() < 1 + 5 + len + 1) return false;
+        segment.put(type);
+        putVarLong(segment, len);
+        segment.put(payload);
+        return true;
+    }
+
+    private void ensureScratch(int extra) {
+        if (scratch.remaining() < extra) {
+            ByteBuffer bigger = ByteBuffer.allocate(scratch.capacity() * 2);
+            scratch.flip();
+            bigger.put(scratch);
+            scratch = bigger;
+        }
+    }
+
+    private void openSegment(long time) throws IOException {
+        segmentFile = new File(dir, time + SUFFIX);
+        try (RandomAccessFile raf = new RandomAccessFile(segmentFile, "rw")) {
+            segment = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, SEGMENT_BYTES);
+        }
+        ids.clear();
+        lastValues.clear();
+        lastTime = 0;
+    }
+
+    private void rollSegment(long time) throws IOException {
+        finishSegment();
+        openSegment(Math.max(time, startOf(segmentFile) + 1));
+    }
+
+    // 释放映射并把文件截到实际写入的长度
+    private void finishSegment() {
+        if (segment == null) return;
+        int used = segment.position();
+        segment.force();
+        CaptureStore.unmap(segment);
+        segment = null;
+        try (RandomAccessFile raf = new RandomAccessFile(segmentFile, "rw")) {
+            raf.setLength(used);
+        } catch (IOException ignored) {
+            // 截断失败只是多占一些磁盘，读取时遇到 0 会停止
+        }
+    }
+
+    private static void readSegment(File f, long fromMillis, Map<String, Series> out) throws IOException {
+        ByteBuffer buf;
+        try (RandomAccessFile raf = new RandomAccessFile(f, "r")) {
+            int len = (int) Math.min(raf.length(), Integer.MAX_VALUE);
+            buf = ByteBuffer.allocate(len);
+            raf.getChannel().read(buf, 0);
+            buf.flip();
+        }
+        // 段内的序列编号从 0 连续分配，用数组代替 Map 免去装箱
+        Series[] byId = new Series[64];
+        long[] last = new long[64];
+        long time = 0;
+        try {
+            while (buf.hasRemaining()) {
+                byte type = buf.get();
+                if (type != DEFINE && type != SAMPLE) break; // 预分配的空余部分或异常退出留下的半帧
+                int len = (int) getVarLong(buf);
+                int end = buf.position() + len;
+                if (end > buf.limit()) break;
+                if (type == DEFINE) {
+                    int id = (int) getVarLong(buf);
+                    String name = new String(buf.array(), buf.position(), end - buf.position(), StandardCharsets.UTF_8);
+                    if (id >= byId.length) {
+                        byId = Arrays.copyOf(byId, Math.max(id + 1, byId.length * 2));
+                        last = Arrays.copyOf(last, byId.length);
+                    }
+                    byId[id] = out.computeIfAbsent(name, k -> new Series());
+                } else {
+                    time += getVarLong(buf);
+                    long n = getVarLong(buf);
+                    boolean keep = time >= fromMillis;
+                    for (long i = 0; i < n; i++) {
+                        int id = (int) getVarLong(buf);
+                        if (id >= byId.length) throw new IllegalArgumentException("Undefined series " + id);
+                        long v = last[id] + unzigzag(getVarLong(buf));
+                        last[id] = v;
+                        Series s = byId[id];
+                        if (keep && s != null) s.add(time, v);
+                    }
+                }
+                buf.position(end);
+            }
+        } catch (BufferUnderflowException | IllegalArgumentException ignored) {
+            // 截断的尾部，前面已读到的数据仍然有效
+        }
+    }
+
+    private List<File> listSegments() {
+        File[] files = dir.listFiles((d, name) -> name.endsWith(SUFFIX));
+        List<File> list = new ArrayList<>();
+        if (files == null) return list;
+        for (File f : files) {
+            if (startOf(f) >= 0) list.add(f);
+        }
+        list.sort((a, b) -> Long.compare(startOf(a), startOf(b)));
+        return list;
+    }
+
+    private void deleteExpired() {
+        long cutoff = System.currentTimeMillis() - retentionMillis;
+        List<File> files = listSegments();
+        // 以下一个段的起点作为本段的结束时间，最新的段永远保留
+        for (int i = 0; i + 1 < files.size(); i++) {
+            if (startOf(files.get(i + 1)) < cutoff) files.get(i).delete();
+        }
+    }
+
+    private static long startOf(File f) {
+        String name = f.getName();
+        try {
+            return Long.parseLong(name.substring(0, name.length() - SUFFIX.length()));
+        } catch (RuntimeException e) {
+            return -1;
+        }
+    }
+
+    private static long zigzag(long v) {
+        return (v << 1) ^ (v >> 63);
+    }
+
+    private static long unzigzag(long v) {
+        return (v >>> 1) ^ -(v & 1);
+    }
+
+    private static void putVarLong(ByteBuffer buf, long v) {
+        while ((v & ~0x7FL) != 0) {
+            buf.put((byte) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        buf.put((byte) v);
+    }
+
+    private static long getVarLong(ByteBuffer buf) {
+        long v = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = buf.get();
+            v |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return v;
+        }
+        throw new IllegalArgumentException("Malformed varint");
+    }
+}
@@ -0,0 +1,408 @@
+package org.tzh.rocketmqgui;
+
+import org.apache.rocketmq.client.exception.MQClientException;
+import org.apache.rocketmq.common.MixAll;
+import org.apache.rocketmq.common.admin.ConsumeStats;
+import org.apache.rocketmq.common.admin.OffsetWrapper;
+import org.apache.rocketmq.common.admin.RollbackStats;
+import org.apache.rocketmq.common.admin.TopicOffset;
+import org.apache.rocketmq.common.admin.TopicStatsTable;
+import org.apache.rocketmq.common.message.MessageQueue;
+import org.apache.rocketmq.common.protocol.ResponseCode;
+import org.apache.rocketmq.tools.admin.DefaultMQAdminExt;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * 批量按时间重置消费位点。
+ * - preview: 并行查询每个 (group, topic) 的当前消费位点，并对每个队列按时间 searchOffset 得到目标位点，不做任何修改
+ * - apply: 并发对每个目标调用 resetOffsetByTimestamp (在线的消费者由 Broker 通知)；
+ * 消费组不在线时和 mqadmin resetOffsetByTime 一样退回到直接修改 Broker 上的位点
+ * 所有调用都在独立的扇出池里执行，单个慢 Broker 只影响它自己的队列。
+ */
+public class OffsetReset {
+    private static final long PREVIEW_CALL_TIMEOUT_MS = 5000;
+    private static final long APPLY_TIMEOUT_MS = 30_000;
+    private static final String TIME_FORMAT = "yyyy-MM-dd HH:mm:ss";
+
+    /**
+     * 一个重置目标，topic 为空表示该组订阅的所有 Topic
+     */
+    public static final class Target {
+        final String group;
+        final String topic;
+        final long timestamp;
+
+        public Target(String group, String topic, long timestamp) {
+            this.group = group;
+            this.topic = topic == null ? "" : topic;
+            this.timestamp = timestamp;
+        }
+
+        public String getGroup() {
+            return group;
+        }
+
+        public String getTopic() {
+            return topic;
+        }
+
+        public long getTimestamp() {
+            return timestamp;
+        }
+    }
+
+    /**
+     * 单个队列的变化；current 为 -1 表示该组在这个队列上还没有位点
+     */
+    public static final class QueueChange {
+        final MessageQueue queue;
+        final long current;
+        final long target;
+        final long maxOffset;
+
+        QueueChange(MessageQueue queue, long current, long target, long maxOffset) {
+            this.queue = queue;
+            this.current = current;
+            this.target = target;
+            this.maxOffset = maxOffset;
+        }
+
+        public MessageQueue getQueue() {
+            return queue;
+        }
+
+        public long getCurrent() {
+            return current;
+        }
+
+        public long getTarget() {
+            return target;
+        }
+
+        public long getMaxOffset() {
+            return maxOffset;
+        }
+
+        /**
+         * 正数为需要重新消费的条数，负数为跳过的条数
+         */
+        public long getDelta() {
+            return current < 0 ? 0 : current - target;
+        }
+    }
+
+    /**
+     * 一个目标的预览结果；error 非空时 queues 为空，不参与 apply
+     */
+    public static final class Plan {
+        final Target target;
+        final List<QueueChange> queues;
+        final String error;
+        final String note;
+
+        Plan(Target target, List<QueueChange> queues, String error, String note) {
+            this.target = target;
+            this.queues = queues;
+            this.error = error;
+            this.note = note;
+        }
+
+        public Target getTarget() {
+            return target;
+        }
+
+        public List<QueueChange> getQueues() {
+            return queues;
+        }
+
+        public String getError() {
+            return error;
+        }
+
+        public String getNote() {
+            return note;
+        }
+
+        public long getReconsume() {
+            long n = 0;
+            for (QueueChange q : queues) n += Math.max(0, q.getDelta());
+            return n;
+        }
+
+        public long getSkipped() {
+            long n = 0;
+            for (QueueChange q : queues) n += Math.max(0, -q.getDelta());
+            return n;
+        }
+    }
+
+    /**
+     * 一个目标的执行结果
+     */
+    public static final class Outcome {
+        final Plan plan;
+        final boolean ok;
+        final int queues;
+        final long millis;
+        final String message;
+
+        Outcome(Plan plan, boolean ok, int queues, long millis, String message) {
+            this.plan = plan;
+            this.ok = ok;
+            this.queues = queues;
+            this.millis = millis;
+            this.message = message;
+        }
+
+        public Plan getPlan() {
+            return plan;
+        }
+
+        public boolean isOk() {
+            return ok;
+        }
+
+        public int getQueues() {
+            return queues;
+        }
+
+        public long getMillis() {
+            return millis;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+    }
+
+    private final DefaultMQAdminExt admin;
+    private final int parallelism;
+
+    OffsetReset(DefaultMQAdminExt admin, int parallelism) {
+        this.admin = admin;
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    /**
+     * 解析目标列表，每行 group[,topic[,yyyy-MM-dd HH:mm:ss]]，省略时间时使用 defaultTimestamp
+     */
+    public static List<Target> parse(String text, long defaultTimestamp) {
+        List<Target> targets = new ArrayList<>();
+        Set<String> seen = new LinkedHashSet<>();
+        SimpleDateFormat format = new SimpleDateFormat(TIME_FORMAT);
+        format.setLenient(false);
+        String[] lines = text.split("\r?\n");
+        for (int i = 0; i < lines.length; i++) {
+            String line = lines[i].trim();
+            if (line.isEmpty() || line.startsWith("#")) continue;
+            String[] cols = line.split(",", -1);
+            String where = "Line " + (i + 1) + ": ";
+            if (cols.length > 3) throw new IllegalArgumentException(where + "expected group[,topic[,time]]");
+            String group = cols[0].trim();
+            if (group.isEmpty()) throw new IllegalArgumentException(where + "group is required");
+            String topic = cols.length > 1 ? cols[1].trim() : "";
+            long ts = defaultTimestamp;
+            if (cols.length > 2 && !cols[2].trim().isEmpty()) {
+                try {
+                    ts = format.parse(cols[2].trim()).getTime();
+                } catch (ParseException e) {
+                    throw new IllegalArgumentException(where + "time must be " + TIME_FORMAT);
+                }
+            }
+            if (!seen.add(group + "|" + topic)) throw new IllegalArgumentException(where + "duplicate target");
+            targets.add(new Target(group, topic, ts));
+        }
+        return targets;
+    }
+
+    /**
+     * 计算所有目标的预览，阻塞直到完成；每个目标算完后在工作线程上回调 onPlan
+     */
+    List<Plan> preview(List<Target> targets, Consumer<Plan> onPlan) throws InterruptedException {
+        FanOut pool = new FanOut("mq-reset-preview", parallelism);
+        List<CompletableFuture<?>> calls = Collections.synchronizedList(new ArrayList<>());
+        try {
+            List<Plan> plans = new ArrayList<>();
+            List<Target> concrete = expand(pool, targets, plans, onPlan, calls);
+            // 同一个 Topic 只查一次状态
+            Map<String, CompletableFuture<TopicStatsTable>> topicStats = new HashMap<>();
+            List<CompletableFuture<Plan>> futures = new ArrayList<>();
+            for (Target t : concrete) {
+                CompletableFuture<TopicStatsTable> stats = topicStats.computeIfAbsent(t.topic,
+                        topic -> track(calls, pool.submit(() -> admin.examineTopicStats(topic), PREVIEW_CALL_TIMEOUT_MS)));
+                CompletableFuture<ConsumeStats> consumed = track(calls,
+                        pool.submit(() -> admin.examineConsumeStats(t.group, t.topic), PREVIEW_CALL_TIMEOUT_MS));
+                CompletableFuture<Plan> plan = stats
+                        .thenCompose(table -> consumed.handle((c, err) -> buildPlan(pool, calls, t, table, c, err)))
+                        .thenCompose(f -> f)
+                        .exceptionally(err -> new Plan(t, Collections.emptyList(), describe(err), null))
+                        .whenComplete((p, err) -> {
+                            if (p != null && onPlan != null) onPlan.accept(p);
+                        });
+                futures.add(plan);
+            }
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    plans.add(await(futures.get(i)));
+                } catch (ExecutionException cancelled) {
+                    plans.add(new Plan(concrete.get(i), Collections.emptyList(), describe(cancelled), null));
+                }
+            }
+            return plans;
+        } catch (InterruptedException ie) {
+            cancelAll(calls);
+            throw ie;
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    // 没有指定 Topic 的目标展开为该组当前有位点的所有 Topic (不含重试 Topic)
+    private List<Target> expand(FanOut pool, List<Target> targets, List<Plan> failed, Consumer<Plan> onPlan,
+                                List<CompletableFuture<?>> calls) throws InterruptedException {
+        Map<Target, CompletableFuture<ConsumeStats>> lookups = new HashMap<>();
+        for (Target t : targets) {
+            if (t.topic.isEmpty()) {
+                lookups.put(t, track(calls, pool.submit(() -> admin.examineConsumeStats(t.group), PREVIEW_CALL_TIMEOUT_MS)));
+            }
+        }
+        List<Target> concrete = new ArrayList<>();
+        for (Target t : targets) {
+            CompletableFuture<ConsumeStats> lookup = lookups.get(t);
+            if (lookup == null) {
+                concrete.add(t);
+                continue;
+            }
+            try {
+                Set<String> topics = new LinkedHashSet<>();
+                for (MessageQueue mq : await(lookup).getOffsetTable().keySet()) {
+                    if (!mq.getTopic().startsWith(MixAll.RETRY_GROUP_TOPIC_PREFIX)) topics.add(mq.getTopic());
+                }
+                if (topics.isEmpty()) throw new IllegalStateException("Group has no consumed topics");
+                for (String topic : topics) concrete.add(new Target(t.group, topic, t.timestamp));
+            } catch (ExecutionException | RuntimeException e) {
+                Plan p = new Plan(t, Collections.emptyList(), describe(e), null);
+                failed.add(p);
+                if (onPlan != null) onPlan.accept(p);
+            }
+        }
+        return concrete;
+    }
+
+    // 对 Topic 的每个队列并行 searchOffset，全部返回后组装预览
+    private CompletableFuture<Plan> buildPlan(FanOut pool, List<CompletableFuture<?>> calls, Target t,
+                                              TopicStatsTable table, ConsumeStats consumed, Throwable consumeError) {
+        Map<MessageQueue, OffsetWrapper> current = consumed == null
+                ? Collections.emptyMap() : consumed.getOffsetTable();
+        List<MessageQueue> queues = new ArrayList<>(table.getOffsetTable().keySet());
+        Collections.sort(queues);
+        List<CompletableFuture<Long>> searches = new ArrayList<>(queues.size());
+        for (MessageQueue mq : queues) {
+            searches.add(track(calls, pool.submit(() -> admin.searchOffset(mq, t.timestamp), PREVIEW_CALL_TIMEOUT_MS)));
+        }
+        String note = consumeError == null ? null : "No consumer offsets: " + describe(consumeError);
+        return CompletableFuture.allOf(searches.toArray(new CompletableFuture<?>[0])).thenApply(v -> {
+            List<QueueChange> changes = new ArrayList<>(queues.size());
+            for (int i = 0; i < queues.size(); i++) {
+                MessageQueue mq = queues.get(i);
+                OffsetWrapper w = current.get(mq);
+                TopicOffset range = table.getOffsetTable().get(mq);
+                changes.add(new QueueChange(mq, w == null ? -1 : w.getConsumerOffset(), searches.get(i).join(),
+                        range.getMaxOffset()));
+            }
+            return new Plan(t, changes, null, note);
+        });
+    }
+
+    /**
+     * 并发执行所有无错误的预览，阻塞直到完成；每个目标完成后在工作线程上回调 onOutcome
+     */
+    List<Outcome> apply(List<Plan> plans, Consumer<Outcome> onOutcome) throws InterruptedException {
+        FanOut pool = new FanOut("mq-reset-apply", parallelism);
+        List<CompletableFuture<?>> calls = new ArrayList<>();
+        List<CompletableFuture<Outcome>> futures = new ArrayList<>();
+        try {
+            for (Plan p : plans) {
+                if (p.error != null) continue;
+                long submitted = System.nanoTime();
+                CompletableFuture<Outcome> call = pool.submit(() -> reset(p, submitted), APPLY_TIMEOUT_MS);
+                calls.add(call);
+                futures.add(call.handle((o, err) -> {
+                    Outcome outcome = o != null ? o : new Outcome(p, false, 0, elapsed(submitted), describe(err));
+                    if (onOutcome != null) onOutcome.accept(outcome);
+                    return outcome;
+                }));
+            }
+            List<Outcome> outcomes = new ArrayList<>(futures.size());
+            for (CompletableFuture<Outcome> f : futures) outcomes.add(await(f));
+            return outcomes;
+        } catch (InterruptedException ie) {
+            cancelAll(calls);
+            throw ie;
+        } catch (ExecutionException impossible) {
+            // handle() 已把异常转成失败结果
+            throw new IllegalStateException(impossible);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private Outcome reset(Plan p, long submitted) throws Exception {
+        Target t = p.target;
+        try {
+            Map<MessageQueue, Long> reset = admin.resetOffsetByTimestamp(t.topic, t.group, t.timestamp, true);
+            return new Outcome(p, true, reset.size(), elapsed(submitted), "Reset " + reset.size() + " queues");
+        } catch (MQClientException e) {
+            if (e.getResponseCode() != ResponseCode.CONSUMER_NOT_ONLINE) throw e;
+            List<RollbackStats> stats = admin.resetOffsetByTimestampOld(t.group, t.topic, t.timestamp, true);
+            return new Outcome(p, true, stats.size(), elapsed(submitted),
+                    "Group offline, updated " + stats.size() + " broker offsets");
+        }
+    }
+
+    private static <T> CompletableFuture<T> track(List<CompletableFuture<?>> calls, CompletableFuture<T> f) {
+        calls.add(f);
+        return f;
+    }
+
+    private static void cancelAll(List<CompletableFuture<?>> calls) {
+        synchronized (calls) {
+            for (CompletableFuture<?> f : calls) f.cancel(true);
+        }
+    }
+
+    private static <T> T await(CompletableFuture<T> f) throws InterruptedException, ExecutionException {
+        try {
+            return f.get();
+        } catch (CancellationException e) {
+            throw new ExecutionException(e);
+        }
+    }
+
+    private static String describe(Throwable t) {
+        while ((t instanceof CompletionException || t instanceof ExecutionException) && t.getCause() != null) {
+            t = t.getCause();
+        }
+        String msg = t.getMessage();
+        return msg == null || msg.isEmpty() ? t.getClass().getSimpleName() : msg;
+    }
+
+    private static long elapsed(long startNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+}
@@ -0,0 +1,294 @@
+package org.tzh.rocketmqgui;
+
+import org.apache.rocketmq.client.consumer.DefaultMQPullConsumer;
+import org.apache.rocketmq.client.consumer.MessageSelector;
+import org.apache.rocketmq.client.consumer.PullCallback;
+import org.apache.rocketmq.client.consumer.PullResult;
+import org.apache.rocketmq.common.ServiceState;
+import org.apache.rocketmq.common.admin.TopicOffset;
+import org.apache.rocketmq.common.message.MessageExt;
+import org.apache.rocketmq.common.message.MessageQueue;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 只读浏览 (peek): 用工具拉取消费者直接按位点读 Topic 的各个队列，不注册业务消费组、不提交位点，
+ * 对线上消费组没有任何影响 (不触发 Rebalance，不改消费进度)。
+ * - 每个队列一条异步拉取链 (PullCallback)，不占线程，所有队列同时在读，不受扇出池并发上限限制
+ * - 起始位置: 最新 / 最早 / 指定位点 / 按时间 (各队列并行 searchOffset，先查到的队列先开始拉)
+ * - follow: 读到队尾后继续跟随新消息 (Tag 过滤走 Broker 长轮询，SQL92 定时轮询)；否则读到开始时的队尾即结束
+ * - 下游 IngestQueue 超过一半时暂停拉取，浏览大量历史消息不会丢
+ */
+@SuppressWarnings("deprecation") // 4.9.4 客户端里带 PullCallback 的按位点拉取只有 DefaultMQPullConsumer
+public class PeekSession {
+    public enum Start { LATEST, EARLIEST, OFFSET, TIMESTAMP }
+
+    private static final long START_LOOKUP_TIMEOUT_MS = 10_000;
+    // SQL92 过滤没有长轮询的拉取接口，读到队尾后按此间隔轮询
+    private static final long IDLE_POLL_MS = 1000;
+    private static final long BACKPRESSURE_POLL_MS = 50;
+    private static final long RETRY_DELAY_MS = 2000;
+    private static final AtomicInteger SEQ = new AtomicInteger();
+    private static final MetricsRegistry METRICS = MetricsRegistry.get();
+
+    private final DefaultMQPullConsumer puller;
+    private final String topic;
+    private final String tagExpression;
+    private final MessageSelector selector;
+    private final int batchSize;
+    private final boolean follow;
+    private final IngestQueue<MessageExt> sink;
+    private final SearchHandle handle = new SearchHandle(Integer.MAX_VALUE);
+    private final ScheduledExecutorService scheduler;
+    private final AtomicLong received = new AtomicLong();
+    private final AtomicInteger activeQueues = new AtomicInteger();
+    private final long startNanos = System.nanoTime();
+    private final AtomicLong firstMessageNanos = new AtomicLong(-1);
+
+    /**
+     * 一个队列的读取状态；只在它自己的拉取链上访问，链上同一时刻只有一个请求
+     */
+    private final class Cursor {
+        final MessageQueue mq;
+        final CompletableFuture<Void> part = new CompletableFuture<>();
+        long offset;
+        // 非 follow 时读到这里为止 (开始时的队尾)
+        long stop;
+
+        Cursor(MessageQueue mq) {
+            this.mq = mq;
+        }
+    }
+
+    /**
+     * @param tagExpression Tag 表达式；selector 不为空时忽略
+     * @param selector      SQL92 过滤，为空表示按 Tag 过滤
+     */
+    PeekSession(DefaultMQPullConsumer puller, String topic, String tagExpression, MessageSelector selector,
+                int batchSize, boolean follow, IngestQueue<MessageExt> sink) {
+        this.puller = puller;
+        this.topic = topic;
+        this.tagExpression = tagExpression;
+        this.selector = selector;
+        this.batchSize = batchSize;
+        this.follow = follow;
+        this.sink = sink;
+        int seq = SEQ.incrementAndGet();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "peek-" + seq);
+            t.setDaemon(true);
+            return t;
+        });
+        handle.done().whenComplete((v, t) -> scheduler.shutdownNow());
+    }
+
+    /**
+     * 开始读取。起始位点的查询经 fanOut 并行执行，每个队列查到后立即开始拉取。
+     *
+     * @param offsets 各队列的位点范围 (examineTopicStats)
+     * @param value   OFFSET 时为位点 (按队列截断到 [min, max])，TIMESTAMP 时为毫秒时间戳，其余忽略
+     */
+    void start(Map<MessageQueue, TopicOffset> offsets, Start from, long value, FanOut fanOut) {
+        handle.setParts(offsets.size());
+        activeQueues.set(offsets.size());
+        for (Map.Entry<MessageQueue, TopicOffset> e : offsets.entrySet()) {
+            Cursor c = new Cursor(e.getKey());
+            handle.track(c.part);
+            long min = e.getValue().getMinOffset();
+            long max = e.getValue().getMaxOffset();
+            c.stop = max;
+            if (from != Start.TIMESTAMP) {
+                c.offset = from == Start.LATEST ? max : from == Start.EARLIEST ? min : Math.max(min, Math.min(max, value));
+                schedule(c, 0);
+                continue;
+            }
+            fanOut.submit(() -> METRICS.time("rpc.searchOffset", () -> puller.searchOffset(c.mq, value)),
+                    START_LOOKUP_TIMEOUT_MS).whenComplete((offset, t) -> {
+                if (t != null) {
+                    finish(c, t);
+                    return;
+                }
+                c.offset = Math.max(min, offset);
+                schedule(c, 0);
+            });
+        }
+    }
+
+    private void schedule(Cursor c, long delayMs) {
+        if (handle.isCancelled()) {
+            finish(c, null);
+            return;
+        }
+        try {
+            scheduler.schedule(() -> pull(c), delayMs, TimeUnit.MILLISECONDS);
+        } catch (RuntimeException e) {
+            // 已取消，调度线程已关闭
+            finish(c, null);
+        }
+    }
+
+    private void pull(Cursor c) {
+        if (handle.isCancelled()) {
+            finish(c, null);
+            return;
+        }
+        if (!follow && c.offset >= c.stop) {
+            finish(c, null);
+            return;
+        }
+        // 界面来不及消费时先等一等，而不是让 IngestQueue 丢消息
+        if (sink.size() > sink.capacity() / 2) {
+            schedule(c, BACKPRESSURE_POLL_MS);
+            return;
+        }
+        long pullStart = System.nanoTime();
+        PullCallback callback = new PullCallback() {
+            @Override
+            public void onSuccess(PullResult result) {
+                METRICS.timer("rpc.pull").recordNanos(System.nanoTime() - pullStart);
+                onPulled(c, result);
+            }
+
+            @Override
+            public void onException(Throwable e) {
+                METRICS.timer("rpc.pull").recordNanos(System.nanoTime() - pullStart);
+                METRICS.counter("rpc.pull.errors").increment();
+                onFailed(c, e);
+            }
+        };
+        try {
+            if (selector != null) {
+                puller.pull(c.mq, selector, c.offset, batchSize, callback);
+            } else if (follow) {
+                // 没有新消息时 Broker 挂起请求，有消息到达立即返回
+                puller.pullBlockIfNotFound(c.mq, tagExpression, c.offset, batchSize, callback);
+            } else {
+                puller.pull(c.mq, tagExpression, c.offset, batchSize, callback);
+            }
+        } catch (Exception e) {
+            METRICS.counter("rpc.pull.errors").increment();
+            onFailed(c, e);
+        }
+    }
+
+    private void onPulled(Cursor c, PullResult result) {
+        if (handle.isCancelled()) {
+            finish(c, null);
+            return;
+        }
+        switch (result.getPullStatus()) {
+            case FOUND:
+                int n = 0;
+                for (MessageExt m : result.getMsgFoundList()) {
+                    if (!follow && m.getQueueOffset() >= c.stop) break;
+                    sink.offer(m);
+                    n++;
+                }
+                received.addAndGet(n);
+                METRICS.counter("peek.received").add(n);
+                if (n > 0 && firstMessageNanos.get() < 0) {
+                    long now = System.nanoTime();
+                    if (firstMessageNanos.compareAndSet(-1, now)) METRICS.timer("peek.firstMessage").recordNanos(now - startNanos);
+                }
+                c.offset = result.getNextBeginOffset();
+                schedule(c, 0);
+                break;
+            case NO_NEW_MSG:
+                if (!follow) {
+                    finish(c, null);
+                } else {
+                    // 长轮询挂起期满返回的，直接再发；SQL92 轮询则等一会儿
+                    schedule(c, selector != null ? IDLE_POLL_MS : 0);
+                }
+                break;
+            case NO_MATCHED_MSG:
+            case OFFSET_ILLEGAL:
+            default:
+                // 整批被过滤掉或位点已过期，跳到 Broker 给出的下一个位点
+                long next = result.getNextBeginOffset();
+                if (next != c.offset) {
+                    c.offset = next;
+                    schedule(c, 0);
+                } else if (follow) {
+                    schedule(c, IDLE_POLL_MS);
+                } else {
+                    finish(c, null);
+                }
+                break;
+        }
+    }
+
+    private void onFailed(Cursor c, Throwable e) {
+        if (handle.isCancelled()) {
+            finish(c, null);
+        } else if (follow && puller.getDefaultMQPullConsumerImpl().getServiceState() == ServiceState.RUNNING) {
+            // 跟随模式下 Broker 短暂不可用不结束，稍后重试；连接已关闭则不再重试
+            schedule(c, RETRY_DELAY_MS);
+        } else {
+            finish(c, e);
+        }
+    }
+
+    private void finish(Cursor c, Throwable t) {
+        if (c.part.isDone()) return;
+        activeQueues.decrementAndGet();
+        if (t == null) {
+            c.part.complete(null);
+        } else {
+            c.part.completeExceptionally(t);
+        }
+    }
+
+    public String getTopic() {
+        return topic;
+    }
+
+    public boolean isFollow() {
+        return follow;
+    }
+
+    public void cancel() {
+        handle.cancel();
+    }
+
+    public boolean isCancelled() {
+        return handle.isCancelled();
+    }
+
+    /**
+     * 所有队列读完 (非 follow)、或被取消时完成
+     */
+    public CompletableFuture<Void> done() {
+        return handle.done();
+    }
+
+    public long getReceived() {
+        return received.get();
+    }
+
+    public int getActiveQueues() {
+        return Math.max(0, activeQueues.get());
+    }
+
+    public int getFailedQueues() {
+        return handle.getFailedParts();
+    }
+
+    public String getLastError() {
+        return handle.getLastError();
+    }
+
+    /**
+     * 从开始到第一条消息交给界面的耗时，还没有收到消息时为 -1
+     */
+    public long getFirstMessageMillis() {
+        long first = firstMessageNanos.get();
+        return first < 0 ? -1 : TimeUnit.NANOSECONDS.toMillis(first - startNanos);
+    }
+}
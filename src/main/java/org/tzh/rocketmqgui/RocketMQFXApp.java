@@ -1,44 +1,87 @@
 package org.tzh.rocketmqgui;
 
+import javafx.animation.AnimationTimer;
 import javafx.application.Application;
+import javafx.animation.KeyFrame;
+import javafx.animation.PauseTransition;
+import javafx.animation.Timeline;
 import javafx.application.Platform;
+import javafx.beans.Observable;
+import javafx.beans.property.IntegerProperty;
+import javafx.beans.property.ReadOnlyObjectWrapper;
+import javafx.beans.property.ReadOnlyStringWrapper;
+import javafx.beans.property.SimpleIntegerProperty;
 import javafx.collections.FXCollections;
+import javafx.collections.ListChangeListener;
 import javafx.collections.ObservableList;
+import javafx.collections.transformation.SortedList;
 import javafx.collections.transformation.FilteredList;
 import javafx.geometry.Insets;
+import javafx.geometry.Orientation;
 import javafx.scene.Scene;
-import javafx.scene.chart.CategoryAxis;
-import javafx.scene.chart.LineChart;
-import javafx.scene.chart.NumberAxis;
-import javafx.scene.chart.XYChart;
 import javafx.scene.control.*;
-import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.input.Clipboard;
 import javafx.scene.input.ClipboardContent;
 import javafx.scene.layout.*;
+import javafx.stage.FileChooser;
 import javafx.stage.Stage;
+import javafx.util.Duration;
 import org.apache.rocketmq.client.producer.SendResult;
 import org.apache.rocketmq.common.admin.ConsumeStats;
 import org.apache.rocketmq.common.admin.TopicStatsTable;
-import org.apache.rocketmq.common.message.MessageDecoder;
 import org.apache.rocketmq.common.message.MessageExt;
 import org.apache.rocketmq.common.protocol.body.Connection;
 import org.apache.rocketmq.common.protocol.body.ConsumerConnection;
 import org.apache.rocketmq.common.protocol.body.SubscriptionGroupWrapper;
 import org.apache.rocketmq.common.subscription.SubscriptionGroupConfig;
 
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.text.SimpleDateFormat;
 import java.time.LocalDate;
 import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
 
 public class RocketMQFXApp extends Application {
 
-    private RocketMQManager mqManager;
+    private static final String WINDOW_TITLE = "RocketMQ Admin Pro (All-in-One)";
+    // 所有窗口共用的集群连接池，切换集群时把当前连接归还而不是关闭
+    private static ConnectionPool connectionPool;
+    // connect/disconnect 任务在后台线程里替换，FX 事件和其他任务读取
+    private volatile RocketMQManager mqManager;
     private ConfigManager configManager = new ConfigManager();
-    private static final int MAX_CONSUMER_RECORDS = 500;
+    private Stage stage;
+    private boolean windowClosed;
+    private volatile boolean connected;
+    // 尚未构建的页签，第一次选中时构建
+    private final Map<Tab, Supplier<Tab>> pendingTabs = new HashMap<>();
+    // 点击 Connect 的时刻，首次拿到 Topic 列表时统计连接耗时
+    private long connectStartedNanos;
+    // 所有后台操作统一走这里，断开连接时一并取消
+    private final TaskExecutor tasks = TaskExecutor.fromSystemProperties();
+    private final AtomicBoolean taskStatusPending = new AtomicBoolean();
+    private Label taskStatusLabel;
+    // 消费线程与 FX 线程之间的缓冲上限，超出即丢弃
+    private static final int CONSUMER_QUEUE_CAPACITY = 50_000;
+    // 每帧最多写入 CaptureStore 的条数，剩下的留给下一帧
+    private static final int MAX_APPEND_PER_PULSE = 20_000;
     private TextArea logArea;
     private ComboBox<String> nameSrvCombo;
     private Button connectBtn;
@@ -50,45 +93,148 @@ public class RocketMQFXApp extends Application {
     private TableView<MessageModel> consumerTable;
     // Global Data
     private final ObservableList<String> globalTopicData = FXCollections.observableArrayList();
+    // globalTopicData 的搜索索引，只在 FX 线程替换；查询在 topicSearchExecutor 上执行
+    private static final int TOPIC_SEARCH_LIMIT = 200;
+    private static final long TOPIC_SEARCH_DEBOUNCE_MS = 120;
+    private volatile TopicSearchIndex topicIndex = TopicSearchIndex.EMPTY;
+    private final IntegerProperty topicIndexVersion = new SimpleIntegerProperty();
+    private final ExecutorService topicSearchExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "topic-search");
+        t.setDaemon(true);
+        return t;
+    });
     // [新增] 生产者和消费者的下拉框组件 (提升为成员变量，方便赋值)
     private ComboBox<String> producerTopicCombo;
     private ComboBox<String> consumerTopicCombo;
-    // Charts
-    private XYChart.Series<String, Number> topicOffsetSeries;
+    // Charts: 多 Topic 吞吐监控
+    private static final int MONITOR_INTERVAL_SECONDS = 3;
+    // 每个 Topic 在内存里保留约 25 小时的采样 (足够放下从本地时序库恢复的一天历史)
+    private static final int MONITOR_HISTORY_POINTS = 25 * 3600 / MONITOR_INTERVAL_SECONDS;
+    private static final String[] MONITOR_WINDOW_LABELS = {"1 min", "5 min", "15 min", "1 h", "6 h", "24 h"};
+    private static final long[] MONITOR_WINDOW_MILLIS = {60_000L, 300_000L, 900_000L, 3_600_000L, 21_600_000L, 86_400_000L};
+    // 连接时从本地时序库恢复多久的历史；相邻采样间隔超过该值视为中断，不计算 TPS
+    private static final long HISTORY_RESTORE_MILLIS = 86_400_000L;
+    private static final long HISTORY_MAX_GAP_MILLIS = 10_000L * MONITOR_INTERVAL_SECONDS;
+    private static final String TOPIC_SERIES_PREFIX = "topic:";
+    private static final String LAG_SERIES_PREFIX = "lag:";
+    // 当前集群的本地时序库: Topic Offset 总和与消费组总堆积
+    private volatile MetricsStore metricsStore;
+    private final ObservableList<String> pinnedTopics = FXCollections.observableArrayList();
+    // 给监控线程读的快照，避免跨线程遍历 ObservableList
+    private volatile List<String> pinnedSnapshot = Collections.emptyList();
+    // 完整的采样历史，图表自己按视图降采样
+    private final Map<String, TimeSeriesRing> rateHistory = new HashMap<>();
+    private final ThroughputTracker throughputTracker = new ThroughputTracker();
+    private CanvasChart rateChart;
+    private long rateWindowMillis = MONITOR_WINDOW_MILLIS[0];
+    private TableView<TopicRateStats> rateStatsTable;
     private Button startMonitorBtn;
-    private ScheduledExecutorService monitorService;
-    private ScheduledExecutorService styleRefreshService;
+    private volatile ScheduledExecutorService monitorService;
+    // Lag Overview: 每个消费组一行，后台结果先攒在 pending 里，再合并到 FX 线程
+    private static final long LAG_CALL_TIMEOUT_MS = 5000;
+    private final Map<String, GroupLagRow> lagRows = new HashMap<>();
+    private final ObservableList<GroupLagRow> lagData = FXCollections.observableArrayList(
+            row -> new Observable[]{row.totalLagProperty()});
+    private final Map<String, GroupLagRow.Snapshot> pendingLag = new ConcurrentHashMap<>();
+    private final Map<String, String> pendingLagErrors = new ConcurrentHashMap<>();
+    private final AtomicBoolean lagFlushScheduled = new AtomicBoolean();
+    private Label lagStatusLabel;
+    private Timeline lagAutoRefresh;
+    // 每个消费组的总堆积历史，选中表格中的行时显示
+    private final Map<String, TimeSeriesRing> lagHistory = new HashMap<>();
+    private CanvasChart lagChart;
+    private String lagChartGroup;
+    // 新消息 3 秒高亮，按行到期，不再整表 refresh
+    private final RowHighlighter consumerHighlighter = new RowHighlighter(3000,
+            "-fx-control-inner-background: #b3ffb3; -fx-background-color: #b3ffb3;");
+    // Consumer 批量交接: 回调线程只入队，每帧 drain 一次
+    private final IngestQueue<MessageExt> consumerIngestQueue = new IngestQueue<>(CONSUMER_QUEUE_CAPACITY);
+    private final List<MessageExt> consumerDrainBuffer = new ArrayList<>();
+    // 写入 CaptureStore 失败而丢掉的消息数；FX 线程写，指标线程读
+    private volatile long captureWriteFailed;
+    private AnimationTimer consumerDrainTimer;
+    private Label consumerStatsLabel;
+    // Peek 模式正在进行的只读浏览，Consumer Group 模式下为 null
+    private volatile PeekSession activePeek;
+    // Broker 默认每次拉取最多返回 32 条 (maxTransferCountOnMessageInMemory)，更大的值需调整 Broker 配置才生效
+    private static final int MAX_PEEK_BATCH = 1024;
+    // Consumer 抓取的消息落盘，表格按需分页读取
+    private CaptureStore captureStore;
+    private CapturedMessageList capturedMessages;
+    // 抓取消息的倒排索引；captureQuery 非 null 时表格只显示搜索结果，并随新消息刷新
+    private static final int CAPTURE_SEARCH_LIMIT = 200_000;
+    private MessageIndex captureIndex;
+    private volatile String captureQuery;
+    private final AtomicBoolean captureFilterScheduled = new AtomicBoolean();
+    private Label captureSearchLabel;
+    // Producer 表的数据源，表格显示的是其过滤视图
+    private final ObservableList<MessageModel> producerMessages = FXCollections.observableArrayList();
+    // Producer 页每次发送的序号，只在 FX 线程上递增
+    private long sendSeq;
+    // Reset Offset 对话框不是模态的，可以同时开多个；任务 key 按对话框区分，避免一个对话框的操作被合并进另一个的任务
+    private int resetDialogSeq;
+    // Producer 页的压测发送器，同一时间只跑一个
+    private volatile LoadGenerator loadGenerator;
+    // 压测参数上限: 消息体与一批的总大小不超过 Broker 默认的 4MB，在途窗口和线程数防止手误占满内存
+    private static final int MAX_LOAD_MESSAGE_SIZE = 4 * 1024 * 1024;
+    private static final int MAX_LOAD_BATCH = 1000;
+    private static final int MAX_LOAD_IN_FLIGHT = 100_000;
+    private static final int MAX_LOAD_PRODUCERS = 64;
+    private Timeline loadStatsTimer;
+    private Label loadStatsLabel;
+    private Button loadStartBtn;
+    private long lastLoadSent;
+    private long lastLoadSampleNanos;
+    // Msg Query 搜索: 后台线程交付的结果先攒着，每帧合并一次加到表格
+    private volatile SearchHandle activeSearch;
+    // 每次新搜索加一，旧搜索迟到的结果和状态直接丢弃
+    private volatile int searchGeneration;
+    // Export / Replay 各自同一时间只跑一个
+    private volatile ArchiveTransfer activeExport;
+    private volatile ArchiveTransfer activeReplay;
+    private Timeline archiveProgressTimer;
+    private final Queue<MessageModel> pendingSearchResults = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean searchFlushScheduled = new AtomicBoolean();
+    // 本窗口注册的 gauge，关闭窗口时注销
+    private final Map<String, LongSupplier> windowGauges = new LinkedHashMap<>();
+    // FX 线程响应延迟的探测: 定时 runLater 一次，记录从提交到执行的时间
+    private static final long FX_HEARTBEAT_MS = 500;
+    private static final long FX_STALL_MICROS = 100_000;
+    private static ScheduledExecutorService fxHeartbeat;
+    private Timeline diagnosticsTimer;
 
     public static void main(String[] args) {
         launch(args);
     }
 
-    // 可以放在 start() 方法的最后，或者 connect() 成功的回调里
-    private void startStyleRefresher() {
-        // 防止重复启动
-        if (styleRefreshService != null && !styleRefreshService.isShutdown()) {
-            return;
-        }
-
-        styleRefreshService = Executors.newSingleThreadScheduledExecutor();
-        styleRefreshService.scheduleAtFixedRate(() -> {
-            // 只有当 consumerTable 有数据时才刷新，节省资源
-            if (consumerTable != null && !consumerTable.getItems().isEmpty()) {
-                Platform.runLater(() -> {
-                    System.out.println("startStyleRefresher");
-                    // 强制触发表格重绘，从而触发 RowFactory 的 updateItem 逻辑
-                    consumerTable.refresh();
-                });
-            }
-        }, 0, 1000, TimeUnit.MILLISECONDS); // 每 0.5 秒刷新一次
-    }
-
+    /**
+     * Topic 下拉框的搜索: 输入停顿后在后台线程查共享的 TopicSearchIndex，只显示排序后的前 N 个结果
+     */
     private void enableSearch(ComboBox<String> comboBox) {
         comboBox.setEditable(true);
-
-        // 创建一个过滤列表，包裹全局数据
-        FilteredList<String> filteredItems = new FilteredList<>(globalTopicData, p -> true);
-        comboBox.setItems(filteredItems);
+        ObservableList<String> items = FXCollections.observableArrayList(topicIndex.search("", TOPIC_SEARCH_LIMIT));
+        comboBox.setItems(items);
+        AtomicInteger generation = new AtomicInteger();
+
+        Runnable runQuery = () -> {
+            String text = comboBox.getEditor().getText();
+            int gen = generation.incrementAndGet();
+            TopicSearchIndex index = topicIndex;
+            topicSearchExecutor.execute(() -> {
+                if (gen != generation.get()) return; // 已经有更新的输入
+                List<String> result = index.search(text, TOPIC_SEARCH_LIMIT);
+                Platform.runLater(() -> {
+                    if (gen != generation.get()) return;
+                    items.setAll(result);
+                    // 过滤后如果列表不为空且下拉框未显示，则展开
+                    if (!result.isEmpty() && !comboBox.isShowing() && comboBox.getEditor().isFocused()) {
+                        comboBox.show();
+                    }
+                });
+            });
+        };
+        PauseTransition debounce = new PauseTransition(Duration.millis(TOPIC_SEARCH_DEBOUNCE_MS));
+        debounce.setOnFinished(e -> runQuery.run());
 
         // 监听输入框的文本变化
         comboBox.getEditor().textProperty().addListener((obs, oldVal, newVal) -> {
@@ -98,49 +244,85 @@ public class RocketMQFXApp extends Application {
             if (selected != null && selected.equals(newVal)) {
                 return;
             }
+            debounce.playFromStart();
+        });
+        // Topic 列表变化 (索引重建) 后按当前输入重新查询
+        topicIndexVersion.addListener((obs, o, n) -> runQuery.run());
+    }
 
-            // 运行在 UI 线程
+    // globalTopicData 变化后在后台重建索引，完成后通知各个下拉框
+    private void rebuildTopicIndex() {
+        List<String> snapshot = new ArrayList<>(globalTopicData);
+        topicSearchExecutor.execute(() -> {
+            TopicSearchIndex index = new TopicSearchIndex(snapshot);
             Platform.runLater(() -> {
-                // 设置过滤规则：不区分大小写包含
-                filteredItems.setPredicate(item -> {
-                    if (newVal == null || newVal.isEmpty()) return true;
-                    return item.toLowerCase().contains(newVal.toLowerCase());
-                });
-
-                // 过滤后如果列表不为空且下拉框未显示，则展开
-                if (!filteredItems.isEmpty() && !comboBox.isShowing()) {
-                    comboBox.show();
-                }
+                topicIndex = index;
+                topicIndexVersion.set(topicIndexVersion.get() + 1);
             });
         });
     }
 
     @Override
     public void start(Stage primaryStage) {
-        primaryStage.setTitle("RocketMQ Admin Pro (All-in-One)");
+        stage = primaryStage;
+        primaryStage.setTitle(WINDOW_TITLE);
+        boolean firstWindow = connectionPool == null;
+        if (firstWindow) {
+            connectionPool = new ConnectionPool(configManager.getPoolMaxClusters(),
+                    TimeUnit.MINUTES.toMillis(configManager.getPoolIdleMinutes()));
+            // 与界面构建并行启动最近使用的集群的客户端，点击 Connect 时直接复用
+            List<String> history = configManager.getHistory();
+            if (!history.isEmpty()) connectionPool.prewarm(history.get(0));
+            startProcessMetrics();
+        }
+        registerWindowGauges();
+        // 每个窗口关闭时释放自己的资源，连接留在池中
+        primaryStage.setOnHidden(e -> closeWindow());
 
         // Top Bar
         HBox topBox = createTopBar();
 
-        // Main Tabs
+        // Main Tabs: 只有 Dashboard 立即构建，其余页签第一次选中时才构建
         TabPane tabPane = new TabPane();
         tabPane.getTabs().addAll(
                 createDashboardTab(),  // Feature: Dashboard
-                createTopicTab(),
-                createGroupTab(),      // Feature: Reset Offset & DLQ
-                createProducerTab(),
-                createConsumerTab(),   // Feature: SQL Filter
-                createMessageQueryTab()
+                lazyTab("Topic", this::createTopicTab),
+                lazyTab("Groups", this::createGroupTab),      // Feature: Reset Offset & DLQ
+                lazyTab("Lag Overview", this::createLagOverviewTab),
+                lazyTab("Producer", this::createProducerTab),
+                lazyTab("Consumer", this::createConsumerTab),   // Feature: SQL Filter
+                lazyTab("Msg Query", this::createMessageQueryTab),
+                lazyTab("Export / Replay", this::createArchiveTab),
+                lazyTab("Diagnostics", this::createDiagnosticsTab)
         );
+        tabPane.getSelectionModel().selectedItemProperty().addListener((obs, o, t) -> {
+            buildTab(t);
+            if (diagnosticsTimer != null) {
+                if ("Diagnostics".equals(t.getText())) diagnosticsTimer.play();
+                else diagnosticsTimer.stop();
+            }
+        });
 
         // Bottom Log
         logArea = new TextArea();
         logArea.setPrefHeight(80);
         logArea.setEditable(false);
 
+        taskStatusLabel = new Label("Tasks: idle");
+        tasks.setOnRejected(e -> logError("Task Rejected", e));
+        tasks.setOnChange(() -> {
+            // 合并短时间内的多次变化，只排一次 runLater
+            if (taskStatusPending.compareAndSet(false, true)) {
+                Platform.runLater(this::updateTaskStatus);
+            }
+        });
+        Region spacer = new Region();
+        HBox.setHgrow(spacer, Priority.ALWAYS);
+        HBox logHeader = new HBox(10, new Label("System Log:"), spacer, taskStatusLabel);
+
         VBox root = new VBox(10);
         root.setPadding(new Insets(10));
-        root.getChildren().addAll(topBox, tabPane, new Label("System Log:"), logArea);
+        root.getChildren().addAll(topBox, tabPane, logHeader, logArea);
         VBox.setVgrow(tabPane, Priority.ALWAYS);
 
         Scene scene = new Scene(root, 1100, 800);
@@ -148,6 +330,102 @@ public class RocketMQFXApp extends Application {
         primaryStage.show();
 
         setConnectedState(false);
+        if (firstWindow) {
+            Platform.runLater(() -> {
+                long readyMillis = millisSinceLaunch();
+                log("Window ready " + readyMillis + " ms after launch");
+                // 也记入指标，Diagnostics 页和 JMX 可以直接读到，便于对比不同版本的启动耗时
+                if (readyMillis >= 0) {
+                    MetricsRegistry.get().timer("startup.windowReady").recordNanos(TimeUnit.MILLISECONDS.toNanos(readyMillis));
+                }
+                if (Boolean.getBoolean("rocketmq.gui.cdsTraining")) runCdsTraining();
+            });
+        }
+    }
+
+    /**
+     * 进程级指标 (只在第一个窗口启动时注册一次): JMX、堆内存、FX 线程响应延迟
+     */
+    private static void startProcessMetrics() {
+        MetricsRegistry metrics = MetricsRegistry.get();
+        metrics.registerJmx();
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        metrics.gauge("jvm.heapUsedBytes", () -> memory.getHeapMemoryUsage().getUsed());
+        metrics.gauge("jvm.heapCommittedBytes", () -> memory.getHeapMemoryUsage().getCommitted());
+        metrics.gauge("jvm.heapMaxBytes", () -> memory.getHeapMemoryUsage().getMax());
+        metrics.gauge("jvm.threads", () -> ManagementFactory.getThreadMXBean().getThreadCount());
+
+        // 不用常驻的 AnimationTimer (会让 FX 线程每帧都醒来)；上一次还没执行时不再提交，卡住期间不会堆积
+        LatencyHistogram fxDelay = metrics.timer("fx.runLaterDelay");
+        LongAdder stalls = metrics.counter("fx.stalls");
+        AtomicBoolean pending = new AtomicBoolean();
+        fxHeartbeat = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "fx-heartbeat");
+            t.setDaemon(true);
+            return t;
+        });
+        fxHeartbeat.scheduleWithFixedDelay(() -> {
+            if (!pending.compareAndSet(false, true)) return;
+            long posted = System.nanoTime();
+            Platform.runLater(() -> {
+                long micros = (System.nanoTime() - posted) / 1000;
+                fxDelay.recordMicros(micros);
+                if (micros >= FX_STALL_MICROS) stalls.increment();
+                pending.set(false);
+            });
+        }, FX_HEARTBEAT_MS, FX_HEARTBEAT_MS, TimeUnit.MILLISECONDS);
+    }
+
+    // 窗口级 gauge，多个窗口同名时取总和
+    private void registerWindowGauges() {
+        windowGauges.put("consumer.queueDepth", consumerIngestQueue::size);
+        windowGauges.put("consumer.dropped", consumerIngestQueue::getDropped);
+        windowGauges.put("capture.writeFailed", () -> captureWriteFailed);
+        windowGauges.put("capture.records", () -> captureStore == null ? 0 : captureStore.size());
+        windowGauges.put("capture.evicted", () -> captureStore == null ? 0 : captureStore.getEvicted());
+        windowGauges.put("capture.diskBytes", () -> captureStore == null ? 0 : captureStore.getDiskUsage());
+        for (Map.Entry<String, LongSupplier> g : windowGauges.entrySet()) {
+            MetricsRegistry.get().gauge(g.getKey(), g.getValue());
+        }
+    }
+
+    private Tab lazyTab(String title, Supplier<Tab> factory) {
+        Tab tab = new Tab(title);
+        tab.setClosable(false);
+        pendingTabs.put(tab, factory);
+        return tab;
+    }
+
+    private void buildTab(Tab tab) {
+        Supplier<Tab> factory = pendingTabs.remove(tab);
+        if (factory == null) return;
+        tab.setContent(factory.get().getContent());
+        // 新建的控件按当前连接状态启用/禁用
+        applyConnectedState();
+    }
+
+    private static long millisSinceLaunch() {
+        return ProcessHandle.current().info().startInstant()
+                .map(t -> System.currentTimeMillis() - t.toEpochMilli())
+                .orElse(-1L);
+    }
+
+    /**
+     * 打包时生成 CDS 归档用 (-Drocketmq.gui.cdsTraining=true): 构建全部页签、启动一次客户端后退出，
+     * 让启动路径上会用到的类都被加载一遍
+     */
+    private void runCdsTraining() {
+        for (Tab t : new ArrayList<>(pendingTabs.keySet())) buildTab(t);
+        Thread t = new Thread(() -> {
+            try {
+                new RocketMQManager("127.0.0.1:9876").shutdown();
+            } catch (Exception ignored) {
+                // 只为加载类，没有 NameServer 也无所谓
+            }
+            Platform.runLater(Platform::exit);
+        }, "cds-training");
+        t.setDaemon(true);
+        t.start();
     }
 
     // --- Top Bar & Connection ---
@@ -164,41 +442,69 @@ public class RocketMQFXApp extends Application {
         connectBtn.setOnAction(e -> connect());
         disconnectBtn = new Button("Disconnect");
         disconnectBtn.setOnAction(e -> disconnect());
-        topBox.getChildren().addAll(new Label("NameServer:"), nameSrvCombo, connectBtn, disconnectBtn);
+        // 另开一个窗口查看其他集群，共用连接池
+        Button newWindowBtn = new Button("New Window");
+        newWindowBtn.setOnAction(e -> new RocketMQFXApp().start(new Stage()));
+        topBox.getChildren().addAll(new Label("NameServer:"), nameSrvCombo, connectBtn, disconnectBtn, newWindowBtn);
         return topBox;
     }
 
     private void connect() {
         String addr = nameSrvCombo.getEditor().getText();
         configManager.saveHistory(addr);
-        new Thread(() -> {
+        connectStartedNanos = System.nanoTime();
+        // 切换集群时，上一个集群上的任务已无意义
+        tasks.cancelAll();
+        cancelPeek();
+        tasks.run("connect", "Connect " + addr, () -> {
             try {
                 stopMonitorService();
-                if (mqManager != null) mqManager.shutdown();
-                mqManager = new RocketMQManager(addr);
-                log("Connected to " + addr);
-                refreshTopics();
+                stopLoadGenerator();
+                // 上一个集群的连接归还到池中保持运行，切回来时不用重新启动客户端
+                RocketMQManager previous = mqManager;
+                mqManager = null;
+                if (previous != null) connectionPool.release(previous.getNamesrvAddr(), previous, this);
+                boolean warm = connectionPool.isWarm(addr);
+                long start = System.currentTimeMillis();
+                RocketMQManager manager = connectionPool.acquire(addr, this);
+                mqManager = manager;
+                log((warm ? "Switched to " : "Connected to ") + addr + " (" + (System.currentTimeMillis() - start) + " ms)");
+                setWindowTitle(addr);
+                Platform.runLater(this::resetClusterView);
+                openMetricsStore(addr);
+                // 复用的连接元数据缓存仍有效，先用缓存的 Topic 列表，后台刷新再补增量
+                manager.resetTopicSnapshot();
+                refreshTopics(false);
+                // 后台每分钟刷新元数据，Topic 有增删时只把增量应用到列表
+                manager.startBackgroundRefresh(60, diff -> Platform.runLater(() -> {
+                    if (mqManager == manager) applyTopicDiff(diff);
+                }));
                 setConnectedState(true);
             } catch (Exception e) {
                 logError("Connection Error", e);
+                setConnectedState(mqManager != null);
             }
-        }).start();
+        });
     }
 
     private void disconnect() {
-        new Thread(() -> {
+        tasks.cancelAll();
+        cancelPeek();
+        tasks.run("disconnect", "Disconnect", () -> {
             try {
                 stopMonitorService();
-                if (mqManager != null) {
-                    mqManager.disconnect();
-                    mqManager = null;
-                }
+                stopLoadGenerator();
+                closeMetricsStore();
+                RocketMQManager manager = mqManager;
+                mqManager = null;
+                if (manager != null) connectionPool.close(manager.getNamesrvAddr(), manager);
+                setWindowTitle(null);
                 log("Disconnected from NameServer");
                 setConnectedState(false);
             } catch (Exception e) {
                 logError("Disconnect Error", e);
             }
-        }).start();
+        });
     }
 
     // --- Tab 1: Dashboard (Monitor) ---
@@ -209,19 +515,9 @@ public class RocketMQFXApp extends Application {
         VBox content = new VBox(10);
         content.setPadding(new Insets(20));
 
-        // 1. 图表设置
-        CategoryAxis xAxis = new CategoryAxis();
-        xAxis.setLabel("Time");
-        NumberAxis yAxis = new NumberAxis();
-        yAxis.setLabel("Max Offset");
-
-        LineChart<String, Number> lineChart = new LineChart<>(xAxis, yAxis);
-        lineChart.setTitle("Topic Volume Monitor");
-        lineChart.setAnimated(false); // 关闭动画以提高实时性能
-
-        topicOffsetSeries = new XYChart.Series<>();
-        topicOffsetSeries.setName("No Topic Selected");
-        lineChart.getData().add(topicOffsetSeries);
+        // 1. 图表设置: 每个固定的 Topic 一条 TPS 曲线，直接画在 Canvas 上
+        rateChart = new CanvasChart("Topic Throughput (msg/s)");
+        VBox.setVgrow(rateChart, Priority.ALWAYS);
 
         // 2. 控制栏
         HBox controls = new HBox(10);
@@ -234,64 +530,158 @@ public class RocketMQFXApp extends Application {
         // 关键调用：绑定全局数据源并启用搜索
         enableSearch(topicSelector);
 
-        startMonitorBtn = new Button("Start Monitoring");
-        startMonitorBtn.setOnAction(e -> {
+        Button pinBtn = new Button("Pin");
+        pinBtn.setOnAction(e -> {
             // 获取用户选择或输入的 Topic
             String t = topicSelector.getEditor().getText();
             if (t == null || t.isEmpty()) {
                 t = topicSelector.getValue();
             }
+            if (t != null && !t.isEmpty() && !pinnedTopics.contains(t)) {
+                pinnedTopics.add(t);
+            }
+        });
+
+        pinnedTopics.addListener((ListChangeListener<String>) c -> pinnedSnapshot = new ArrayList<>(pinnedTopics));
+        ListView<String> pinnedList = new ListView<>(pinnedTopics);
+        pinnedList.setPrefHeight(120);
+        pinnedList.getSelectionModel().setSelectionMode(SelectionMode.MULTIPLE);
+        Button unpinBtn = new Button("Unpin");
+        unpinBtn.setOnAction(e -> {
+            List<String> selected = new ArrayList<>(pinnedList.getSelectionModel().getSelectedItems());
+            pinnedTopics.removeAll(selected);
+            for (String t : selected) {
+                throughputTracker.remove(t);
+                rateHistory.remove(t);
+                rateChart.removeSeries(t);
+            }
+            refreshRateStats();
+        });
 
-            if (t != null && !t.isEmpty()) {
-                // 更新图表标题
-                topicOffsetSeries.setName(t + " Total Offset");
-                // 清空旧数据
-                topicOffsetSeries.getData().clear();
-                // [重要] 启动定时任务 (确保您有 startMonitor 方法)
-                startMonitor(t);
+        startMonitorBtn = new Button("Start Monitoring");
+        startMonitorBtn.setOnAction(e -> {
+            if (monitorService != null) {
+                stopMonitorService();
+            } else if (!pinnedTopics.isEmpty()) {
+                startMonitor();
+            } else {
+                log("Pin at least one topic first");
             }
         });
 
-        controls.getChildren().addAll(new Label("Monitor Topic:"), topicSelector, startMonitorBtn);
-        content.getChildren().addAll(controls, lineChart);
+        ComboBox<String> windowCombo = new ComboBox<>();
+        windowCombo.getItems().addAll(MONITOR_WINDOW_LABELS);
+        windowCombo.getSelectionModel().select(0);
+        windowCombo.setOnAction(e -> {
+            rateWindowMillis = MONITOR_WINDOW_MILLIS[windowCombo.getSelectionModel().getSelectedIndex()];
+            rateChart.setLiveWindow(rateWindowMillis);
+            refreshRateStats();
+        });
+
+        controls.getChildren().addAll(new Label("Monitor Topic:"), topicSelector, pinBtn, unpinBtn, startMonitorBtn,
+                new Label("Window:"), windowCombo);
+
+        // 3. 每个 Topic 的 TPS 统计 (当前 / 窗口内最小 / 最大 / 平均)
+        rateStatsTable = new TableView<>();
+        rateStatsTable.setPrefHeight(150);
+        rateStatsTable.setPlaceholder(new Label("No pinned topics"));
+        TableColumn<TopicRateStats, String> topicCol = new TableColumn<>("Topic");
+        topicCol.setCellValueFactory(c -> new ReadOnlyStringWrapper(c.getValue().getTopic()));
+        topicCol.setPrefWidth(300);
+        TableColumn<TopicRateStats, String> curCol = new TableColumn<>("Current TPS");
+        curCol.setCellValueFactory(c -> new ReadOnlyStringWrapper(TopicRateStats.format(c.getValue().getCurrent())));
+        TableColumn<TopicRateStats, String> minCol = new TableColumn<>("Min");
+        minCol.setCellValueFactory(c -> new ReadOnlyStringWrapper(TopicRateStats.format(c.getValue().getMin())));
+        TableColumn<TopicRateStats, String> maxCol = new TableColumn<>("Max");
+        maxCol.setCellValueFactory(c -> new ReadOnlyStringWrapper(TopicRateStats.format(c.getValue().getMax())));
+        TableColumn<TopicRateStats, String> avgCol = new TableColumn<>("Avg");
+        avgCol.setCellValueFactory(c -> new ReadOnlyStringWrapper(TopicRateStats.format(c.getValue().getAvg())));
+        rateStatsTable.getColumns().addAll(Arrays.asList(topicCol, curCol, minCol, maxCol, avgCol));
+
+        HBox lists = new HBox(10, pinnedList, rateStatsTable);
+        HBox.setHgrow(rateStatsTable, Priority.ALWAYS);
+
+        content.getChildren().addAll(controls, lists, rateChart);
         tab.setContent(content);
         return tab;
     }
 
-    private void startMonitor(String topic) {
+    /**
+     * 所有固定的 Topic 共用一个调度：每轮并行查询 examineTopicStats (并发受 RocketMQManager 扇出限制)，
+     * 再用 Offset 差值除以时间间隔得到 TPS。
+     */
+    private void startMonitor() {
         // 1. 如果之前有监控任务在运行，先停止它
         stopMonitorService();
+        throughputTracker.clear();
 
         // 2. 创建新的调度线程池
         monitorService = Executors.newSingleThreadScheduledExecutor();
+        startMonitorBtn.setText("Stop Monitoring");
 
         // 3. 启动定时任务 (每 3 秒执行一次)
         monitorService.scheduleAtFixedRate(() -> {
-            if (mqManager == null) return;
+            RocketMQManager manager = mqManager;
+            if (manager == null) return;
 
             try {
-                // 直接使用传入的 topic 参数查询状态
-                TopicStatsTable stats = mqManager.getTopicStats(topic);
-
-                // 计算总 Offset (所有队列的最大 Offset 之和)
-                long totalOffset = stats.getOffsetTable().values().stream()
-                        .mapToLong(topicOffset -> topicOffset.getMaxOffset()).sum();
-
-                String time = new SimpleDateFormat("HH:mm:ss").format(new Date());
+                Map<String, TopicStatsTable> stats = manager.getTopicStats(pinnedSnapshot, MONITOR_INTERVAL_SECONDS * 1000L);
+                long now = System.currentTimeMillis();
+                Map<String, Double> rates = new LinkedHashMap<>();
+                Map<String, Long> offsets = new HashMap<>();
+                for (Map.Entry<String, TopicStatsTable> e : stats.entrySet()) {
+                    long sum = ThroughputTracker.sumMaxOffset(e.getValue());
+                    offsets.put(TOPIC_SERIES_PREFIX + e.getKey(), sum);
+                    rates.put(e.getKey(), throughputTracker.update(e.getKey(), sum, now));
+                }
+                MetricsStore store = metricsStore;
+                if (store != null) store.record(now, offsets);
 
                 // 更新 UI (必须在 JavaFX 线程)
-                Platform.runLater(() -> {
-                    // 保持图表只显示最近 20 个点，防止无限增长
-                    if (topicOffsetSeries.getData().size() > 20) {
-                        topicOffsetSeries.getData().remove(0);
-                    }
-                    topicOffsetSeries.getData().add(new XYChart.Data<>(time, totalOffset));
-                });
+                Platform.runLater(() -> applyRates(now, rates));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
             } catch (Exception e) {
-                // 忽略网络波动导致的单词查询失败，打印日志可选
-                // e.printStackTrace();
+                // 忽略网络波动导致的单次查询失败
             }
-        }, 0, 3, TimeUnit.SECONDS);
+        }, 0, MONITOR_INTERVAL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    private void applyRates(long time, Map<String, Double> rates) {
+        for (Map.Entry<String, Double> e : rates.entrySet()) {
+            if (!pinnedTopics.contains(e.getKey()) || e.getValue().isNaN()) continue;
+            rateHistory.computeIfAbsent(e.getKey(), k -> new TimeSeriesRing(MONITOR_HISTORY_POINTS))
+                    .add(time, e.getValue());
+        }
+        redrawRateChart();
+        refreshRateStats();
+    }
+
+    /**
+     * 把完整历史交给 CanvasChart，平移/缩放/降采样都由图表自己处理
+     */
+    private void redrawRateChart() {
+        for (Map.Entry<String, TimeSeriesRing> e : rateHistory.entrySet()) {
+            TimeSeriesRing.Window w = e.getValue().since(Long.MIN_VALUE);
+            rateChart.setSeries(e.getKey(), w.times, w.values);
+        }
+        rateChart.followNow();
+    }
+
+    // 统计基于窗口内的全部原始采样，而不是降采样后的点
+    private void refreshRateStats() {
+        long from = System.currentTimeMillis() - rateWindowMillis;
+        List<TopicRateStats> rows = new ArrayList<>();
+        for (String topic : pinnedTopics) {
+            TimeSeriesRing history = rateHistory.get(topic);
+            TimeSeriesRing.Window w = history == null ? null : history.since(from);
+            if (w == null || w.size() == 0) {
+                rows.add(new TopicRateStats(topic, Double.NaN, Double.NaN, Double.NaN, Double.NaN));
+                continue;
+            }
+            rows.add(new TopicRateStats(topic, w.values[w.size() - 1], w.min(), w.max(), w.avg()));
+        }
+        rateStatsTable.getItems().setAll(rows);
     }
 
     // --- Tab 3: Consumer Group (Reset Offset & DLQ) ---
@@ -305,6 +695,8 @@ public class RocketMQFXApp extends Application {
         VBox left = new VBox(10);
         left.setPadding(new Insets(10));
         ListView<String> groupList = new ListView<>();
+        // 可多选，一次重置多个组的位点
+        groupList.getSelectionModel().setSelectionMode(SelectionMode.MULTIPLE);
         Button refreshBtn = new Button("Refresh");
         refreshBtn.setOnAction(e -> loadGroups(groupList));
         left.getChildren().addAll(refreshBtn, groupList);
@@ -321,7 +713,7 @@ public class RocketMQFXApp extends Application {
         HBox actions = new HBox(10);
         Button checkBtn = new Button("Check Status");
         Button resetBtn = new Button("⚠️ Reset Offset");
-        Button dlqBtn = new Button("💀 Check DLQ");
+        Button dlqBtn = new Button("💀 DLQ Browser");
 
         actions.getChildren().addAll(checkBtn, resetBtn, dlqBtn);
 
@@ -337,89 +729,626 @@ public class RocketMQFXApp extends Application {
         });
 
         resetBtn.setOnAction(e -> {
-            String g = groupList.getSelectionModel().getSelectedItem();
-            if (g == null) {
+            List<String> selected = new ArrayList<>(groupList.getSelectionModel().getSelectedItems());
+            if (selected.isEmpty()) {
                 log("Select a group first");
                 return;
             }
-            showResetOffsetDialog(g);
+            showResetOffsetDialog(selected);
         });
 
         dlqBtn.setOnAction(e -> {
             String g = groupList.getSelectionModel().getSelectedItem();
             if (g == null) return;
-            checkDLQ(g);
+            showDlqBrowser(g);
         });
 
         tab.setContent(split);
         return tab;
     }
 
-    private void showResetOffsetDialog(String group) {
-        Dialog<ButtonType> dialog = new Dialog<>();
-        dialog.setTitle("Reset Offset: " + group);
-        dialog.setHeaderText("Select Topic and Time to rewind consumption.");
+    // --- Tab: Lag Overview (所有消费组的堆积) ---
+    private Tab createLagOverviewTab() {
+        Tab tab = new Tab("Lag Overview");
+        tab.setClosable(false);
+        VBox content = new VBox(10);
+        content.setPadding(new Insets(10));
 
-        ButtonType okBtn = new ButtonType("Reset", ButtonBar.ButtonData.OK_DONE);
-        dialog.getDialogPane().getButtonTypes().addAll(okBtn, ButtonType.CANCEL);
+        Button refreshBtn = new Button("Refresh");
+        refreshBtn.setOnAction(e -> refreshLagOverview());
+        CheckBox autoBox = new CheckBox("Auto (15s)");
+        lagAutoRefresh = new Timeline(new KeyFrame(Duration.seconds(15), e -> refreshLagOverview()));
+        lagAutoRefresh.setCycleCount(Timeline.INDEFINITE);
+        autoBox.selectedProperty().addListener((obs, o, on) -> {
+            if (on) {
+                refreshLagOverview();
+                lagAutoRefresh.play();
+            } else {
+                lagAutoRefresh.stop();
+            }
+        });
+        lagStatusLabel = new Label("");
+        HBox tools = new HBox(10, refreshBtn, autoBox, lagStatusLabel);
+
+        TableView<GroupLagRow> table = new TableView<>();
+        TableColumn<GroupLagRow, String> groupCol = new TableColumn<>("Group");
+        groupCol.setCellValueFactory(c -> new ReadOnlyStringWrapper(c.getValue().getGroup()));
+        groupCol.setPrefWidth(250);
+        TableColumn<GroupLagRow, Number> lagCol = new TableColumn<>("Total Lag");
+        lagCol.setCellValueFactory(c -> c.getValue().totalLagProperty());
+        lagCol.setPrefWidth(100);
+        TableColumn<GroupLagRow, String> worstCol = new TableColumn<>("Worst Queue");
+        worstCol.setCellValueFactory(c -> c.getValue().worstQueueProperty());
+        worstCol.setPrefWidth(250);
+        TableColumn<GroupLagRow, Number> worstLagCol = new TableColumn<>("Worst Queue Lag");
+        worstLagCol.setCellValueFactory(c -> c.getValue().worstQueueLagProperty());
+        TableColumn<GroupLagRow, Number> lastCol = new TableColumn<>("Last Consume");
+        lastCol.setCellValueFactory(c -> c.getValue().lastConsumeTimeProperty());
+        lastCol.setPrefWidth(150);
+        lastCol.setCellFactory(col -> new TableCell<GroupLagRow, Number>() {
+            @Override
+            protected void updateItem(Number item, boolean empty) {
+                super.updateItem(item, empty);
+                if (empty || item == null || item.longValue() <= 0) {
+                    setText(empty ? null : "-");
+                } else {
+                    setText(new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(new Date(item.longValue())));
+                }
+            }
+        });
+        TableColumn<GroupLagRow, String> errCol = new TableColumn<>("Error");
+        errCol.setCellValueFactory(c -> c.getValue().errorProperty());
+        errCol.setPrefWidth(200);
+        table.getColumns().addAll(Arrays.asList(groupCol, lagCol, worstCol, worstLagCol, lastCol, errCol));
+
+        // 默认按总堆积倒序，最落后的组排在最上面；lagData 带 extractor，堆积变化时自动重排
+        SortedList<GroupLagRow> sorted = new SortedList<>(lagData);
+        sorted.comparatorProperty().bind(table.comparatorProperty());
+        table.setItems(sorted);
+        lagCol.setSortType(TableColumn.SortType.DESCENDING);
+        table.getSortOrder().add(lagCol);
+
+        // 选中一个组时显示它的总堆积历史 (含从本地时序库恢复的部分)
+        lagChart = new CanvasChart("Total lag of selected group");
+        lagChart.setLiveWindow(HISTORY_RESTORE_MILLIS);
+        table.getSelectionModel().selectedItemProperty().addListener((obs, o, row) -> {
+            if (lagChartGroup != null) lagChart.removeSeries(lagChartGroup);
+            lagChartGroup = row == null ? null : row.getGroup();
+            redrawLagChart();
+        });
+        SplitPane split = new SplitPane(table, lagChart);
+        split.setOrientation(Orientation.VERTICAL);
+        split.setDividerPositions(0.65);
+        VBox.setVgrow(split, Priority.ALWAYS);
 
-        GridPane grid = new GridPane();
-        grid.setHgap(10);
-        grid.setVgap(10);
-        grid.setPadding(new Insets(20));
+        content.getChildren().addAll(tools, split);
+        tab.setContent(content);
+        return tab;
+    }
 
-        ComboBox<String> topicCombo = new ComboBox<>();
-        topicCombo.getItems().setAll(globalTopicData);
-        DatePicker datePicker = new DatePicker(LocalDate.now());
-        TextField timeField = new TextField("00:00:00");
+    /**
+     * 并行查询所有消费组的 examineConsumeStats (并发与超时由 RocketMQManager 扇出控制)，
+     * 每返回一个结果就合并到表格，不等全部完成。上一轮堆积最多的组最先查询。
+     */
+    private void refreshLagOverview() {
+        RocketMQManager manager = mqManager;
+        if (manager == null) return;
+        List<GroupLagRow> byLag = new ArrayList<>(lagData);
+        byLag.sort((a, b) -> Long.compare(b.getTotalLag(), a.getTotalLag()));
+        List<String> priority = new ArrayList<>();
+        for (GroupLagRow row : byLag) priority.add(row.getGroup());
+
+        tasks.run("lagOverview", "Lag Overview", () -> {
+            long start = System.currentTimeMillis();
+            SubscriptionGroupWrapper wrapper = manager.getAllSubscriptionGroups();
+            Set<String> groups = new LinkedHashSet<>();
+            if (wrapper != null && wrapper.getSubscriptionGroupTable() != null) {
+                groups.addAll(wrapper.getSubscriptionGroupTable().keySet());
+            }
+            Set<String> order = new LinkedHashSet<>();
+            for (String g : priority) if (groups.contains(g)) order.add(g);
+            order.addAll(groups);
+
+            AtomicInteger failed = new AtomicInteger();
+            Map<String, Long> lags = new ConcurrentHashMap<>();
+            List<CompletableFuture<ConsumeStats>> futures = new ArrayList<>();
+            for (String g : order) {
+                futures.add(manager.getConsumeStatsAsync(g, LAG_CALL_TIMEOUT_MS).whenComplete((stats, err) -> {
+                    if (err == null) {
+                        GroupLagRow.Snapshot snapshot = new GroupLagRow.Snapshot(stats);
+                        lags.put(LAG_SERIES_PREFIX + g, snapshot.totalLag);
+                        pendingLag.put(g, snapshot);
+                    } else {
+                        failed.incrementAndGet();
+                        Throwable cause = err.getCause() != null ? err.getCause() : err;
+                        pendingLagErrors.put(g, cause.getClass().getSimpleName() + ": " + cause.getMessage());
+                    }
+                    scheduleLagFlush();
+                }));
+            }
+            try {
+                for (CompletableFuture<ConsumeStats> f : futures) {
+                    try {
+                        f.get();
+                    } catch (Exception ignored) {
+                        // 失败已记录在 pendingLagErrors
+                    }
+                }
+            } finally {
+                // 任务被取消时同时取消还没返回的 RPC
+                for (CompletableFuture<ConsumeStats> f : futures) f.cancel(true);
+            }
+            long took = System.currentTimeMillis() - start;
+            MetricsStore store = metricsStore;
+            if (store != null) store.record(start, new HashMap<>(lags));
+            Platform.runLater(() -> {
+                recordLagHistory(start, lags);
+                // 已删除的消费组移出表格
+                lagRows.keySet().removeIf(g -> {
+                    if (groups.contains(g)) return false;
+                    lagData.remove(lagRows.get(g));
+                    return true;
+                });
+                lagStatusLabel.setText(groups.size() + " groups, " + failed.get() + " failed, " + took + " ms");
+            });
+        });
+    }
 
-        grid.add(new Label("Topic:"), 0, 0);
-        grid.add(topicCombo, 1, 0);
-        grid.add(new Label("Date:"), 0, 1);
-        grid.add(datePicker, 1, 1);
-        grid.add(new Label("Time:"), 0, 2);
-        grid.add(timeField, 1, 2);
+    private void recordLagHistory(long time, Map<String, Long> lags) {
+        for (Map.Entry<String, Long> e : lags.entrySet()) {
+            String group = e.getKey().substring(LAG_SERIES_PREFIX.length());
+            lagHistory.computeIfAbsent(group, k -> new TimeSeriesRing(MONITOR_HISTORY_POINTS)).add(time, e.getValue());
+        }
+        redrawLagChart();
+    }
 
-        dialog.getDialogPane().setContent(grid);
+    private void redrawLagChart() {
+        if (lagChartGroup == null) return;
+        TimeSeriesRing history = lagHistory.get(lagChartGroup);
+        if (history == null) {
+            lagChart.removeSeries(lagChartGroup);
+            return;
+        }
+        TimeSeriesRing.Window w = history.since(Long.MIN_VALUE);
+        lagChart.setSeries(lagChartGroup, w.times, w.values);
+        lagChart.followNow();
+    }
 
-        dialog.setResultConverter(btn -> {
-            if (btn == okBtn) {
+    // --- 本地时序库 ---
+    private void openMetricsStore(String addr) {
+        closeMetricsStore();
+        try {
+            MetricsStore store = new MetricsStore(addr, configManager.getMetricsRetentionDays());
+            store.setOnWriteError(e -> {
+                if (metricsStore == store) metricsStore = null;
+                logError("Metrics Store Write Failed, local history is no longer recorded", e);
+            });
+            long start = System.currentTimeMillis();
+            Map<String, MetricsStore.Series> history = store.read(start - HISTORY_RESTORE_MILLIS);
+            long took = System.currentTimeMillis() - start;
+            metricsStore = store;
+            Platform.runLater(() -> {
+                restoreHistory(history);
+                log("Restored " + history.size() + " series of local history in " + took + " ms");
+            });
+        } catch (Exception e) {
+            logError("Metrics Store Open Failed", e);
+        }
+    }
+
+    private void closeMetricsStore() {
+        MetricsStore store = metricsStore;
+        metricsStore = null;
+        if (store != null) store.close();
+    }
+
+    /**
+     * 用本地历史重建 Dashboard 与 Lag 的曲线: Topic 的 Offset 总和换算成相邻两点间的 TPS，
+     * 有历史的 Topic 自动固定到 Dashboard
+     */
+    private void restoreHistory(Map<String, MetricsStore.Series> history) {
+        for (String t : rateHistory.keySet()) rateChart.removeSeries(t);
+        rateHistory.clear();
+        lagHistory.clear();
+        for (Map.Entry<String, MetricsStore.Series> e : history.entrySet()) {
+            MetricsStore.Series s = e.getValue();
+            if (e.getKey().startsWith(TOPIC_SERIES_PREFIX)) {
+                String topic = e.getKey().substring(TOPIC_SERIES_PREFIX.length());
+                TimeSeriesRing ring = new TimeSeriesRing(MONITOR_HISTORY_POINTS);
+                for (int i = 1; i < s.size; i++) {
+                    long dt = s.times[i] - s.times[i - 1];
+                    long delta = s.values[i] - s.values[i - 1];
+                    if (dt <= 0 || dt > HISTORY_MAX_GAP_MILLIS || delta < 0) continue;
+                    ring.add(s.times[i], delta * 1000.0 / dt);
+                }
+                if (ring.size() == 0) continue;
+                rateHistory.put(topic, ring);
+                if (!pinnedTopics.contains(topic)) pinnedTopics.add(topic);
+            } else if (e.getKey().startsWith(LAG_SERIES_PREFIX)) {
+                TimeSeriesRing ring = new TimeSeriesRing(MONITOR_HISTORY_POINTS);
+                for (int i = 0; i < s.size; i++) ring.add(s.times[i], s.values[i]);
+                lagHistory.put(e.getKey().substring(LAG_SERIES_PREFIX.length()), ring);
+            }
+        }
+        redrawRateChart();
+        refreshRateStats();
+        redrawLagChart();
+    }
+
+    private void scheduleLagFlush() {
+        if (lagFlushScheduled.compareAndSet(false, true)) {
+            Platform.runLater(this::flushLag);
+        }
+    }
+
+    // 只在数值变化时写入行的 Property，未变化的行不会重绘
+    private void flushLag() {
+        lagFlushScheduled.set(false);
+        for (String g : new ArrayList<>(pendingLag.keySet())) {
+            GroupLagRow.Snapshot snapshot = pendingLag.remove(g);
+            if (snapshot != null) lagRow(g).apply(snapshot);
+        }
+        for (String g : new ArrayList<>(pendingLagErrors.keySet())) {
+            String err = pendingLagErrors.remove(g);
+            if (err != null) lagRow(g).setError(err);
+        }
+    }
+
+    private GroupLagRow lagRow(String group) {
+        GroupLagRow row = lagRows.get(group);
+        if (row == null) {
+            row = new GroupLagRow(group);
+            lagRows.put(group, row);
+            lagData.add(row);
+        }
+        return row;
+    }
+
+    /**
+     * 批量按时间重置位点: 先并行预览每个队列的当前/目标位点，确认后再并发执行，全程不占用 FX 线程
+     */
+    private void showResetOffsetDialog(List<String> groups) {
+        int dialogId = ++resetDialogSeq;
+        Dialog<Void> dialog = new Dialog<>();
+        dialog.initOwner(stage);
+        dialog.setTitle("Reset Offset");
+        dialog.setHeaderText("One target per line: group[,topic[,yyyy-MM-dd HH:mm:ss]]. "
+                + "Without a topic every topic the group consumes is reset; without a time the time below is used.\n"
+                + "Preview shows the per-queue change; nothing is modified until Apply.");
+        dialog.getDialogPane().getButtonTypes().add(ButtonType.CLOSE);
+        dialog.setResizable(true);
+
+        TextArea targetsArea = new TextArea(String.join("\n", groups));
+        targetsArea.setPrefRowCount(5);
+        DatePicker datePicker = new DatePicker(LocalDate.now());
+        TextField timeField = new TextField("00:00:00");
+        timeField.setPrefWidth(80);
+        Button previewBtn = new Button("Preview");
+        Button applyBtn = new Button("Apply");
+        applyBtn.setDisable(true);
+        Label statusLabel = new Label("");
+        HBox tools = new HBox(10, new Label("Date:"), datePicker, new Label("Time:"), timeField, previewBtn, applyBtn, statusLabel);
+
+        // 每个目标一行，Status 列显示预览错误或执行结果
+        Map<OffsetReset.Plan, String> planStatus = new HashMap<>();
+        TableView<OffsetReset.Plan> planTable = new TableView<>();
+        planTable.setPlaceholder(new Label("Run Preview to see the changes"));
+        TableColumn<OffsetReset.Plan, String> groupCol = new TableColumn<>("Group");
+        groupCol.setCellValueFactory(d -> new ReadOnlyStringWrapper(d.getValue().getTarget().getGroup()));
+        groupCol.setPrefWidth(180);
+        TableColumn<OffsetReset.Plan, String> topicCol = new TableColumn<>("Topic");
+        topicCol.setCellValueFactory(d -> new ReadOnlyStringWrapper(d.getValue().getTarget().getTopic()));
+        topicCol.setPrefWidth(180);
+        TableColumn<OffsetReset.Plan, String> timeCol = new TableColumn<>("Reset To");
+        SimpleDateFormat timeFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+        timeCol.setCellValueFactory(d -> new ReadOnlyStringWrapper(timeFormat.format(new Date(d.getValue().getTarget().getTimestamp()))));
+        TableColumn<OffsetReset.Plan, Number> queuesCol = new TableColumn<>("Queues");
+        queuesCol.setCellValueFactory(d -> new ReadOnlyObjectWrapper<>(d.getValue().getQueues().size()));
+        TableColumn<OffsetReset.Plan, Number> reconsumeCol = new TableColumn<>("Re-consume");
+        reconsumeCol.setCellValueFactory(d -> new ReadOnlyObjectWrapper<>(d.getValue().getReconsume()));
+        TableColumn<OffsetReset.Plan, Number> skipCol = new TableColumn<>("Skip");
+        skipCol.setCellValueFactory(d -> new ReadOnlyObjectWrapper<>(d.getValue().getSkipped()));
+        TableColumn<OffsetReset.Plan, String> planStatusCol = new TableColumn<>("Status");
+        planStatusCol.setCellValueFactory(d -> {
+            OffsetReset.Plan p = d.getValue();
+            String status = planStatus.get(p);
+            if (status == null) status = p.getError() != null ? "ERROR: " + p.getError() : p.getNote() != null ? p.getNote() : "Ready";
+            return new ReadOnlyStringWrapper(status);
+        });
+        planStatusCol.setPrefWidth(260);
+        planTable.getColumns().addAll(Arrays.asList(groupCol, topicCol, timeCol, queuesCol, reconsumeCol, skipCol, planStatusCol));
+
+        // 选中目标时显示每个队列的变化
+        TableView<OffsetReset.QueueChange> queueTable = new TableView<>();
+        queueTable.setPlaceholder(new Label("Select a target to see its queues"));
+        TableColumn<OffsetReset.QueueChange, String> brokerCol = new TableColumn<>("Broker");
+        brokerCol.setCellValueFactory(d -> new ReadOnlyStringWrapper(d.getValue().getQueue().getBrokerName()));
+        brokerCol.setPrefWidth(160);
+        TableColumn<OffsetReset.QueueChange, Number> queueIdCol = new TableColumn<>("Queue");
+        queueIdCol.setCellValueFactory(d -> new ReadOnlyObjectWrapper<>(d.getValue().getQueue().getQueueId()));
+        TableColumn<OffsetReset.QueueChange, String> currentCol = new TableColumn<>("Current");
+        currentCol.setCellValueFactory(d -> new ReadOnlyStringWrapper(
+                d.getValue().getCurrent() < 0 ? "-" : String.valueOf(d.getValue().getCurrent())));
+        TableColumn<OffsetReset.QueueChange, Number> targetCol = new TableColumn<>("New");
+        targetCol.setCellValueFactory(d -> new ReadOnlyObjectWrapper<>(d.getValue().getTarget()));
+        TableColumn<OffsetReset.QueueChange, Number> maxCol = new TableColumn<>("Max");
+        maxCol.setCellValueFactory(d -> new ReadOnlyObjectWrapper<>(d.getValue().getMaxOffset()));
+        TableColumn<OffsetReset.QueueChange, Number> deltaCol = new TableColumn<>("Delta");
+        deltaCol.setCellValueFactory(d -> new ReadOnlyObjectWrapper<>(d.getValue().getDelta()));
+        queueTable.getColumns().addAll(Arrays.asList(brokerCol, queueIdCol, currentCol, targetCol, maxCol, deltaCol));
+        planTable.getSelectionModel().selectedItemProperty().addListener((obs, o, p) ->
+                queueTable.getItems().setAll(p == null ? Collections.emptyList() : p.getQueues()));
+
+        // 预览所用的连接，Apply 必须在同一个集群上执行 (对话框不是模态的，窗口可能已切换集群)
+        RocketMQManager[] previewManager = {null};
+        // 改了输入就必须重新预览
+        Runnable invalidate = () -> applyBtn.setDisable(true);
+        targetsArea.textProperty().addListener((obs, o, n) -> invalidate.run());
+        datePicker.valueProperty().addListener((obs, o, n) -> invalidate.run());
+        timeField.textProperty().addListener((obs, o, n) -> invalidate.run());
+
+        previewBtn.setOnAction(e -> {
+            RocketMQManager manager = mqManager;
+            if (manager == null) return;
+            List<OffsetReset.Target> targets;
+            try {
+                SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+                sdf.setLenient(false);
+                long defaultTs = sdf.parse(datePicker.getValue() + " " + timeField.getText().trim()).getTime();
+                targets = OffsetReset.parse(targetsArea.getText(), defaultTs);
+            } catch (java.text.ParseException | RuntimeException ex) {
+                statusLabel.setText(ex instanceof IllegalArgumentException ? ex.getMessage() : "Time must be HH:mm:ss");
+                return;
+            }
+            if (targets.isEmpty()) return;
+            planStatus.clear();
+            planTable.getItems().clear();
+            previewBtn.setDisable(true);
+            applyBtn.setDisable(true);
+            statusLabel.setText("Previewing " + targets.size() + " targets...");
+            tasks.run("resetPreview:" + dialogId, "Preview offset reset", () -> {
+                long start = System.nanoTime();
                 try {
-                    String topic = topicCombo.getValue();
-                    LocalDate date = datePicker.getValue();
-                    String timeStr = timeField.getText();
-                    SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
-                    Date d = sdf.parse(date.toString() + " " + timeStr);
-
-                    mqManager.resetOffset(topic, group, d.getTime());
-                    log("Offset reset successfully for " + topic);
+                    List<OffsetReset.Plan> plans = manager.previewOffsetReset(targets,
+                            p -> Platform.runLater(() -> planTable.getItems().add(p)));
+                    long ready = 0, reconsume = 0, queues = 0;
+                    for (OffsetReset.Plan p : plans) {
+                        if (p.getError() != null) continue;
+                        ready++;
+                        reconsume += p.getReconsume();
+                        queues += p.getQueues().size();
+                    }
+                    String summary = ready + " / " + plans.size() + " targets, " + queues + " queues, "
+                            + reconsume + " messages to re-consume (" + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms)";
+                    long readyCount = ready;
+                    Platform.runLater(() -> {
+                        previewManager[0] = manager;
+                        statusLabel.setText(summary);
+                        applyBtn.setDisable(readyCount == 0);
+                    });
                 } catch (Exception ex) {
-                    logError("Reset Failed", ex);
+                    logError("Reset Preview Failed", ex);
+                } finally {
+                    Platform.runLater(() -> previewBtn.setDisable(false));
                 }
+            });
+        });
+
+        applyBtn.setOnAction(e -> {
+            RocketMQManager manager = previewManager[0];
+            if (manager == null) return;
+            if (manager != mqManager) {
+                applyBtn.setDisable(true);
+                statusLabel.setText("Connection changed since the preview, run Preview again");
+                return;
             }
-            return null;
+            List<OffsetReset.Plan> plans = new ArrayList<>(planTable.getItems());
+            long ready = plans.stream().filter(p -> p.getError() == null).count();
+            long reconsume = plans.stream().filter(p -> p.getError() == null).mapToLong(OffsetReset.Plan::getReconsume).sum();
+            Alert confirm = new Alert(Alert.AlertType.CONFIRMATION,
+                    "Reset " + ready + " targets on " + manager.getNamesrvAddr() + "? About " + reconsume
+                            + " messages will be consumed again.",
+                    ButtonType.OK, ButtonType.CANCEL);
+            confirm.initOwner(dialog.getDialogPane().getScene().getWindow());
+            if (confirm.showAndWait().orElse(ButtonType.CANCEL) != ButtonType.OK) return;
+            previewBtn.setDisable(true);
+            applyBtn.setDisable(true);
+            int[] done = {0}, failed = {0};
+            statusLabel.setText("Applying 0 / " + ready);
+            tasks.run("resetApply:" + dialogId, "Reset offsets", () -> {
+                long start = System.nanoTime();
+                try {
+                    manager.applyOffsetReset(plans, o -> Platform.runLater(() -> {
+                        planStatus.put(o.getPlan(), (o.isOk() ? "OK: " : "FAILED: ") + o.getMessage() + " (" + o.getMillis() + " ms)");
+                        done[0]++;
+                        if (!o.isOk()) failed[0]++;
+                        statusLabel.setText("Applying " + done[0] + " / " + ready + ", " + failed[0] + " failed");
+                        planTable.refresh();
+                    }));
+                    log("Offset reset finished in " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms");
+                } catch (Exception ex) {
+                    logError("Reset Failed", ex);
+                } finally {
+                    Platform.runLater(() -> previewBtn.setDisable(false));
+                }
+            });
         });
-        dialog.showAndWait();
+
+        SplitPane split = new SplitPane(planTable, queueTable);
+        split.setOrientation(Orientation.VERTICAL);
+        split.setDividerPositions(0.55);
+        VBox content = new VBox(10, targetsArea, tools, split);
+        VBox.setVgrow(split, Priority.ALWAYS);
+        content.setPrefSize(1000, 650);
+        dialog.getDialogPane().setContent(content);
+        dialog.show();
     }
 
-    private void checkDLQ(String group) {
-        String dlqTopic = mqManager.getDLQTopic(group);
-        new Thread(() -> {
+    /**
+     * 死信队列浏览: 并行扫描后按原 Topic / 重试次数 / 消息体特征聚合，选中若干组限速重投回原 Topic
+     */
+    private void showDlqBrowser(String group) {
+        RocketMQManager manager = mqManager;
+        tasks.run("dlq:" + group, "Open DLQ " + group, () -> {
+            DlqBrowser browser;
             try {
-                TopicStatsTable stats = mqManager.getTopicStats(dlqTopic);
-                long total = stats.getOffsetTable().values().stream().mapToLong(o -> o.getMaxOffset()).sum();
-                Platform.runLater(() -> {
-                    Alert alert = new Alert(Alert.AlertType.INFORMATION);
-                    alert.setTitle("DLQ Status");
-                    alert.setHeaderText("DLQ Topic: " + dlqTopic);
-                    alert.setContentText("Total Messages in DLQ: " + total +
-                            "\n\nTo re-consume, go to Consumer Tab and subscribe to " + dlqTopic);
-                    alert.showAndWait();
-                });
+                browser = manager.openDlq(group);
             } catch (Exception e) {
                 logError("DLQ Check Failed (Maybe no DLQ exists)", e);
+                return;
             }
-        }).start();
+            Platform.runLater(() -> showDlqDialog(browser));
+        });
+    }
+
+    private void showDlqDialog(DlqBrowser browser) {
+        Dialog<Void> dialog = new Dialog<>();
+        dialog.initOwner(stage);
+        dialog.setTitle("DLQ Browser");
+        dialog.setHeaderText("DLQ Topic: " + browser.getDlqTopic() + "\nMessages: " + browser.getTotal()
+                + " in " + browser.getQueueCount() + " queues (max - min offset)");
+        dialog.getDialogPane().getButtonTypes().add(ButtonType.CLOSE);
+        dialog.setResizable(true);
+
+        Button scanBtn = new Button("Scan");
+        Button cancelBtn = new Button("Cancel");
+        cancelBtn.setDisable(true);
+        TextField rateField = new TextField("200");
+        rateField.setPrefWidth(70);
+        TextField batchField = new TextField("16");
+        batchField.setPrefWidth(50);
+        Button resendBtn = new Button("Re-send Selected");
+        resendBtn.setDisable(true);
+        ProgressBar progress = new ProgressBar(0);
+        progress.setPrefWidth(200);
+        Label statusLabel = new Label("Scan to group the messages by original topic, retries and body");
+        HBox tools = new HBox(10, scanBtn, cancelBtn, new Separator(Orientation.VERTICAL),
+                new Label("Rate (msg/s, 0 = max):"), rateField, new Label("Batch:"), batchField, resendBtn);
+        HBox statusRow = new HBox(10, progress, statusLabel);
+
+        SimpleDateFormat timeFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+        TableView<DlqBrowser.Group> table = new TableView<>();
+        table.getSelectionModel().setSelectionMode(SelectionMode.MULTIPLE);
+        table.setPlaceholder(new Label("No scan results"));
+        TableColumn<DlqBrowser.Group, String> topicCol = new TableColumn<>("Original Topic");
+        topicCol.setCellValueFactory(d -> new ReadOnlyStringWrapper(
+                d.getValue().getOriginTopic().isEmpty() ? "(unknown)" : d.getValue().getOriginTopic()));
+        topicCol.setPrefWidth(180);
+        TableColumn<DlqBrowser.Group, Number> retriesCol = new TableColumn<>("Retries");
+        retriesCol.setCellValueFactory(d -> new ReadOnlyObjectWrapper<>(d.getValue().getReconsumeTimes()));
+        TableColumn<DlqBrowser.Group, Number> countCol = new TableColumn<>("Count");
+        countCol.setCellValueFactory(d -> new ReadOnlyObjectWrapper<>(d.getValue().getCount()));
+        TableColumn<DlqBrowser.Group, String> firstCol = new TableColumn<>("First");
+        firstCol.setCellValueFactory(d -> new ReadOnlyStringWrapper(timeFormat.format(new Date(d.getValue().getFirstStore()))));
+        firstCol.setPrefWidth(140);
+        TableColumn<DlqBrowser.Group, String> lastCol = new TableColumn<>("Last");
+        lastCol.setCellValueFactory(d -> new ReadOnlyStringWrapper(timeFormat.format(new Date(d.getValue().getLastStore()))));
+        lastCol.setPrefWidth(140);
+        TableColumn<DlqBrowser.Group, String> sampleCol = new TableColumn<>("Body Sample");
+        sampleCol.setCellValueFactory(d -> new ReadOnlyStringWrapper(d.getValue().getSample()));
+        sampleCol.setPrefWidth(360);
+        table.getColumns().addAll(Arrays.asList(topicCol, retriesCol, countCol, firstCol, lastCol, sampleCol));
+
+        TextArea detailArea = new TextArea();
+        detailArea.setEditable(false);
+        table.getSelectionModel().selectedItemProperty().addListener((obs, o, g) -> {
+            if (g != null && !g.getSampleMsgId().isEmpty()) showMessageDetail(g.getSampleMsgId(), detailArea);
+        });
+
+        SearchHandle[] running = {null};
+        boolean[] resending = {false};
+        // 进行中每 500ms 刷新一次进度和聚合表格，结束后停止
+        Timeline poll = new Timeline();
+        Runnable refresh = () -> {
+            boolean scanning = !resending[0];
+            long total = Math.max(1, browser.getTotal());
+            progress.setProgress(Math.min(1, (double) browser.getScanned() / total));
+            if (scanning) {
+                List<DlqBrowser.Group> selected = new ArrayList<>(table.getSelectionModel().getSelectedItems());
+                table.getItems().setAll(browser.getGroups());
+                for (DlqBrowser.Group g : selected) table.getSelectionModel().select(g);
+                statusLabel.setText("Scanned " + browser.getScanned() + " / " + browser.getTotal()
+                        + ", " + table.getItems().size() + " groups");
+            } else {
+                statusLabel.setText("Scanned " + browser.getScanned() + " / " + browser.getTotal()
+                        + ", re-sent " + browser.getSent() + ", failed " + browser.getFailed());
+            }
+        };
+        poll.getKeyFrames().add(new KeyFrame(Duration.millis(500), e -> refresh.run()));
+        poll.setCycleCount(Timeline.INDEFINITE);
+
+        Consumer<SearchHandle> track = handle -> {
+            running[0] = handle;
+            scanBtn.setDisable(true);
+            resendBtn.setDisable(true);
+            cancelBtn.setDisable(false);
+            poll.play();
+            long start = System.nanoTime();
+            handle.done().whenComplete((v, t) -> Platform.runLater(() -> {
+                if (running[0] != handle) return;
+                running[0] = null;
+                poll.stop();
+                refresh.run();
+                scanBtn.setDisable(false);
+                resendBtn.setDisable(table.getItems().isEmpty());
+                cancelBtn.setDisable(true);
+                String what = resending[0] ? "DLQ re-send" : "DLQ scan";
+                String result = (handle.isCancelled() ? " cancelled: " : " finished: ") + statusLabel.getText()
+                        + (handle.getFailedParts() > 0 ? ", " + handle.getFailedParts() + " part(s) failed: " + handle.getLastError() : "")
+                        + " (" + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms)";
+                statusLabel.setText(what + result);
+                log(what + " " + browser.getDlqTopic() + result);
+            }));
+        };
+
+        scanBtn.setOnAction(e -> {
+            resending[0] = false;
+            track.accept(browser.scan());
+        });
+        cancelBtn.setOnAction(e -> browser.cancel());
+        resendBtn.setOnAction(e -> {
+            List<DlqBrowser.Group> selected = new ArrayList<>(table.getSelectionModel().getSelectedItems());
+            Set<DlqBrowser.Key> keys = new HashSet<>();
+            long count = 0;
+            for (DlqBrowser.Group g : selected) {
+                if (g.getOriginTopic().isEmpty()) continue; // 不知道原 Topic，无处可投
+                keys.add(g.getKey());
+                count += g.getCount();
+            }
+            if (keys.isEmpty()) {
+                statusLabel.setText("Select groups with a known original topic");
+                return;
+            }
+            int rate, batch;
+            try {
+                rate = Integer.parseInt(rateField.getText().trim());
+                batch = Integer.parseInt(batchField.getText().trim());
+            } catch (NumberFormatException ex) {
+                statusLabel.setText("Rate and batch must be integers");
+                return;
+            }
+            Alert confirm = new Alert(Alert.AlertType.CONFIRMATION,
+                    "Re-send about " + count + " messages from " + keys.size() + " groups to their original topics?"
+                            + "\nThe DLQ is scanned again; the messages stay in the DLQ.",
+                    ButtonType.OK, ButtonType.CANCEL);
+            confirm.initOwner(dialog.getDialogPane().getScene().getWindow());
+            if (confirm.showAndWait().orElse(ButtonType.CANCEL) != ButtonType.OK) return;
+            resending[0] = true;
+            track.accept(browser.resend(keys, rate, batch));
+        });
+        dialog.setOnHidden(e -> {
+            poll.stop();
+            browser.cancel();
+        });
+
+        SplitPane split = new SplitPane(table, detailArea);
+        split.setOrientation(Orientation.VERTICAL);
+        split.setDividerPositions(0.65);
+        VBox content = new VBox(10, tools, statusRow, split);
+        VBox.setVgrow(split, Priority.ALWAYS);
+        content.setPrefSize(1100, 650);
+        dialog.getDialogPane().setContent(content);
+        dialog.show();
     }
 
 
@@ -459,38 +1388,93 @@ public class RocketMQFXApp extends Application {
                 filterType, subField, actionBtn, clearBtn
         );
 
+        // [新增] Peek 模式: 用工具拉取消费者按位点只读浏览，不注册消费组、不提交位点
+        ComboBox<String> modeCombo = new ComboBox<>();
+        modeCombo.getItems().addAll("Consumer Group", "Peek (read-only)");
+        modeCombo.setValue("Consumer Group");
+        ComboBox<String> peekFrom = new ComboBox<>();
+        peekFrom.getItems().addAll("Latest", "Earliest", "Offset", "Time");
+        peekFrom.setValue("Latest");
+        TextField peekFromField = new TextField();
+        peekFromField.setPromptText("Offset or yyyy-MM-dd HH:mm:ss");
+        peekFromField.setPrefWidth(170);
+        TextField peekBatchField = new TextField("32");
+        peekBatchField.setPrefWidth(50);
+        CheckBox followBox = new CheckBox("Follow");
+        followBox.setSelected(true);
+        HBox peekRow = new HBox(10, new Label("Mode:"), modeCombo, new Label("From:"), peekFrom, peekFromField,
+                new Label("Batch:"), peekBatchField, followBox);
+        SimpleDateFormat peekTimeFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+        peekFrom.valueProperty().addListener((obs, o, n) -> {
+            if ("Time".equals(n) && peekFromField.getText().trim().isEmpty()) {
+                peekFromField.setText(peekTimeFormat.format(new Date(System.currentTimeMillis() - 600_000L)));
+            }
+        });
+        // 按当前模式启用/禁用输入 (运行中由 setInputsDisable 整体锁定)
+        Runnable applyConsumerMode = () -> {
+            boolean peek = !"Consumer Group".equals(modeCombo.getValue());
+            groupField.setDisable(peek);
+            setInputsDisable(!peek, peekFrom, peekBatchField, followBox);
+            String from = peekFrom.getValue();
+            peekFromField.setDisable(!peek || "Latest".equals(from) || "Earliest".equals(from));
+        };
+        modeCombo.valueProperty().addListener((obs, o, n) -> applyConsumerMode.run());
+        peekFrom.valueProperty().addListener((obs, o, n) -> applyConsumerMode.run());
+        applyConsumerMode.run();
+        Control[] consumerInputs = {modeCombo, groupField, consumerTopicCombo, filterType, subField,
+                peekFrom, peekFromField, peekBatchField, followBox};
+        Runnable unlockConsumerInputs = () -> {
+            actionBtn.setText("Start");
+            actionBtn.setStyle(""); // 恢复默认样式
+            setInputsDisable(false, consumerInputs);
+            applyConsumerMode.run();
+        };
+
+        consumerStatsLabel = new Label("Captured: 0 | Dropped: 0 | Evicted: 0");
+        consumerDrainTimer = new AnimationTimer() {
+            @Override
+            public void handle(long now) {
+                drainConsumerQueue();
+            }
+        };
+
         consumerTable = createMessageTable();
-        ObservableList<MessageModel> consumerData = FXCollections.observableArrayList();
-        consumerTable.setItems(consumerData);
+        try {
+            captureStore = new CaptureStore(configManager.getCaptureSegmentMb() * 1024 * 1024,
+                    configManager.getCaptureDiskBudgetMb() * 1024 * 1024);
+            capturedMessages = new CapturedMessageList(captureStore);
+            consumerTable.setItems(capturedMessages);
+            // 抓取列表只读且按需从磁盘解码，默认排序会把全部记录读进堆再 set 回去 (不支持)，禁止排序
+            for (TableColumn<MessageModel, ?> col : consumerTable.getColumns()) col.setSortable(false);
+            consumerTable.setSortPolicy(t -> false);
+            captureIndex = new MessageIndex();
+            captureIndex.setOnIndexed(this::refreshCaptureFilter);
+        } catch (Exception e) {
+            logError("Capture Store Init Failed", e);
+        }
+
+        // [新增] 搜索框: 输入停顿 200ms 后查倒排索引，结果替换表格内容
+        TextField captureSearchField = new TextField();
+        captureSearchField.setPromptText("Search captured messages (body / tag / key / msgId)");
+        HBox.setHgrow(captureSearchField, Priority.ALWAYS);
+        captureSearchLabel = new Label();
+        PauseTransition captureSearchDelay = new PauseTransition(Duration.millis(200));
+        captureSearchDelay.setOnFinished(e -> applyCaptureQuery(captureSearchField.getText()));
+        captureSearchField.textProperty().addListener((obs, o, n) -> captureSearchDelay.playFromStart());
+        HBox captureSearchRow = new HBox(10, new Label("Search:"), captureSearchField, captureSearchLabel);
         addContextMenu(consumerTable); // 确保右键菜单已添加
         consumerTable.setRowFactory(tv -> new TableRow<MessageModel>() {
             @Override
             protected void updateItem(MessageModel item, boolean empty) {
                 super.updateItem(item, empty);
-
-                if (item == null || empty) {
-                    setStyle("");
-                } else {
-                    // 计算当前时间与消息到达时间的差值
-                    long diff = System.currentTimeMillis() - item.getLocalReceivedTime();
-
-                    // 如果是 3 秒内收到的消息，背景设为淡绿色 (LightGreen)
-                    if (diff < 3000) {
-                        // -fx-control-inner-background 是 JavaFX 表格单元格的标准背景色变量
-                        // 也可以直接用 -fx-background-color: #90EE90;
-                        setStyle("-fx-control-inner-background: #b3ffb3; -fx-background-color: #b3ffb3;");
-                    } else {
-                        // 超过 3 秒，恢复默认样式
-                        setStyle("");
-                    }
-                }
+                // 3 秒内收到的消息背景设为淡绿色，到期后只重置这一行
+                consumerHighlighter.apply(this, empty ? null : item, item == null ? 0L : item.getLocalReceivedTime());
             }
         });
         // [核心修改] 按钮点击逻辑：Start / Stop 切换
         actionBtn.setOnAction(e -> {
             // 1. 如果当前是 "Start"，执行启动逻辑
             if (actionBtn.getText().equals("Start")) {
-                startStyleRefresher();
                 String g = groupField.getText();
                 String t = consumerTopicCombo.getEditor().getText();
                 if (t == null || t.isEmpty()) t = consumerTopicCombo.getValue();
@@ -503,33 +1487,20 @@ public class RocketMQFXApp extends Application {
                 }
 
                 String finalT = t;
+                if (!"Consumer Group".equals(modeCombo.getValue())) {
+                    startPeek(finalT, sub, isSql, peekFrom.getValue(), peekFromField.getText(), peekBatchField.getText(),
+                            followBox.isSelected(), peekTimeFormat, actionBtn, consumerInputs, unlockConsumerInputs);
+                    return;
+                }
 
                 // 锁定 UI，防止运行时修改参数
-                setInputsDisable(true, groupField, consumerTopicCombo, filterType, subField);
+                setInputsDisable(true, consumerInputs);
+                consumerDrainTimer.start();
 
-                new Thread(() -> {
+                tasks.run("consumer:start", "Start Consumer", () -> {
                     try {
-                        mqManager.startConsumer(g, finalT, sub, isSql, msg -> {
-                            Platform.runLater(() -> {
-                                String offsetMsgId;
-                                try {
-                                    // 利用 StoreHost (Broker地址) 和 CommitLogOffset (物理偏移量) 计算 ID
-                                    offsetMsgId = MessageDecoder.createMessageId(msg.getStoreHost(), msg.getCommitLogOffset());
-                                } catch (Exception e2) {
-                                    // 万一计算失败（极少见），降级使用默认 ID
-                                    offsetMsgId = msg.getMsgId();
-                                }
-                                ObservableList<MessageModel> items = consumerTable.getItems();
-                                items.add(0, new MessageModel(
-                                        offsetMsgId, msg.getTopic(), msg.getTags(),
-                                        new SimpleDateFormat("HH:mm:ss").format(new Date()),
-                                        new String(msg.getBody())
-                                ));
-                                if (items.size() > MAX_CONSUMER_RECORDS) {
-                                    items.remove(items.size() - 1); // 丢弃最旧的消息，避免内存无限增长
-                                }
-                            });
-                        });
+                        // 回调线程只入队，不再逐条 runLater
+                        mqManager.startConsumer(g, finalT, sub, isSql, consumerIngestQueue::offer);
 
                         Platform.runLater(() -> {
                             log("Consumer Started: " + finalT);
@@ -540,37 +1511,208 @@ public class RocketMQFXApp extends Application {
                     } catch (Exception ex) {
                         logError("Start Consumer Failed", ex);
                         // 失败需恢复 UI
-                        Platform.runLater(() -> setInputsDisable(false, groupField, consumerTopicCombo, filterType, subField));
+                        Platform.runLater(() -> {
+                            consumerDrainTimer.stop();
+                            unlockConsumerInputs.run();
+                        });
                     }
-                }).start();
+                });
 
+            } else if (activePeek != null) {
+                // Peek 取消后由 done 回调恢复界面
+                activePeek.cancel();
             } else {
                 // 2. 如果当前是 "Stop"，执行停止逻辑
-                new Thread(() -> {
+                tasks.run("consumer:stop", "Stop Consumer", () -> {
                     try {
                         mqManager.stopConsumer();
                         Platform.runLater(() -> {
+                            // 把停止前已入队的消息刷进表格后再停掉 pulse
+                            drainConsumerQueue();
+                            consumerDrainTimer.stop();
                             log("Consumer Stopped.");
-                            actionBtn.setText("Start");
-                            actionBtn.setStyle(""); // 恢复默认样式
                             // 解锁 UI
-                            setInputsDisable(false, groupField, consumerTopicCombo, filterType, subField);
+                            unlockConsumerInputs.run();
                         });
-                        if (styleRefreshService != null) styleRefreshService.shutdownNow();
                     } catch (Exception ex) {
                         logError("Stop Consumer Failed", ex);
                     }
-                }).start();
+                });
             }
         });
 
-        clearBtn.setOnAction(e -> consumerTable.getItems().clear());
+        clearBtn.setOnAction(e -> {
+            consumerIngestQueue.clear();
+            if (captureStore != null) {
+                captureStore.clear();
+                captureIndex.clear();
+                captureIndex.evictBefore(captureStore.getFirstSeq());
+                capturedMessages.sync();
+                if (captureQuery != null) applyCaptureQuery(captureQuery);
+                updateConsumerStats();
+            }
+        });
 
-        content.getChildren().addAll(controls, consumerTable);
+        content.getChildren().addAll(controls, peekRow, captureSearchRow, consumerTable, consumerStatsLabel);
         tab.setContent(content);
         return tab;
     }
 
+    /**
+     * 启动只读浏览；消息与消费组模式一样经 consumerIngestQueue 进入抓取表格。
+     * 读完 (非 Follow) 或被 Stop 取消后恢复界面。
+     */
+    private void startPeek(String topic, String sub, boolean isSql, String from, String fromText, String batchText,
+                           boolean follow, SimpleDateFormat timeFormat, Button actionBtn, Control[] inputs,
+                           Runnable unlockInputs) {
+        PeekSession.Start start;
+        long value = 0;
+        int batch;
+        try {
+            batch = Integer.parseInt(batchText.trim());
+            if (batch < 1 || batch > MAX_PEEK_BATCH) throw new NumberFormatException();
+            if ("Earliest".equals(from)) {
+                start = PeekSession.Start.EARLIEST;
+            } else if ("Offset".equals(from)) {
+                start = PeekSession.Start.OFFSET;
+                value = Long.parseLong(fromText.trim());
+            } else if ("Time".equals(from)) {
+                start = PeekSession.Start.TIMESTAMP;
+                value = timeFormat.parse(fromText.trim()).getTime();
+            } else {
+                start = PeekSession.Start.LATEST;
+            }
+        } catch (Exception ex) {
+            log("ERR: Invalid peek start or batch (expected offset or yyyy-MM-dd HH:mm:ss, batch 1-" + MAX_PEEK_BATCH + ")");
+            return;
+        }
+        long startValue = value;
+        setInputsDisable(true, inputs);
+        consumerDrainTimer.start();
+        tasks.run("consumer:start", "Start Peek", () -> {
+            try {
+                PeekSession session = mqManager.peek(topic, sub, isSql, start, startValue, batch, follow, consumerIngestQueue);
+                Platform.runLater(() -> {
+                    activePeek = session;
+                    log("Peek Started: " + topic + " from " + from.toLowerCase() + (follow ? " (follow)" : ""));
+                    actionBtn.setText("Stop");
+                    actionBtn.setStyle("-fx-background-color: #ff6666; -fx-text-fill: white;");
+                    session.done().whenComplete((v, t) -> Platform.runLater(() -> {
+                        if (activePeek != session) return;
+                        activePeek = null;
+                        drainConsumerQueue();
+                        consumerDrainTimer.stop();
+                        long first = session.getFirstMessageMillis();
+                        log("Peek " + (session.isCancelled() ? "stopped" : "finished") + ": " + session.getReceived()
+                                + " messages" + (first >= 0 ? ", first after " + first + " ms" : "")
+                                + (session.getFailedQueues() > 0 ? ", " + session.getFailedQueues()
+                                + " queue(s) failed: " + session.getLastError() : ""));
+                        unlockInputs.run();
+                    }));
+                });
+            } catch (Exception ex) {
+                logError("Start Peek Failed", ex);
+                Platform.runLater(() -> {
+                    consumerDrainTimer.stop();
+                    unlockInputs.run();
+                });
+            }
+        });
+    }
+
+    // 正在进行的 Peek 属于当前连接，切换或断开集群时取消 (界面由 done 回调恢复)
+    private void cancelPeek() {
+        PeekSession peek = activePeek;
+        if (peek != null) peek.cancel();
+    }
+
+    /**
+     * 每个 FX pulse 调用一次：把队列里的消息批量写入 CaptureStore，再一次性通知表格。
+     */
+    private void drainConsumerQueue() {
+        if (captureStore == null) return;
+        long start = System.nanoTime();
+        consumerDrainBuffer.clear();
+        int n = consumerIngestQueue.drainTo(consumerDrainBuffer, MAX_APPEND_PER_PULSE);
+        if (n > 0) {
+            // 逐条写入，一条失败不影响同批的其他消息；失败的计入 Dropped
+            int failed = 0;
+            Exception firstError = null;
+            for (MessageExt msg : consumerDrainBuffer) {
+                try {
+                    long seq = captureStore.append(msg);
+                    captureIndex.submit(seq, msg);
+                } catch (Exception e) {
+                    failed++;
+                    if (firstError == null) firstError = e;
+                }
+            }
+            if (failed > 0) {
+                captureWriteFailed += failed;
+                logError("Capture Write Failed (" + failed + " of " + n + " messages dropped)", firstError);
+            }
+            captureIndex.evictBefore(captureStore.getFirstSeq());
+            consumerDrainBuffer.clear();
+            capturedMessages.sync();
+            updateConsumerStats();
+            MetricsRegistry.get().timer("fx.consumerDrain").recordNanos(System.nanoTime() - start);
+            MetricsRegistry.get().counter("consumer.received").add(n);
+        }
+    }
+
+    // 在 FX 线程调用；空查询恢复显示全部
+    private void applyCaptureQuery(String text) {
+        if (captureIndex == null) return;
+        String query = text == null || text.trim().isEmpty() ? null : text.trim();
+        captureQuery = query;
+        if (query == null) {
+            capturedMessages.setFilter(null);
+            captureSearchLabel.setText("");
+            return;
+        }
+        tasks.run("capture-search:" + query, "Search captures", () -> {
+            long start = System.nanoTime();
+            long[] hits = captureIndex.search(query, CAPTURE_SEARCH_LIMIT);
+            long micros = (System.nanoTime() - start) / 1000;
+            Platform.runLater(() -> showCaptureHits(query, hits, micros));
+        });
+    }
+
+    // 索引线程每处理完一批调用一次，搜索生效时重算结果；未应用到界面前不再重复计算
+    private void refreshCaptureFilter() {
+        String query = captureQuery;
+        if (query == null || !captureFilterScheduled.compareAndSet(false, true)) return;
+        long start = System.nanoTime();
+        long[] hits = captureIndex.search(query, CAPTURE_SEARCH_LIMIT);
+        long micros = (System.nanoTime() - start) / 1000;
+        Platform.runLater(() -> {
+            captureFilterScheduled.set(false);
+            showCaptureHits(query, hits, micros);
+        });
+    }
+
+    private void showCaptureHits(String query, long[] hits, long micros) {
+        // 结果返回前查询已经变了
+        if (!query.equals(captureQuery)) return;
+        if (hits == null) {
+            capturedMessages.setFilter(null);
+            captureSearchLabel.setText("Query too short");
+            return;
+        }
+        capturedMessages.setFilter(hits);
+        captureSearchLabel.setText(String.format("%d match%s%s (%.1f ms)", hits.length, hits.length == 1 ? "" : "es",
+                hits.length >= CAPTURE_SEARCH_LIMIT ? ", newest shown" : "", micros / 1000.0));
+    }
+
+    private void updateConsumerStats() {
+        PeekSession peek = activePeek;
+        consumerStatsLabel.setText("Captured: " + captureStore.size()
+                + " | Dropped: " + (consumerIngestQueue.getDropped() + captureWriteFailed)
+                + " | Evicted: " + captureStore.getEvicted()
+                + " | Disk: " + (captureStore.getDiskUsage() >> 20) + " MB"
+                + (peek == null ? "" : " | Peek: " + peek.getReceived() + " msgs, " + peek.getActiveQueues() + " queues reading"));
+    }
+
     // [新增辅助方法] 批量禁用/启用控件
     private void setInputsDisable(boolean disable, Control... controls) {
         for (Control c : controls) {
@@ -579,7 +1721,7 @@ public class RocketMQFXApp extends Application {
     }
 
     private void checkGroupStatus(String group, TextArea area) {
-        new Thread(() -> {
+        tasks.run("checkGroupStatus:" + group, "Group Status " + group, () -> {
             StringBuilder sb = new StringBuilder();
             try {
                 ConsumerConnection conn = mqManager.getConsumerConnection(group);
@@ -592,13 +1734,17 @@ public class RocketMQFXApp extends Application {
                 sb.append("Error: ").append(e.getMessage());
             }
             Platform.runLater(() -> area.setText(sb.toString()));
-        }).start();
+        });
     }
 
     private void loadGroups(ListView<String> list) {
-        new Thread(() -> {
+        tasks.run("loadGroups", "Load Groups", () -> {
             try {
-                SubscriptionGroupWrapper wrapper = mqManager.getAllSubscriptionGroups();
+                SubscriptionGroupWrapper wrapper = mqManager.getAllSubscriptionGroups(true);
+                Map<String, String> brokerErrors = mqManager.getGroupDiscoveryErrors();
+                if (!brokerErrors.isEmpty()) {
+                    log("Groups incomplete, brokers failed: " + brokerErrors);
+                }
                 if (wrapper == null || wrapper.getSubscriptionGroupTable() == null) {
                     Platform.runLater(() -> {
                         list.getItems().clear();
@@ -606,54 +1752,103 @@ public class RocketMQFXApp extends Application {
                     });
                     return;
                 }
+                Set<String> names = new HashSet<>();
+                for (SubscriptionGroupConfig c : wrapper.getSubscriptionGroupTable().values())
+                    names.add(c.getGroupName());
                 Platform.runLater(() -> {
-                    list.getItems().clear();
-                    for (SubscriptionGroupConfig c : wrapper.getSubscriptionGroupTable().values())
-                        list.getItems().add(c.getGroupName());
+                    // 只应用增删，保留选中项
+                    SetDiff<String> diff = SetDiff.between(new HashSet<>(list.getItems()), names);
+                    list.getItems().removeAll(diff.getRemoved());
+                    List<String> added = new ArrayList<>(diff.getAdded());
+                    Collections.sort(added);
+                    list.getItems().addAll(added);
                 });
             } catch (Exception e) {
                 logError("Fetch Groups Failed", e);
             }
-        }).start();
+        });
     }
 
     private void refreshTopics() {
+        refreshTopics(true);
+    }
+
+    /**
+     * @param force false 时优先用元数据缓存 (切换到池中已有的连接时)
+     */
+    private void refreshTopics(boolean force) {
         if (mqManager == null) return;
-        new Thread(() -> {
+        tasks.run("refreshTopics", "Refresh Topics", () -> {
             try {
-                // 获取最新的 Topic 集合
-                Set<String> topics = mqManager.getTopicList();
-
-                // [修改] 更新全局 ObservableList
-                Platform.runLater(() -> {
-                    // 先清空再添加，触发监听事件
-                    globalTopicData.setAll(topics);
-
-                    // 同时更新 Topic 管理页面的列表 (如果有的话)
-                    if (topicListView != null) {
-                        topicListView.getItems().setAll(topics);
-                    }
-
-                    log("Topics refreshed: " + topics.size());
-                });
+                // 拉取最新列表，但只把增删部分交给界面
+                SetDiff<String> diff = mqManager.syncTopics(force);
+                Platform.runLater(() -> applyTopicDiff(diff));
             } catch (Exception e) {
                 logError("Fetch Topics Error", e);
             }
-        }).start();
+        });
+    }
+
+    /**
+     * 只对全局列表和 Topic 页列表做增删，不 setAll，保留选中项和滚动位置
+     */
+    private void applyTopicDiff(SetDiff<String> diff) {
+        if (diff.isInitial()) {
+            List<String> all = new ArrayList<>(diff.getCurrent());
+            Collections.sort(all);
+            globalTopicData.setAll(all);
+            rebuildTopicIndex();
+            if (topicListView != null) topicListView.getItems().setAll(all);
+            if (connectStartedNanos != 0) {
+                // 从点击 Connect 到 Topic 列表可用的总耗时
+                long connectNanos = System.nanoTime() - connectStartedNanos;
+                log("Connected with " + all.size() + " topics in " + TimeUnit.NANOSECONDS.toMillis(connectNanos) + " ms");
+                MetricsRegistry.get().timer("startup.connect").recordNanos(connectNanos);
+                connectStartedNanos = 0;
+            } else {
+                log("Topics refreshed: " + all.size());
+            }
+            return;
+        }
+        if (diff.isEmpty()) {
+            log("Topics refreshed: no changes (" + globalTopicData.size() + ")");
+            return;
+        }
+        List<String> added = new ArrayList<>(diff.getAdded());
+        Collections.sort(added);
+        // removeAll 对参数集合做 contains，传 HashSet 保证是线性的
+        globalTopicData.removeAll(diff.getRemoved());
+        insertSorted(globalTopicData, added);
+        // 下拉框的过滤结果在索引重建完成后按当前输入重新查询
+        rebuildTopicIndex();
+        if (topicListView != null) {
+            topicListView.getItems().removeAll(diff.getRemoved());
+            insertSorted(topicListView.getItems(), added);
+        }
+        log("Topics refreshed: " + globalTopicData.size() + " (+" + added.size() + " -" + diff.getRemoved().size() + ")");
+    }
+
+    // 逐个插入到有序列表的对应位置，保持排序，列表的选中项不受影响
+    private static void insertSorted(List<String> sorted, List<String> items) {
+        for (String t : items) {
+            int pos = Collections.binarySearch(sorted, t);
+            if (pos < 0) sorted.add(-pos - 1, t);
+        }
     }
 
     // ... (Other Tabs like Producer/Topic/Query are similar to previous version, kept brief for space)
 
     private TableView<MessageModel> createMessageTable() {
         TableView<MessageModel> table = new TableView<>();
+        // MessageModel 不再持有 Property，单元格渲染时才解码
         TableColumn<MessageModel, String> id = new TableColumn<>("Msg ID");
-        id.setCellValueFactory(new PropertyValueFactory<>("msgId"));
+        id.setCellValueFactory(c -> new ReadOnlyStringWrapper(c.getValue().getMsgId()));
         TableColumn<MessageModel, String> tag = new TableColumn<>("Tag");
-        tag.setCellValueFactory(new PropertyValueFactory<>("tag"));
+        tag.setCellValueFactory(c -> new ReadOnlyStringWrapper(c.getValue().getTag()));
         TableColumn<MessageModel, String> time = new TableColumn<>("Time");
-        time.setCellValueFactory(new PropertyValueFactory<>("time"));
+        time.setCellValueFactory(c -> new ReadOnlyStringWrapper(c.getValue().getTime()));
         TableColumn<MessageModel, String> body = new TableColumn<>("Body");
-        body.setCellValueFactory(new PropertyValueFactory<>("body"));
+        body.setCellValueFactory(c -> new ReadOnlyStringWrapper(c.getValue().getBodyPreview()));
 
         id.setPrefWidth(150);
         body.setPrefWidth(400);
@@ -672,14 +1867,18 @@ public class RocketMQFXApp extends Application {
         newTopicField.setPromptText("New Topic Name");
         Button createBtn = new Button("Create");
         Button refreshBtn = new Button("Refresh");
-        tools.getChildren().addAll(newTopicField, createBtn, refreshBtn);
+        Button bulkBtn = new Button("Bulk Create...");
+        bulkBtn.setOnAction(e -> showProvisionDialog());
+        tools.getChildren().addAll(newTopicField, createBtn, refreshBtn, bulkBtn);
 
         topicListView = new ListView<>();
+        // 页签是延迟构建的，先放入已加载的 Topic
+        topicListView.getItems().setAll(globalTopicData);
 
         createBtn.setOnAction(e -> {
             String t = newTopicField.getText();
             if (t.isEmpty()) return;
-            new Thread(() -> {
+            tasks.run("createTopic:" + t, "Create Topic " + t, () -> {
                 try {
                     mqManager.createTopic(t);
                     log("Created: " + t);
@@ -687,7 +1886,7 @@ public class RocketMQFXApp extends Application {
                 } catch (Exception ex) {
                     logError("Create Fail", ex);
                 }
-            }).start();
+            });
         });
         refreshBtn.setOnAction(e -> refreshTopics());
 
@@ -696,6 +1895,112 @@ public class RocketMQFXApp extends Application {
         return tab;
     }
 
+    // 按清单批量创建 Topic: 粘贴或载入 CSV，结果逐条显示在表格里
+    private void showProvisionDialog() {
+        Dialog<Void> dialog = new Dialog<>();
+        dialog.initOwner(stage);
+        dialog.setTitle("Bulk Create Topics");
+        dialog.setHeaderText("One topic per line: topic,queues,perm,cluster\n"
+                + "queues defaults to " + TopicProvisioner.DEFAULT_QUEUES + ", perm RW | R | W, cluster " + TopicProvisioner.ALL_CLUSTERS
+                + " = all clusters (may be omitted when there is only one). Existing topics are skipped.");
+        dialog.getDialogPane().getButtonTypes().add(ButtonType.CLOSE);
+        dialog.setResizable(true);
+
+        TextArea manifestArea = new TextArea();
+        manifestArea.setPromptText("order_created,8,RW,DefaultCluster\norder_paid,8");
+        manifestArea.setPrefRowCount(8);
+        Button loadBtn = new Button("Load CSV...");
+        TextField parallelField = new TextField("8");
+        parallelField.setPrefWidth(50);
+        Button runBtn = new Button("Run");
+        Label progressLabel = new Label("");
+        HBox tools = new HBox(10, loadBtn, new Label("Parallelism:"), parallelField, runBtn, progressLabel);
+
+        TableView<TopicProvisioner.Result> table = new TableView<>();
+        table.setPlaceholder(new Label("No results yet"));
+        TableColumn<TopicProvisioner.Result, String> topicCol = new TableColumn<>("Topic");
+        topicCol.setCellValueFactory(d -> new ReadOnlyStringWrapper(d.getValue().getItem().getTopic()));
+        topicCol.setPrefWidth(220);
+        TableColumn<TopicProvisioner.Result, String> clusterCol = new TableColumn<>("Cluster");
+        clusterCol.setCellValueFactory(d -> new ReadOnlyStringWrapper(d.getValue().getItem().getCluster()));
+        TableColumn<TopicProvisioner.Result, String> statusCol = new TableColumn<>("Status");
+        statusCol.setCellValueFactory(d -> new ReadOnlyStringWrapper(d.getValue().getStatus().name()));
+        TableColumn<TopicProvisioner.Result, String> attemptsCol = new TableColumn<>("Attempts");
+        attemptsCol.setCellValueFactory(d -> new ReadOnlyStringWrapper(String.valueOf(d.getValue().getAttempts())));
+        TableColumn<TopicProvisioner.Result, String> timeCol = new TableColumn<>("Time (ms)");
+        timeCol.setCellValueFactory(d -> new ReadOnlyStringWrapper(String.valueOf(d.getValue().getMillis())));
+        TableColumn<TopicProvisioner.Result, String> messageCol = new TableColumn<>("Message");
+        messageCol.setCellValueFactory(d -> new ReadOnlyStringWrapper(d.getValue().getMessage()));
+        messageCol.setPrefWidth(300);
+        table.getColumns().addAll(Arrays.asList(topicCol, clusterCol, statusCol, attemptsCol, timeCol, messageCol));
+
+        loadBtn.setOnAction(e -> {
+            FileChooser chooser = new FileChooser();
+            chooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("CSV", "*.csv", "*.txt"));
+            File file = chooser.showOpenDialog(dialog.getDialogPane().getScene().getWindow());
+            if (file == null) return;
+            try {
+                manifestArea.setText(new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8));
+            } catch (IOException ex) {
+                progressLabel.setText("Cannot read " + file.getName() + ": " + ex.getMessage());
+            }
+        });
+
+        runBtn.setOnAction(e -> {
+            RocketMQManager manager = mqManager;
+            if (manager == null) return;
+            List<TopicProvisioner.Item> items;
+            int parallelism;
+            try {
+                items = TopicProvisioner.parse(manifestArea.getText());
+                parallelism = Integer.parseInt(parallelField.getText().trim());
+            } catch (IllegalArgumentException ex) {
+                progressLabel.setText(ex.getMessage());
+                return;
+            }
+            if (parallelism < 1 || parallelism > TopicProvisioner.MAX_PARALLELISM) {
+                progressLabel.setText("Parallelism must be 1-" + TopicProvisioner.MAX_PARALLELISM);
+                return;
+            }
+            if (items.isEmpty()) return;
+            table.getItems().clear();
+            runBtn.setDisable(true);
+            int total = items.size();
+            progressLabel.setText("0 / " + total);
+            int[] failed = {0};
+            AtomicBoolean ran = new AtomicBoolean();
+            tasks.run("provisionTopics", "Create " + total + " topics", () -> {
+                ran.set(true);
+                long start = System.nanoTime();
+                try {
+                    List<TopicProvisioner.Result> results = manager.provisionTopics(items, parallelism, r -> Platform.runLater(() -> {
+                        table.getItems().add(r);
+                        if (r.getStatus() == TopicProvisioner.Status.FAILED) failed[0]++;
+                        progressLabel.setText(table.getItems().size() + " / " + total + ", " + failed[0] + " failed");
+                    }));
+                    Map<TopicProvisioner.Status, Integer> counts = new EnumMap<>(TopicProvisioner.Status.class);
+                    for (TopicProvisioner.Result r : results) counts.merge(r.getStatus(), 1, Integer::sum);
+                    log("Bulk create finished in " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms: " + counts);
+                    refreshTopics();
+                } catch (Exception ex) {
+                    logError("Bulk Create Failed", ex);
+                }
+            }).whenComplete((v, t) -> Platform.runLater(() -> {
+                // 另一个对话框的批量创建还在进行时本次被合并掉了，任务体不会执行
+                if (!ran.get() && !(t instanceof CancellationException)) {
+                    progressLabel.setText("Another bulk create was running, run again");
+                }
+                runBtn.setDisable(false);
+            }));
+        });
+
+        VBox content = new VBox(10, tools, manifestArea, table);
+        VBox.setVgrow(table, Priority.ALWAYS);
+        content.setPrefSize(900, 600);
+        dialog.getDialogPane().setContent(content);
+        dialog.show();
+    }
+
     private Tab createProducerTab() {
         Tab tab = new Tab("Producer");
         tab.setClosable(false);
@@ -725,6 +2030,15 @@ public class RocketMQFXApp extends Application {
 
         producerTable = createMessageTable(); // 假设你保留了之前的表格创建逻辑
         producerTable.setPlaceholder(new Label("No messages sent yet"));
+        // [新增] 已发送消息不多，直接用 FilteredList 按 msgId / Tag / Body 过滤
+        FilteredList<MessageModel> producerView = new FilteredList<>(producerMessages, m -> true);
+        producerTable.setItems(producerView);
+        TextField producerSearchField = new TextField();
+        producerSearchField.setPromptText("Filter sent messages (msgId / tag / body)");
+        producerSearchField.textProperty().addListener((obs, o, n) -> {
+            String q = n == null ? "" : n.trim().toLowerCase();
+            producerView.setPredicate(q.isEmpty() ? m -> true : m -> matchesSent(m, q));
+        });
         addContextMenu(producerTable); // <--- 加上这句
         sendBtn.setOnAction(e -> {
             if (mqManager == null) return;
@@ -741,31 +2055,178 @@ public class RocketMQFXApp extends Application {
 
             // 这里的 finalT 是为了传入 lambda
             String finalT = t;
-            new Thread(() -> {
+            // 发送不是幂等的，重复点击就是要再发一次，每次用独立的 key 不去重
+            tasks.run("send:" + (++sendSeq), "Send " + finalT, () -> {
                 try {
                     SendResult result = mqManager.sendMessage(finalT, tag, body);
                     Platform.runLater(() -> {
-                        SimpleDateFormat sdf = new SimpleDateFormat("HH:mm:ss");
                         String queryableId = result.getOffsetMsgId();
                         if (queryableId == null || queryableId.isEmpty()) {
                             queryableId = result.getMsgId();
                         }
-                        producerTable.getItems().add(0, new MessageModel(
-                                queryableId, finalT, tag, sdf.format(new Date()), body
+                        producerMessages.add(0, MessageModel.sent(
+                                queryableId, finalT, tag, body.getBytes(StandardCharsets.UTF_8)
                         ));
                         log("Sent: " + result.getSendStatus());
                     });
                 } catch (Exception ex) {
                     logError("Send Failed", ex);
                 }
-            }).start();
+            });
         });
 
-        content.getChildren().addAll(inputRow, producerTable);
+        content.getChildren().addAll(inputRow, createLoadGeneratorPane(tagField), producerSearchField, producerTable);
         tab.setContent(content);
         return tab;
     }
 
+    private static boolean matchesSent(MessageModel m, String lowerQuery) {
+        return (m.getMsgId() != null && m.getMsgId().toLowerCase().contains(lowerQuery))
+                || (m.getTag() != null && m.getTag().toLowerCase().contains(lowerQuery))
+                || m.getBody().toLowerCase().contains(lowerQuery);
+    }
+
+    // Producer 页的压测区域，默认折叠
+    private TitledPane createLoadGeneratorPane(TextField tagField) {
+        TextField rateField = new TextField("1000");
+        rateField.setPrefWidth(80);
+        rateField.setPromptText("0 = unlimited");
+        TextField sizeField = new TextField("256");
+        sizeField.setPrefWidth(70);
+        TextField templateField = new TextField("rocketmq-gui-load-");
+        templateField.setPromptText("Body template (repeated up to size)");
+        TextField batchField = new TextField("1");
+        batchField.setPrefWidth(50);
+        CheckBox asyncBox = new CheckBox("Async");
+        asyncBox.setSelected(true);
+        TextField inFlightField = new TextField("1000");
+        inFlightField.setPrefWidth(70);
+        inFlightField.disableProperty().bind(asyncBox.selectedProperty().not());
+        TextField producersField = new TextField("1");
+        producersField.setPrefWidth(50);
+        loadStartBtn = new Button("Start Load");
+        loadStatsLabel = new Label("Idle");
+
+        HBox row1 = new HBox(10,
+                new Label("Rate (msg/s, 0 = max):"), rateField,
+                new Label("Size (bytes):"), sizeField,
+                new Label("Template:"), templateField);
+        HBox.setHgrow(templateField, Priority.ALWAYS);
+        HBox row2 = new HBox(10,
+                new Label("Batch:"), batchField, asyncBox,
+                new Label("In-flight / producer:"), inFlightField,
+                new Label("Producers:"), producersField,
+                loadStartBtn);
+        VBox box = new VBox(8, row1, row2, loadStatsLabel);
+
+        loadStartBtn.setOnAction(e -> {
+            if (loadGenerator != null) {
+                tasks.run("loadgen:stop", "Stop load generator", this::stopLoadGenerator);
+                return;
+            }
+            if (mqManager == null) return;
+            LoadGenerator.Settings settings = new LoadGenerator.Settings();
+            try {
+                String t = producerTopicCombo.getEditor().getText();
+                settings.topic = (t == null || t.isEmpty()) ? producerTopicCombo.getValue() : t;
+                settings.tag = tagField.getText();
+                settings.rate = Integer.parseInt(rateField.getText().trim());
+                settings.messageSize = Integer.parseInt(sizeField.getText().trim());
+                settings.bodyTemplate = templateField.getText();
+                settings.batchSize = Integer.parseInt(batchField.getText().trim());
+                settings.async = asyncBox.isSelected();
+                settings.maxInFlight = Integer.parseInt(inFlightField.getText().trim());
+                settings.producers = Integer.parseInt(producersField.getText().trim());
+            } catch (NumberFormatException ex) {
+                log("ERR: Rate, size, batch, in-flight and producers must be integers");
+                return;
+            }
+            if (settings.rate < 0 || settings.messageSize < 0 || settings.messageSize > MAX_LOAD_MESSAGE_SIZE
+                    || settings.batchSize < 1 || settings.batchSize > MAX_LOAD_BATCH
+                    || (long) settings.batchSize * settings.messageSize > MAX_LOAD_MESSAGE_SIZE
+                    || settings.maxInFlight < 1 || settings.maxInFlight > MAX_LOAD_IN_FLIGHT
+                    || settings.producers < 1 || settings.producers > MAX_LOAD_PRODUCERS) {
+                log("ERR: Load settings out of range (rate >= 0, size 0-" + MAX_LOAD_MESSAGE_SIZE + " bytes, batch 1-"
+                        + MAX_LOAD_BATCH + " with batch x size <= " + MAX_LOAD_MESSAGE_SIZE + ", in-flight 1-"
+                        + MAX_LOAD_IN_FLIGHT + ", producers 1-" + MAX_LOAD_PRODUCERS + ")");
+                return;
+            }
+            loadStartBtn.setDisable(true);
+            String addr = mqManager.getNamesrvAddr();
+            tasks.run("loadgen:start", "Start load generator", () -> {
+                try {
+                    LoadGenerator g = new LoadGenerator(addr, settings);
+                    // 先登记再启动: 启动期间的 Stop (或切换集群) 能拿到它，stop 会等 start 完成后再停
+                    loadGenerator = g;
+                    try {
+                        g.start();
+                    } catch (Exception ex) {
+                        if (loadGenerator == g) loadGenerator = null;
+                        throw ex;
+                    }
+                    if (loadGenerator != g) {
+                        // start 之前就被停掉了 (stop 时还没在运行)，这里补停
+                        g.stop();
+                        return;
+                    }
+                    log("Load generator started on " + settings.topic + " (" + settings.producers + " producers, "
+                            + (settings.rate > 0 ? settings.rate + " msg/s" : "unthrottled") + ")");
+                    Platform.runLater(this::startLoadStats);
+                } catch (Exception ex) {
+                    logError("Load Generator Failed", ex);
+                } finally {
+                    Platform.runLater(() -> loadStartBtn.setDisable(false));
+                }
+            });
+        });
+
+        TitledPane pane = new TitledPane("Load Generator", box);
+        pane.setExpanded(false);
+        return pane;
+    }
+
+    private void startLoadStats() {
+        loadStartBtn.setText("Stop Load");
+        lastLoadSent = 0;
+        lastLoadSampleNanos = System.nanoTime();
+        if (loadStatsTimer == null) {
+            loadStatsTimer = new Timeline(new KeyFrame(Duration.millis(500), e -> updateLoadStats()));
+            loadStatsTimer.setCycleCount(Timeline.INDEFINITE);
+        }
+        loadStatsTimer.play();
+    }
+
+    private void updateLoadStats() {
+        LoadGenerator g = loadGenerator;
+        if (g == null) return;
+        long now = System.nanoTime();
+        long sent = g.getSent();
+        double tps = (sent - lastLoadSent) * 1e9 / Math.max(1, now - lastLoadSampleNanos);
+        lastLoadSent = sent;
+        lastLoadSampleNanos = now;
+        LatencyHistogram.Snapshot h = g.latencySnapshot();
+        String error = g.getLastError();
+        loadStatsLabel.setText(String.format(
+                "Sent: %d | Failed: %d | TPS: %.0f | Latency ms p50 %.2f  p99 %.2f  p999 %.2f  max %.2f%s",
+                sent, g.getFailed(), tps,
+                h.percentile(0.5) / 1000.0, h.percentile(0.99) / 1000.0,
+                h.percentile(0.999) / 1000.0, h.max() / 1000.0,
+                error == null ? "" : " | Last error: " + error));
+    }
+
+    // 会阻塞到在途请求返回，不要在 FX 线程调用
+    private void stopLoadGenerator() {
+        LoadGenerator g = loadGenerator;
+        if (g == null) return;
+        loadGenerator = null;
+        g.stop();
+        log("Load generator stopped: sent " + g.getSent() + ", failed " + g.getFailed());
+        Platform.runLater(() -> {
+            if (loadStatsTimer != null) loadStatsTimer.stop();
+            if (loadStartBtn != null) loadStartBtn.setText("Start Load");
+        });
+    }
+
     private Tab createMessageQueryTab() {
         Tab tab = new Tab("Msg Query");
         tab.setClosable(false);
@@ -782,40 +2243,441 @@ public class RocketMQFXApp extends Application {
         TextArea detailArea = new TextArea();
         detailArea.setEditable(false);
         detailArea.setFont(javafx.scene.text.Font.font("Monospaced", 12));
-        VBox.setVgrow(detailArea, Priority.ALWAYS);
 
         searchBtn.setOnAction(e -> {
             String id = msgIdField.getText().trim();
             if (id.isEmpty() || mqManager == null) return;
-            detailArea.setText("Searching...");
-            new Thread(() -> {
+            showMessageDetail(id, detailArea);
+        });
+
+        // [新增] 按 Key / 时间范围并行搜索，结果边查边显示
+        ComboBox<String> modeCombo = new ComboBox<>(FXCollections.observableArrayList("Key", "Time range"));
+        modeCombo.setValue("Key");
+        ComboBox<String> topicCombo = new ComboBox<>();
+        topicCombo.setPromptText("Topic");
+        topicCombo.setPrefWidth(220);
+        enableSearch(topicCombo);
+        TextField keyField = new TextField();
+        keyField.setPromptText("Message key");
+        TextField tagField = new TextField("*");
+        tagField.setPrefWidth(80);
+        TextField containsField = new TextField();
+        containsField.setPromptText("Body contains");
+        keyField.disableProperty().bind(modeCombo.valueProperty().isEqualTo("Time range"));
+        tagField.disableProperty().bind(modeCombo.valueProperty().isEqualTo("Key"));
+        containsField.disableProperty().bind(modeCombo.valueProperty().isEqualTo("Key"));
+        SimpleDateFormat rangeFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+        long now = System.currentTimeMillis();
+        TextField fromField = new TextField(rangeFormat.format(new Date(now - 3_600_000L)));
+        fromField.setPrefWidth(150);
+        TextField toField = new TextField(rangeFormat.format(new Date(now)));
+        toField.setPrefWidth(150);
+        TextField maxField = new TextField("1000");
+        maxField.setPrefWidth(60);
+        Button runSearchBtn = new Button("Search");
+        Button cancelSearchBtn = new Button("Cancel");
+        cancelSearchBtn.setDisable(true);
+        Label searchStatus = new Label();
+
+        HBox queryRow1 = new HBox(10, new Label("Search by:"), modeCombo, new Label("Topic:"), topicCombo,
+                new Label("Key:"), keyField, new Label("Tag:"), tagField, containsField);
+        HBox.setHgrow(keyField, Priority.ALWAYS);
+        HBox queryRow2 = new HBox(10, new Label("From:"), fromField, new Label("To:"), toField,
+                new Label("Max:"), maxField, runSearchBtn, cancelSearchBtn, searchStatus);
+
+        TableView<MessageModel> resultTable = createMessageTable();
+        TableColumn<MessageModel, String> queueCol = new TableColumn<>("Queue");
+        queueCol.setCellValueFactory(c -> new ReadOnlyStringWrapper(
+                c.getValue().getQueueId() + " @ " + c.getValue().getQueueOffset()));
+        resultTable.getColumns().add(2, queueCol);
+        resultTable.setPlaceholder(new Label("No search results"));
+        addContextMenu(resultTable);
+        resultTable.getSelectionModel().selectedItemProperty().addListener((obs, o, n) -> {
+            if (n != null && n.getMsgId() != null && mqManager != null) showMessageDetail(n.getMsgId(), detailArea);
+        });
+
+        runSearchBtn.setOnAction(e -> {
+            if (mqManager == null) return;
+            String topic = topicCombo.getEditor().getText();
+            if (topic == null || topic.isEmpty()) topic = topicCombo.getValue();
+            long begin, end;
+            int max;
+            try {
+                begin = rangeFormat.parse(fromField.getText().trim()).getTime();
+                end = rangeFormat.parse(toField.getText().trim()).getTime();
+                max = Integer.parseInt(maxField.getText().trim());
+            } catch (Exception ex) {
+                log("ERR: Invalid search range or max (expected yyyy-MM-dd HH:mm:ss)");
+                return;
+            }
+            if (topic == null || topic.isEmpty()) return;
+            boolean byKey = "Key".equals(modeCombo.getValue());
+            String key = keyField.getText().trim();
+            if (byKey && key.isEmpty()) return;
+
+            cancelSearch();
+            int generation = ++searchGeneration;
+            resultTable.getItems().clear();
+            pendingSearchResults.clear();
+            searchStatus.setText("Searching...");
+            cancelSearchBtn.setDisable(false);
+            String finalTopic = topic;
+            String tagExpr = tagField.getText();
+            String contains = containsField.getText();
+            long startedAt = System.currentTimeMillis();
+            Consumer<List<MessageExt>> sink = msgs -> {
+                if (generation != searchGeneration) return;
+                long received = System.currentTimeMillis();
+                for (MessageExt m : msgs) pendingSearchResults.add(MessageModel.from(m, received));
+                if (searchFlushScheduled.compareAndSet(false, true)) {
+                    Platform.runLater(() -> flushSearchResults(resultTable));
+                }
+            };
+            // 每次搜索一个 key: 上一次的任务体还在 searchByKey/searchByTime 里时，新的搜索不能被合并进去
+            tasks.run("search:" + generation, "Search " + finalTopic, () -> {
                 try {
-                    MessageExt msg = mqManager.viewMessage(id);
-                    StringBuilder sb = new StringBuilder();
-                    sb.append("MsgId: ").append(msg.getMsgId()).append("\n");
-                    sb.append("Topic: ").append(msg.getTopic()).append("\n");
-                    sb.append("Tags:  ").append(msg.getTags()).append("\n");
-                    sb.append("Keys:  ").append(msg.getKeys()).append("\n");
-                    sb.append("Broker: ").append(msg.getStoreHost()).append("\n");
-                    sb.append("QueueId: ").append(msg.getQueueId()).append("\n");
-                    sb.append("Offset:  ").append(msg.getQueueOffset()).append("\n");
-                    sb.append("BornTime: ").append(new Date(msg.getBornTimestamp())).append("\n");
-                    sb.append("StoreTime: ").append(new Date(msg.getStoreTimestamp())).append("\n");
-                    sb.append("--------------------------------------------------\n");
-                    sb.append("Body:\n").append(new String(msg.getBody()));
-
-                    Platform.runLater(() -> detailArea.setText(sb.toString()));
+                    SearchHandle handle = byKey
+                            ? mqManager.searchByKey(finalTopic, key, begin, end, max, sink)
+                            : mqManager.searchByTime(finalTopic, begin, end, tagExpr, contains, max, sink);
+                    if (generation != searchGeneration) {
+                        handle.cancel();
+                        return;
+                    }
+                    activeSearch = handle;
+                    handle.done().whenComplete((v, t) -> Platform.runLater(() -> {
+                        if (generation != searchGeneration) return;
+                        flushSearchResults(resultTable);
+                        cancelSearchBtn.setDisable(true);
+                        String state = handle.isCancelled() ? "Cancelled" : t != null ? "Failed" : "Done";
+                        String failures = handle.getFailedParts() > 0
+                                ? " | " + handle.getFailedParts() + " queue(s) failed: " + handle.getLastError() : "";
+                        searchStatus.setText(state + ": " + handle.getFound() + " found in "
+                                + (System.currentTimeMillis() - startedAt) + " ms" + failures);
+                    }));
                 } catch (Exception ex) {
-                    Platform.runLater(() -> detailArea.setText("Not Found or Error: " + ex.getMessage()));
+                    Platform.runLater(() -> {
+                        if (generation != searchGeneration) return;
+                        searchStatus.setText("Failed: " + ex.getMessage());
+                        cancelSearchBtn.setDisable(true);
+                    });
+                    logError("Search Failed", ex);
                 }
-            }).start();
+            });
         });
+        cancelSearchBtn.setOnAction(e -> cancelSearch());
 
-        content.getChildren().addAll(searchBox, detailArea);
+        SplitPane split = new SplitPane(resultTable, detailArea);
+        split.setOrientation(Orientation.VERTICAL);
+        split.setDividerPositions(0.55);
+        VBox.setVgrow(split, Priority.ALWAYS);
+
+        content.getChildren().addAll(searchBox, new Separator(), queryRow1, queryRow2, split);
         tab.setContent(content);
         return tab;
     }
 
+    private void showMessageDetail(String id, TextArea detailArea) {
+        detailArea.setText("Searching...");
+        tasks.run("query:" + id, "Query " + id, () -> {
+            try {
+                MessageExt msg = mqManager.viewMessage(id);
+                StringBuilder sb = new StringBuilder();
+                sb.append("MsgId: ").append(msg.getMsgId()).append("\n");
+                sb.append("Topic: ").append(msg.getTopic()).append("\n");
+                sb.append("Tags:  ").append(msg.getTags()).append("\n");
+                sb.append("Keys:  ").append(msg.getKeys()).append("\n");
+                sb.append("Broker: ").append(msg.getStoreHost()).append("\n");
+                sb.append("QueueId: ").append(msg.getQueueId()).append("\n");
+                sb.append("Offset:  ").append(msg.getQueueOffset()).append("\n");
+                sb.append("BornTime: ").append(new Date(msg.getBornTimestamp())).append("\n");
+                sb.append("StoreTime: ").append(new Date(msg.getStoreTimestamp())).append("\n");
+                sb.append("--------------------------------------------------\n");
+                sb.append("Body:\n").append(new String(msg.getBody()));
+
+                Platform.runLater(() -> detailArea.setText(sb.toString()));
+            } catch (Exception ex) {
+                Platform.runLater(() -> detailArea.setText("Not Found or Error: " + ex.getMessage()));
+            }
+        });
+    }
+
+    private void flushSearchResults(TableView<MessageModel> resultTable) {
+        searchFlushScheduled.set(false);
+        List<MessageModel> batch = new ArrayList<>();
+        MessageModel m;
+        while ((m = pendingSearchResults.poll()) != null) batch.add(m);
+        if (!batch.isEmpty()) resultTable.getItems().addAll(batch);
+    }
+
+    private void cancelSearch() {
+        SearchHandle h = activeSearch;
+        if (h != null) {
+            h.cancel();
+            activeSearch = null;
+        }
+    }
+
+    // --- Export / Replay ---
+    private Tab createArchiveTab() {
+        Tab tab = new Tab("Export / Replay");
+        tab.setClosable(false);
+        VBox content = new VBox(10);
+        content.setPadding(new Insets(10));
+        SimpleDateFormat rangeFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+
+        // 1. 导出
+        ComboBox<String> exportTopicCombo = new ComboBox<>();
+        exportTopicCombo.setPromptText("Topic");
+        exportTopicCombo.setPrefWidth(220);
+        enableSearch(exportTopicCombo);
+        TextField exportTagField = new TextField("*");
+        exportTagField.setPrefWidth(80);
+        long now = System.currentTimeMillis();
+        TextField fromField = new TextField(rangeFormat.format(new Date(now - 3_600_000L)));
+        fromField.setPrefWidth(150);
+        TextField toField = new TextField(rangeFormat.format(new Date(now)));
+        toField.setPrefWidth(150);
+        Button exportBtn = new Button("Export...");
+        Button cancelExportBtn = new Button("Cancel");
+        cancelExportBtn.setDisable(true);
+        Label exportStatus = new Label("Idle");
+        VBox exportBox = new VBox(8,
+                new HBox(10, new Label("Topic:"), exportTopicCombo, new Label("Tag:"), exportTagField,
+                        new Label("From:"), fromField, new Label("To:"), toField),
+                new HBox(10, exportBtn, cancelExportBtn, exportStatus));
+        TitledPane exportPane = new TitledPane("Export topic messages to file", exportBox);
+        exportPane.setCollapsible(false);
+
+        exportBtn.setOnAction(e -> {
+            if (mqManager == null || activeExport != null) return;
+            String topic = exportTopicCombo.getEditor().getText();
+            if (topic == null || topic.isEmpty()) topic = exportTopicCombo.getValue();
+            if (topic == null || topic.isEmpty()) return;
+            long begin, end;
+            try {
+                begin = rangeFormat.parse(fromField.getText().trim()).getTime();
+                end = rangeFormat.parse(toField.getText().trim()).getTime();
+            } catch (Exception ex) {
+                log("ERR: Invalid export range (expected yyyy-MM-dd HH:mm:ss)");
+                return;
+            }
+            FileChooser chooser = new FileChooser();
+            chooser.setInitialFileName(topic + ".rmqa");
+            File file = chooser.showSaveDialog(stage);
+            if (file == null) return;
+            String finalTopic = topic;
+            String tag = exportTagField.getText();
+            exportStatus.setText("Starting...");
+            tasks.run("export", "Export " + finalTopic, () -> {
+                try {
+                    ArchiveTransfer transfer = mqManager.exportTopic(finalTopic, begin, end, tag, file);
+                    activeExport = transfer;
+                    Platform.runLater(() -> {
+                        cancelExportBtn.setDisable(false);
+                        archiveProgressTimer.play();
+                    });
+                    transfer.done().whenComplete((count, t) -> Platform.runLater(() -> {
+                        activeExport = null;
+                        cancelExportBtn.setDisable(true);
+                        exportStatus.setText(t != null ? "Failed: " + t.getMessage()
+                                : (transfer.isCancelled() ? "Cancelled" : "Done") + ": " + count + " messages, "
+                                + formatBytes(transfer.getBytes()) + " -> " + file.getName()
+                                + (transfer.getFailed() > 0 ? " | " + transfer.getFailed() + " queue(s) failed" : ""));
+                        log("Export finished: " + exportStatus.getText());
+                    }));
+                } catch (Exception ex) {
+                    Platform.runLater(() -> exportStatus.setText("Failed: " + ex.getMessage()));
+                    logError("Export Failed", ex);
+                }
+            });
+        });
+        cancelExportBtn.setOnAction(e -> {
+            ArchiveTransfer t = activeExport;
+            if (t != null) t.cancel();
+        });
+
+        // 2. 回放
+        TextField replayFileField = new TextField();
+        replayFileField.setPromptText("Archive file");
+        replayFileField.setEditable(false);
+        Button browseBtn = new Button("Browse...");
+        ComboBox<String> replayTopicCombo = new ComboBox<>();
+        replayTopicCombo.setPromptText("Original topic");
+        replayTopicCombo.setPrefWidth(220);
+        enableSearch(replayTopicCombo);
+        TextField rateField = new TextField("500");
+        rateField.setPrefWidth(70);
+        TextField batchField = new TextField("32");
+        batchField.setPrefWidth(50);
+        Button replayBtn = new Button("Replay");
+        Button cancelReplayBtn = new Button("Cancel");
+        cancelReplayBtn.setDisable(true);
+        Label replayStatus = new Label("Idle");
+        ProgressBar replayProgress = new ProgressBar(0);
+        replayProgress.setPrefWidth(200);
+        HBox.setHgrow(replayFileField, Priority.ALWAYS);
+        VBox replayBox = new VBox(8,
+                new HBox(10, new Label("File:"), replayFileField, browseBtn),
+                new HBox(10, new Label("Target topic:"), replayTopicCombo,
+                        new Label("Rate (msg/s, 0 = max):"), rateField, new Label("Batch:"), batchField),
+                new HBox(10, replayBtn, cancelReplayBtn, replayProgress, replayStatus));
+        TitledPane replayPane = new TitledPane("Replay file into the cluster", replayBox);
+        replayPane.setCollapsible(false);
+
+        browseBtn.setOnAction(e -> {
+            FileChooser chooser = new FileChooser();
+            File file = chooser.showOpenDialog(stage);
+            if (file != null) replayFileField.setText(file.getAbsolutePath());
+        });
+        replayBtn.setOnAction(e -> {
+            if (mqManager == null || activeReplay != null || replayFileField.getText().isEmpty()) return;
+            int rate, batch;
+            try {
+                rate = Integer.parseInt(rateField.getText().trim());
+                batch = Integer.parseInt(batchField.getText().trim());
+            } catch (NumberFormatException ex) {
+                log("ERR: Rate and batch must be integers");
+                return;
+            }
+            File file = new File(replayFileField.getText());
+            String target = replayTopicCombo.getEditor().getText();
+            if (target == null || target.isEmpty()) target = replayTopicCombo.getValue();
+            String finalTarget = target;
+            replayStatus.setText("Starting...");
+            tasks.run("replay", "Replay " + file.getName(), () -> {
+                try {
+                    ArchiveTransfer transfer = mqManager.replayArchive(file, finalTarget, rate, batch);
+                    activeReplay = transfer;
+                    Platform.runLater(() -> {
+                        cancelReplayBtn.setDisable(false);
+                        archiveProgressTimer.play();
+                    });
+                    transfer.done().whenComplete((count, t) -> Platform.runLater(() -> {
+                        activeReplay = null;
+                        cancelReplayBtn.setDisable(true);
+                        if (t == null && !transfer.isCancelled()) replayProgress.setProgress(1);
+                        replayStatus.setText(t != null ? "Failed: " + t.getMessage()
+                                : (transfer.isCancelled() ? "Cancelled" : "Done") + ": " + count + " sent, "
+                                + transfer.getFailed() + " failed");
+                        log("Replay finished: " + replayStatus.getText());
+                    }));
+                } catch (Exception ex) {
+                    Platform.runLater(() -> replayStatus.setText("Failed: " + ex.getMessage()));
+                    logError("Replay Failed", ex);
+                }
+            });
+        });
+        cancelReplayBtn.setOnAction(e -> {
+            ArchiveTransfer t = activeReplay;
+            if (t != null) t.cancel();
+        });
+
+        // 导出/回放进行中时每 500ms 刷新一次进度，两者都结束后自动停止
+        archiveProgressTimer = new Timeline(new KeyFrame(Duration.millis(500), e -> {
+            ArchiveTransfer export = activeExport;
+            if (export != null) {
+                exportStatus.setText("Exporting: " + export.getMessages() + " messages, " + formatBytes(export.getBytes()));
+            }
+            ArchiveTransfer replay = activeReplay;
+            if (replay != null) {
+                if (replay.getTotalBytes() > 0) replayProgress.setProgress((double) replay.getBytes() / replay.getTotalBytes());
+                replayStatus.setText("Replaying: " + replay.getMessages() + " sent, " + replay.getFailed() + " failed");
+            }
+            if (export == null && replay == null) archiveProgressTimer.stop();
+        }));
+        archiveProgressTimer.setCycleCount(Timeline.INDEFINITE);
+
+        content.getChildren().addAll(exportPane, replayPane);
+        tab.setContent(content);
+        return tab;
+    }
+
+    // --- Tab: Diagnostics (工具自身的指标) ---
+    private Tab createDiagnosticsTab() {
+        Tab tab = new Tab("Diagnostics");
+        tab.setClosable(false);
+        VBox content = new VBox(10);
+        content.setPadding(new Insets(10));
+
+        // 计数器/计时器的每秒速率由相邻两次刷新的差值算出
+        Map<String, Long> lastValues = new HashMap<>();
+        long[] lastRefresh = {System.nanoTime()};
+        Map<String, Double> rates = new HashMap<>();
+
+        TableView<MetricsRegistry.Reading> table = new TableView<>();
+        table.setPlaceholder(new Label("No metrics recorded yet"));
+        TableColumn<MetricsRegistry.Reading, String> nameCol = new TableColumn<>("Metric");
+        nameCol.setCellValueFactory(d -> new ReadOnlyStringWrapper(d.getValue().getName()));
+        nameCol.setPrefWidth(260);
+        TableColumn<MetricsRegistry.Reading, String> kindCol = new TableColumn<>("Type");
+        kindCol.setCellValueFactory(d -> new ReadOnlyStringWrapper(d.getValue().getKind().name().toLowerCase()));
+        TableColumn<MetricsRegistry.Reading, String> valueCol = new TableColumn<>("Value / Count");
+        valueCol.setCellValueFactory(d -> new ReadOnlyStringWrapper(d.getValue().getName().endsWith("Bytes")
+                ? formatBytes(d.getValue().getValue()) : String.valueOf(d.getValue().getValue())));
+        valueCol.setPrefWidth(110);
+        TableColumn<MetricsRegistry.Reading, String> rateCol = new TableColumn<>("Per Second");
+        rateCol.setCellValueFactory(d -> {
+            Double r = rates.get(d.getValue().getName());
+            return new ReadOnlyStringWrapper(r == null ? "" : String.format("%.1f", r));
+        });
+        TableColumn<MetricsRegistry.Reading, String> p50Col = new TableColumn<>("p50 (ms)");
+        p50Col.setCellValueFactory(d -> new ReadOnlyStringWrapper(formatMicros(d.getValue(), 0.5)));
+        TableColumn<MetricsRegistry.Reading, String> p99Col = new TableColumn<>("p99 (ms)");
+        p99Col.setCellValueFactory(d -> new ReadOnlyStringWrapper(formatMicros(d.getValue(), 0.99)));
+        TableColumn<MetricsRegistry.Reading, String> maxCol = new TableColumn<>("Max (ms)");
+        maxCol.setCellValueFactory(d -> new ReadOnlyStringWrapper(formatMicros(d.getValue(), 1)));
+        table.getColumns().addAll(Arrays.asList(nameCol, kindCol, valueCol, rateCol, p50Col, p99Col, maxCol));
+        VBox.setVgrow(table, Priority.ALWAYS);
+
+        Runnable refresh = () -> {
+            long now = System.nanoTime();
+            double seconds = (now - lastRefresh[0]) / 1e9;
+            lastRefresh[0] = now;
+            List<MetricsRegistry.Reading> readings = MetricsRegistry.get().read();
+            rates.clear();
+            for (MetricsRegistry.Reading r : readings) {
+                if (r.getKind() == MetricsRegistry.Kind.GAUGE) continue;
+                Long prev = lastValues.put(r.getName(), r.getValue());
+                if (prev != null && seconds > 0 && r.getValue() >= prev) {
+                    rates.put(r.getName(), (r.getValue() - prev) / seconds);
+                }
+            }
+            table.getItems().setAll(readings);
+        };
+        // 只在页签可见时刷新 (切换页签时由 start 中的监听器启停)
+        diagnosticsTimer = new Timeline(new KeyFrame(Duration.seconds(1), e -> refresh.run()));
+        diagnosticsTimer.setCycleCount(Timeline.INDEFINITE);
+
+        Button resetBtn = new Button("Reset Counters");
+        resetBtn.setOnAction(e -> {
+            MetricsRegistry.get().reset();
+            lastValues.clear();
+            refresh.run();
+        });
+        Label hint = new Label("rpc.* = admin/client calls, task.* = bulk operations, fx.runLaterDelay = FX thread responsiveness. "
+                + "Also available over JMX as org.tzh.rocketmqgui:type=Metrics");
+        hint.setWrapText(true);
+
+        content.getChildren().addAll(new HBox(10, resetBtn), hint, table);
+        refresh.run();
+        diagnosticsTimer.play();
+        tab.setContent(content);
+        return tab;
+    }
+
+    private static String formatMicros(MetricsRegistry.Reading r, double percentile) {
+        LatencyHistogram.Snapshot h = r.getHistogram();
+        if (h == null || h.count() == 0) return "";
+        long micros = percentile >= 1 ? h.max() : h.percentile(percentile);
+        return String.format("%.2f", micros / 1000.0);
+    }
+
+    private static String formatBytes(long bytes) {
+        if (bytes >= 1L << 30) return String.format("%.2f GB", bytes / (double) (1L << 30));
+        if (bytes >= 1L << 20) return String.format("%.1f MB", bytes / (double) (1L << 20));
+        return String.format("%.1f KB", bytes / 1024.0);
+    }
+
     private void log(String m) {
         Platform.runLater(() -> logArea.appendText(m + "\n"));
     }
@@ -825,36 +2687,100 @@ public class RocketMQFXApp extends Application {
         e.printStackTrace();
     }
 
+    private void updateTaskStatus() {
+        taskStatusPending.set(false);
+        List<String> active = tasks.describeTasks();
+        taskStatusLabel.setText(active.isEmpty() ? "Tasks: idle" : "Tasks: " + String.join(" | ", active));
+    }
+
     private void stopMonitorService() {
         if (monitorService != null && !monitorService.isShutdown()) {
             monitorService.shutdownNow();
         }
         monitorService = null;
+        Platform.runLater(() -> {
+            if (startMonitorBtn != null) startMonitorBtn.setText("Start Monitoring");
+        });
     }
 
     private void setConnectedState(boolean connected) {
-        Platform.runLater(() -> {
-            if (connectBtn != null) connectBtn.setDisable(connected);
-            if (disconnectBtn != null) disconnectBtn.setDisable(!connected);
-            if (startMonitorBtn != null) startMonitorBtn.setDisable(!connected);
-            if (topicListView != null) topicListView.setDisable(!connected);
-            if (groupListView != null) groupListView.setDisable(!connected);
-            if (producerTopicCombo != null) producerTopicCombo.setDisable(!connected);
-            if (consumerTopicCombo != null) consumerTopicCombo.setDisable(!connected);
-        });
+        this.connected = connected;
+        Platform.runLater(this::applyConnectedState);
+    }
+
+    private void applyConnectedState() {
+        // 已连接时 Connect 用于切换到其他集群
+        if (connectBtn != null) connectBtn.setText(connected ? "Switch" : "Connect");
+        if (disconnectBtn != null) disconnectBtn.setDisable(!connected);
+        if (startMonitorBtn != null) startMonitorBtn.setDisable(!connected);
+        if (topicListView != null) topicListView.setDisable(!connected);
+        if (groupListView != null) groupListView.setDisable(!connected);
+        if (producerTopicCombo != null) producerTopicCombo.setDisable(!connected);
+        if (consumerTopicCombo != null) consumerTopicCombo.setDisable(!connected);
+    }
+
+    private void setWindowTitle(String addr) {
+        Platform.runLater(() -> stage.setTitle(addr == null ? WINDOW_TITLE : WINDOW_TITLE + " - " + addr));
+    }
+
+    /**
+     * 切换集群时清掉上一个集群的界面状态，历史曲线随后从本地时序库恢复
+     */
+    private void resetClusterView() {
+        pinnedTopics.clear();
+        throughputTracker.clear();
+        lagRows.clear();
+        lagData.clear();
+        pendingLag.clear();
+        pendingLagErrors.clear();
+        lagHistory.clear();
+        redrawLagChart();
     }
 
     @Override
     public void stop() {
+        closeWindow();
+        if (connectionPool != null) connectionPool.shutdown();
+        if (fxHeartbeat != null) fxHeartbeat.shutdownNow();
+    }
+
+    // 关闭本窗口的资源；当前连接归还到池中，由其他窗口复用或随应用退出关闭
+    private void closeWindow() {
+        if (windowClosed) return;
+        windowClosed = true;
+        tasks.shutdown();
+        topicSearchExecutor.shutdownNow();
+        cancelSearch();
+        if (activeExport != null) activeExport.cancel();
+        if (activeReplay != null) activeReplay.cancel();
+        cancelPeek();
+        if (archiveProgressTimer != null) archiveProgressTimer.stop();
         stopMonitorService();
-        if (mqManager != null) {
-            try {
-                mqManager.disconnect();
-            } catch (Exception e) {
-                mqManager.shutdown();
-            }
+        if (loadStatsTimer != null) loadStatsTimer.stop();
+        if (consumerDrainTimer != null) consumerDrainTimer.stop();
+        if (rateChart != null) rateChart.dispose();
+        if (lagAutoRefresh != null) lagAutoRefresh.stop();
+        if (lagChart != null) lagChart.dispose();
+        if (diagnosticsTimer != null) diagnosticsTimer.stop();
+        // 停压测 (等待在途发送)、关消费者、关指标存储都会阻塞，放到后台线程，不卡住其他窗口
+        LoadGenerator generator = loadGenerator;
+        loadGenerator = null;
+        RocketMQManager manager = mqManager;
+        mqManager = null;
+        MetricsStore store = metricsStore;
+        metricsStore = null;
+        Thread teardown = new Thread(() -> {
+            if (generator != null) generator.stop();
+            if (manager != null) connectionPool.release(manager.getNamesrvAddr(), manager, this);
+            if (store != null) store.close();
+        }, "window-teardown");
+        // 不设为守护线程: 关闭最后一个窗口时也要等指标写完再退出 (各步骤都有超时)
+        teardown.start();
+        for (Map.Entry<String, LongSupplier> g : windowGauges.entrySet()) {
+            MetricsRegistry.get().removeGauge(g.getKey(), g.getValue());
         }
-        if (styleRefreshService != null) styleRefreshService.shutdownNow();
+        if (captureStore != null) captureStore.close();
+        if (captureIndex != null) captureIndex.close();
     }
 
     // [新增] 通用右键菜单方法
@@ -872,7 +2798,7 @@ public class RocketMQFXApp extends Application {
         MenuItem copyBody = new MenuItem("Copy Body");
         copyBody.setOnAction(e -> {
             MessageModel item = table.getSelectionModel().getSelectedItem();
-            if (item != null) copyToClipboard(item.getBody());
+            if (item != null) copyToClipboard(loadBody(item));
         });
 
         // 3. 复制全部详情 (方便调试)
@@ -881,7 +2807,7 @@ public class RocketMQFXApp extends Application {
             MessageModel item = table.getSelectionModel().getSelectedItem();
             if (item != null) {
                 String content = String.format("ID: %s\nTag: %s\nTime: %s\nBody: %s",
-                        item.getMsgId(), item.getTag(), item.getTime(), item.getBody());
+                        item.getMsgId(), item.getTag(), item.getTime(), loadBody(item));
                 copyToClipboard(content);
             }
         });
@@ -890,6 +2816,14 @@ public class RocketMQFXApp extends Application {
         table.setContextMenu(menu);
     }
 
+    // [辅助] 抓取列表的行只带 body 预览，完整 body 从 CaptureStore 读取
+    private String loadBody(MessageModel item) {
+        if (item.isBodyComplete() || captureStore == null) return item.getBody() + item.getTruncationNote();
+        byte[] body = captureStore.readBody(item.getSeq());
+        if (body == null) return item.getBody() + " [evicted, preview only]";
+        return new String(body, StandardCharsets.UTF_8) + item.getTruncationNote();
+    }
+
     // [辅助] 写入剪贴板
     private void copyToClipboard(String content) {
         if (content == null) return;
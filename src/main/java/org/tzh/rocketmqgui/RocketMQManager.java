@@ -1,36 +1,92 @@
 package org.tzh.rocketmqgui;
 
+import org.apache.rocketmq.client.QueryResult;
+import org.apache.rocketmq.client.consumer.DefaultMQPullConsumer;
 import org.apache.rocketmq.client.consumer.DefaultMQPushConsumer;
 import org.apache.rocketmq.client.consumer.MessageSelector;
 import org.apache.rocketmq.client.consumer.listener.ConsumeConcurrentlyStatus;
+import org.apache.rocketmq.client.consumer.PullResult;
+import org.apache.rocketmq.client.consumer.PullStatus;
 import org.apache.rocketmq.client.consumer.listener.MessageListenerConcurrently;
 import org.apache.rocketmq.client.producer.DefaultMQProducer;
 import org.apache.rocketmq.client.producer.SendResult;
 import org.apache.rocketmq.common.MixAll;
+import org.apache.rocketmq.common.UtilAll;
 import org.apache.rocketmq.common.admin.ConsumeStats;
 import org.apache.rocketmq.common.admin.TopicStatsTable;
 import org.apache.rocketmq.common.message.Message;
 import org.apache.rocketmq.common.message.MessageExt;
+import org.apache.rocketmq.common.message.MessageQueue;
 import org.apache.rocketmq.common.protocol.body.ClusterInfo;
 import org.apache.rocketmq.common.protocol.body.ConsumerConnection;
 import org.apache.rocketmq.common.protocol.body.SubscriptionGroupWrapper;
 import org.apache.rocketmq.common.protocol.body.TopicList;
+import org.apache.rocketmq.common.protocol.route.BrokerData;
+import org.apache.rocketmq.common.subscription.SubscriptionGroupConfig;
 import org.apache.rocketmq.tools.admin.DefaultMQAdminExt;
 
+import java.io.File;
+import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 
 public class RocketMQManager {
+    // 扇出并发上限，可用 -Drocketmq.gui.fanOut 调整
+    private static final int FAN_OUT_CONCURRENCY = Integer.getInteger("rocketmq.gui.fanOut", 16);
     private final String namesrvAddr;
+    private final FanOut fanOut = new FanOut("mq-fanout", FAN_OUT_CONCURRENCY);
+    // 元数据缓存的 TTL
+    private static final long CLUSTER_TTL_MS = 30_000;
+    private static final long TOPIC_TTL_MS = 30_000;
+    private static final long GROUP_TTL_MS = 30_000;
+    private final MetadataCache metadata = new MetadataCache();
+    // 每个管理端 RPC 的耗时记为 "rpc.<方法名>" (见 Diagnostics 页)
+    private static final MetricsRegistry METRICS = MetricsRegistry.get();
+    // 上一次交给界面的 Topic 集合，用于计算增量
+    private Set<String> publishedTopics;
+    private ScheduledExecutorService backgroundRefresh;
+    // 当前借用此连接的窗口的回调，连接归还到 ConnectionPool 时置空
+    private volatile Consumer<SetDiff<String>> onTopicsChanged;
+    private static final long BROKER_RPC_TIMEOUT_MS = 3000;
+    private volatile Map<String, String> groupDiscoveryErrors = Collections.emptyMap();
     private DefaultMQAdminExt adminExt;
     private DefaultMQProducer producer;
     private DefaultMQPushConsumer consumer;
+    // 搜索用独立的扇出池，长时间扫描不占用监控等短 RPC 的并发名额
+    private final FanOut searchFanOut = new FanOut("mq-search", FAN_OUT_CONCURRENCY);
+    private static final int SEARCH_PULL_BATCH = 32;
+    private static final long KEY_SEARCH_TIMEOUT_MS = 15_000;
+    private static final long QUEUE_SCAN_TIMEOUT_MS = 10 * 60_000;
+    // 导出的扫描会在写盘背压时阻塞，耗时与数据量有关，不设墙钟超时 (取消走 ArchiveTransfer)
+    private static final long NO_TIMEOUT = 0;
+    // 只读拉取 (搜索等) 用的消费者，首次使用时启动；不订阅、不提交位点。
+    // 4.9.4 客户端里按任意位点拉取 (带 PullCallback) 只有 DefaultMQPullConsumer，LitePull 没有对应接口，只能压掉弃用警告
+    @SuppressWarnings("deprecation")
+    private DefaultMQPullConsumer toolsConsumer;
+    // 在 toolsConsumer 上进行的只读浏览，关闭工具客户端前先取消
+    private final Set<PeekSession> peekSessions = ConcurrentHashMap.newKeySet();
+    // 导出时拉取线程与写线程之间最多缓冲的批次数 (每批最多 SEARCH_PULL_BATCH 条)
+    private static final int EXPORT_BUFFER_BATCHES = 64;
+    // 回放单个批次的消息体总大小上限，留出余量低于 Broker 默认的 4MB
+    private static final int REPLAY_MAX_BATCH_BYTES = 1024 * 1024;
 
     public RocketMQManager(String namesrvAddr) throws Exception {
         this.namesrvAddr = namesrvAddr;
         initAdmin();
-        initProducer();
     }
 
     private void initAdmin() throws Exception {
@@ -39,65 +95,230 @@ public class RocketMQManager {
         adminExt.start();
     }
 
-    private void initProducer() throws Exception {
-        producer = new DefaultMQProducer("FX_ADMIN_PRODUCER_GROUP");
-        producer.setNamesrvAddr(namesrvAddr);
-        producer.start();
+    // 大多数会话不发消息，Producer 在第一次发送时才启动
+    private synchronized DefaultMQProducer producer() throws Exception {
+        if (producer == null) {
+            DefaultMQProducer p = new DefaultMQProducer("FX_ADMIN_PRODUCER_GROUP");
+            p.setNamesrvAddr(namesrvAddr);
+            p.start();
+            producer = p;
+        }
+        return producer;
+    }
+
+    public String getNamesrvAddr() {
+        return namesrvAddr;
     }
 
-    // --- 基础信息 ---
+    // --- 基础信息 (走元数据缓存) ---
     public ClusterInfo getClusterInfo() throws Exception {
-        return adminExt.examineBrokerClusterInfo();
+        return metadata.get("clusterInfo", CLUSTER_TTL_MS, this::fetchClusterInfo);
+    }
+
+    private ClusterInfo fetchClusterInfo() throws Exception {
+        return METRICS.time("rpc.examineBrokerClusterInfo", adminExt::examineBrokerClusterInfo);
     }
 
     public Set<String> getTopicList() throws Exception {
-        TopicList topicList = adminExt.fetchAllTopicList();
-        return topicList.getTopicList();
+        return metadata.get("topics", TOPIC_TTL_MS, this::fetchTopicList);
+    }
+
+    private Set<String> fetchTopicList() throws Exception {
+        TopicList topicList = METRICS.time("rpc.fetchAllTopicList", adminExt::fetchAllTopicList);
+        return Collections.unmodifiableSet(new HashSet<>(topicList.getTopicList()));
+    }
+
+    /**
+     * 与上一次返回给界面的 Topic 集合比较，只返回增删部分
+     *
+     * @param force true 时忽略 TTL 重新拉取
+     */
+    public synchronized SetDiff<String> syncTopics(boolean force) throws Exception {
+        Set<String> current = force ? metadata.reload("topics", this::fetchTopicList) : getTopicList();
+        SetDiff<String> diff = SetDiff.between(publishedTopics, current);
+        publishedTopics = current;
+        return diff;
+    }
+
+    /**
+     * 下一次 syncTopics 返回完整列表 (initial)，连接被另一个窗口重新借用时调用
+     */
+    public synchronized void resetTopicSnapshot() {
+        publishedTopics = null;
+    }
+
+    public void setTopicsListener(Consumer<SetDiff<String>> onTopicsChanged) {
+        this.onTopicsChanged = onTopicsChanged;
+    }
+
+    /**
+     * 后台定时刷新集群信息和 Topic 列表，Topic 有增删时回调 (在后台线程)。
+     * 已在运行时只替换回调
+     */
+    public synchronized void startBackgroundRefresh(long periodSeconds, Consumer<SetDiff<String>> onTopicsChanged) {
+        this.onTopicsChanged = onTopicsChanged;
+        if (backgroundRefresh != null) return;
+        backgroundRefresh = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "metadata-background");
+            t.setDaemon(true);
+            return t;
+        });
+        backgroundRefresh.scheduleWithFixedDelay(() -> {
+            try {
+                metadata.reload("clusterInfo", this::fetchClusterInfo);
+                SetDiff<String> diff = syncTopics(true);
+                Consumer<SetDiff<String>> listener = this.onTopicsChanged;
+                if (!diff.isEmpty() && listener != null) listener.accept(diff);
+            } catch (Exception ignored) {
+                // 下一轮再试
+            }
+        }, periodSeconds, periodSeconds, TimeUnit.SECONDS);
     }
 
     public SubscriptionGroupWrapper getAllSubscriptionGroups() throws Exception {
-        ClusterInfo clusterInfo = adminExt.examineBrokerClusterInfo();
+        return getAllSubscriptionGroups(false);
+    }
+
+    public SubscriptionGroupWrapper getAllSubscriptionGroups(boolean force) throws Exception {
+        return force ? metadata.reload("groups", this::fetchSubscriptionGroups)
+                : metadata.get("groups", GROUP_TTL_MS, this::fetchSubscriptionGroups);
+    }
+
+    /**
+     * 并行向所有 Master Broker 拉取订阅组并按组名合并；单个 Broker 失败或超时不影响其余结果
+     */
+    private SubscriptionGroupWrapper fetchSubscriptionGroups() throws Exception {
+        ClusterInfo clusterInfo = getClusterInfo();
         if (clusterInfo.getBrokerAddrTable().isEmpty()) return null;
-        String brokerAddr = clusterInfo.getBrokerAddrTable().values().iterator().next().getBrokerAddrs().get(0L);
-        return adminExt.getAllSubscriptionGroup(brokerAddr, 3000);
+        List<String> masters = new ArrayList<>();
+        for (BrokerData broker : clusterInfo.getBrokerAddrTable().values()) {
+            String addr = broker.getBrokerAddrs().get(MixAll.MASTER_ID);
+            if (addr != null) masters.add(addr);
+        }
+        Map<String, String> errors = new ConcurrentHashMap<>();
+        Map<String, SubscriptionGroupWrapper> perBroker = fanOut.invokeAll(masters,
+                addr -> METRICS.time("rpc.getAllSubscriptionGroup",
+                        () -> adminExt.getAllSubscriptionGroup(addr, BROKER_RPC_TIMEOUT_MS)), BROKER_RPC_TIMEOUT_MS + 500,
+                (addr, err) -> errors.put(addr, String.valueOf(err.getMessage())));
+        groupDiscoveryErrors = errors;
+        if (perBroker.isEmpty() && !errors.isEmpty()) {
+            throw new IllegalStateException("All brokers failed: " + errors);
+        }
+
+        SubscriptionGroupWrapper merged = new SubscriptionGroupWrapper();
+        for (SubscriptionGroupWrapper w : perBroker.values()) {
+            if (w.getSubscriptionGroupTable() == null) continue;
+            for (Map.Entry<String, SubscriptionGroupConfig> e : w.getSubscriptionGroupTable().entrySet()) {
+                merged.getSubscriptionGroupTable().putIfAbsent(e.getKey(), e.getValue());
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * 最近一次订阅组发现中失败的 Broker (地址 -> 错误信息)
+     */
+    public Map<String, String> getGroupDiscoveryErrors() {
+        return groupDiscoveryErrors;
     }
 
     // --- 监控数据 ---
     public TopicStatsTable getTopicStats(String topic) throws Exception {
-        return adminExt.examineTopicStats(topic);
+        return METRICS.time("rpc.examineTopicStats", () -> adminExt.examineTopicStats(topic));
+    }
+
+    /**
+     * 并行查询多个 Topic 的状态，失败或超时的 Topic 不在结果中
+     */
+    public Map<String, TopicStatsTable> getTopicStats(Collection<String> topics, long timeoutMs) throws InterruptedException {
+        return fanOut.invokeAll(topics, this::getTopicStats, timeoutMs, null);
     }
 
     // --- 消费组管理 ---
     public ConsumerConnection getConsumerConnection(String group) throws Exception {
-        return adminExt.examineConsumerConnectionInfo(group);
+        return METRICS.time("rpc.examineConsumerConnectionInfo", () -> adminExt.examineConsumerConnectionInfo(group));
     }
 
     public ConsumeStats getConsumeStats(String group) throws Exception {
-        return adminExt.examineConsumeStats(group);
+        return METRICS.time("rpc.examineConsumeStats", () -> adminExt.examineConsumeStats(group));
+    }
+
+    /**
+     * 走扇出线程池异步查询，用于一次性查询大量消费组
+     */
+    public CompletableFuture<ConsumeStats> getConsumeStatsAsync(String group, long timeoutMs) {
+        return fanOut.submit(() -> getConsumeStats(group), timeoutMs);
     }
 
     // --- 高级功能：重置 Offset ---
-    public void resetOffset(String topic, String group, long timestamp) throws Exception {
-        // isForce=true 强制重置
-        adminExt.resetOffsetByTimestamp(topic, group, timestamp, true);
+
+    /**
+     * 批量重置的预览: 当前位点与按时间查到的目标位点，不做修改；阻塞直到完成
+     */
+    public List<OffsetReset.Plan> previewOffsetReset(List<OffsetReset.Target> targets,
+                                                     Consumer<OffsetReset.Plan> onPlan) throws InterruptedException {
+        long start = System.nanoTime();
+        try {
+            return new OffsetReset(adminExt, FAN_OUT_CONCURRENCY).preview(targets, onPlan);
+        } finally {
+            METRICS.timer("task.previewOffsetReset").recordNanos(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * 并发执行批量重置；阻塞直到完成
+     */
+    public List<OffsetReset.Outcome> applyOffsetReset(List<OffsetReset.Plan> plans,
+                                                      Consumer<OffsetReset.Outcome> onOutcome) throws InterruptedException {
+        long start = System.nanoTime();
+        try {
+            return new OffsetReset(adminExt, FAN_OUT_CONCURRENCY).apply(plans, onOutcome);
+        } finally {
+            METRICS.timer("task.applyOffsetReset").recordNanos(System.nanoTime() - start);
+            metadata.invalidate("groups");
+        }
     }
 
     // --- 生产与消费 ---
     public void createTopic(String topic) throws Exception {
-        ClusterInfo clusterInfo = adminExt.examineBrokerClusterInfo();
+        ClusterInfo clusterInfo = getClusterInfo();
         String clusterName = clusterInfo.getClusterAddrTable().keySet().iterator().next();
-        adminExt.createTopic(clusterName, topic, 4);
+        METRICS.time("rpc.createTopic", () -> {
+            adminExt.createTopic(clusterName, topic, 4);
+            return null;
+        });
+        metadata.invalidate("topics");
+    }
+
+    /**
+     * 按清单批量创建 Topic，阻塞直到全部完成；每条结果在工作线程上回调
+     */
+    public List<TopicProvisioner.Result> provisionTopics(List<TopicProvisioner.Item> items, int parallelism,
+                                                         Consumer<TopicProvisioner.Result> onResult) throws Exception {
+        TopicProvisioner provisioner = new TopicProvisioner(adminExt, getClusterInfo(), parallelism);
+        long start = System.nanoTime();
+        try {
+            return provisioner.run(items, onResult);
+        } finally {
+            METRICS.timer("task.provisionTopics").recordNanos(System.nanoTime() - start);
+            metadata.invalidate("topics");
+        }
+    }
+
+    public Set<String> getClusterNames() throws Exception {
+        return getClusterInfo().getClusterAddrTable().keySet();
     }
 
     public SendResult sendMessage(String topic, String tag, String body) throws Exception {
         Message msg = new Message(topic, tag, body.getBytes(StandardCharsets.UTF_8));
-        return producer.send(msg);
+        DefaultMQProducer p = producer();
+        return METRICS.time("rpc.send", () -> p.send(msg));
     }
 
     // 支持 SQL92 过滤的消费者
     public void startConsumer(String group, String topic, String subExpression, boolean isSql92, Consumer<MessageExt> onMessageReceived) throws Exception {
-        if (consumer != null) consumer.shutdown();
-        consumer = new DefaultMQPushConsumer(group);
+        stopConsumer();
+        DefaultMQPushConsumer consumer = new DefaultMQPushConsumer(group);
         consumer.setNamesrvAddr(namesrvAddr);
 
         // 设置订阅关系
@@ -114,6 +335,9 @@ public class RocketMQManager {
             return ConsumeConcurrentlyStatus.CONSUME_SUCCESS;
         });
         consumer.start();
+        synchronized (this) {
+            this.consumer = consumer;
+        }
     }
 
     // 获取死信 Topic 名称
@@ -121,22 +345,323 @@ public class RocketMQManager {
         return MixAll.DLQ_GROUP_TOPIC_PREFIX + group;
     }
 
+    /**
+     * 打开消费组的死信队列；DLQ Topic 不存在 (从未产生过死信) 时抛出异常
+     */
+    public DlqBrowser openDlq(String group) throws Exception {
+        String dlqTopic = getDLQTopic(group);
+        TopicStatsTable stats = getTopicStats(dlqTopic);
+        return new DlqBrowser(toolsConsumer(), searchFanOut, dlqTopic, stats.getOffsetTable(), this::producer);
+    }
+
+    /**
+     * 只读浏览 Topic: 用工具拉取消费者读，不注册 group、不提交位点，详见 {@link PeekSession}。
+     * 收到的消息直接放进 sink，由界面按 pulse 取走。
+     *
+     * @param value OFFSET 时为位点，TIMESTAMP 时为毫秒时间戳
+     */
+    public PeekSession peek(String topic, String subExpression, boolean isSql92, PeekSession.Start from, long value,
+                            int batchSize, boolean follow, IngestQueue<MessageExt> sink) throws Exception {
+        // 各队列的 min/max 一次 RPC 全部拿到，起始位点除按时间外都不需要再逐队列查询
+        TopicStatsTable stats = getTopicStats(topic);
+        String expr = subExpression == null || subExpression.trim().isEmpty() ? "*" : subExpression.trim();
+        MessageSelector selector = isSql92 && !"*".equals(expr) ? MessageSelector.bySql(expr) : null;
+        PeekSession session = new PeekSession(toolsConsumer(), topic, expr, selector, batchSize, follow, sink);
+        peekSessions.add(session);
+        session.done().whenComplete((v, t) -> peekSessions.remove(session));
+        session.start(stats.getOffsetTable(), from, value, searchFanOut);
+        return session;
+    }
+
     public MessageExt viewMessage(String msgId) throws Exception {
-        return adminExt.viewMessage(msgId);
+        return METRICS.time("rpc.viewMessage", () -> adminExt.viewMessage(msgId));
+    }
+
+    // --- 消息搜索 ---
+
+    /**
+     * 按业务 Key 搜索。Broker 侧走 Key 索引，admin 客户端同时向路由中的所有 Broker 发查询，
+     * 整体约一次往返。结果在后台线程一次性交给 sink。
+     */
+    public SearchHandle searchByKey(String topic, String key, long begin, long end, int maxResults,
+                                    Consumer<List<MessageExt>> sink) {
+        SearchHandle handle = new SearchHandle(maxResults);
+        handle.setParts(1);
+        handle.track(searchFanOut.submit(() -> {
+            QueryResult result = METRICS.time("rpc.queryMessage",
+                    () -> adminExt.queryMessage(topic, key, maxResults, begin, end));
+            deliver(handle, result.getMessageList(), sink);
+            return null;
+        }, KEY_SEARCH_TIMEOUT_MS));
+        return handle;
+    }
+
+    /**
+     * 按存储时间范围搜索: 对 Topic 的每个队列并行地按时间查起始位点，再顺序拉取直到超出时间范围。
+     * 每拉到一批命中结果就交给 sink (在后台线程调用)。
+     *
+     * @param subExpression Tag 表达式，"*" 表示不过滤
+     * @param bodyContains  消息体需包含的文本，为空表示不过滤
+     */
+    public SearchHandle searchByTime(String topic, long begin, long end, String subExpression, String bodyContains,
+                                     int maxResults, Consumer<List<MessageExt>> sink) throws Exception {
+        return searchByTime(topic, begin, end, subExpression, bodyContains, maxResults, QUEUE_SCAN_TIMEOUT_MS, sink);
+    }
+
+    /**
+     * @param queueTimeoutMs 单个队列扫描的超时，不大于 0 表示不限时
+     */
+    @SuppressWarnings("deprecation") // DefaultMQPullConsumer，见 toolsConsumer
+    private SearchHandle searchByTime(String topic, long begin, long end, String subExpression, String bodyContains,
+                                      int maxResults, long queueTimeoutMs, Consumer<List<MessageExt>> sink) throws Exception {
+        DefaultMQPullConsumer puller = toolsConsumer();
+        Set<MessageQueue> queues = puller.fetchSubscribeMessageQueues(topic);
+        byte[] needle = bodyContains == null || bodyContains.isEmpty() ? null
+                : bodyContains.getBytes(StandardCharsets.UTF_8);
+        String expr = subExpression == null || subExpression.trim().isEmpty() ? "*" : subExpression.trim();
+        SearchHandle handle = new SearchHandle(maxResults);
+        handle.setParts(queues.size());
+        for (MessageQueue mq : queues) {
+            handle.track(searchFanOut.submit(() -> {
+                scanQueue(puller, mq, begin, end, expr, needle, handle, sink);
+                return null;
+            }, queueTimeoutMs));
+        }
+        return handle;
+    }
+
+    @SuppressWarnings("deprecation") // DefaultMQPullConsumer，见 toolsConsumer
+    private void scanQueue(DefaultMQPullConsumer puller, MessageQueue mq, long begin, long end, String expr,
+                           byte[] needle, SearchHandle handle, Consumer<List<MessageExt>> sink) throws Exception {
+        long offset = puller.searchOffset(mq, begin);
+        // 按时间查到的位点只是近似值，多扫一批，并以消息的存储时间为准截止
+        long stop = Math.min(puller.maxOffset(mq), puller.searchOffset(mq, end) + SEARCH_PULL_BATCH);
+        while (offset < stop && !handle.isCancelled() && !handle.isFull()) {
+            if (Thread.currentThread().isInterrupted()) return;
+            long from = offset;
+            PullResult result = METRICS.time("rpc.pull", () -> puller.pull(mq, expr, from, SEARCH_PULL_BATCH));
+            if (result.getPullStatus() == PullStatus.FOUND) {
+                List<MessageExt> hits = new ArrayList<>();
+                boolean past = false;
+                for (MessageExt m : result.getMsgFoundList()) {
+                    if (m.getStoreTimestamp() > end) {
+                        past = true;
+                        break;
+                    }
+                    if (m.getStoreTimestamp() >= begin && (needle == null || indexOf(m.getBody(), needle) >= 0)) {
+                        hits.add(m);
+                    }
+                }
+                if (!hits.isEmpty()) deliver(handle, hits, sink);
+                if (past) return;
+            }
+            if (result.getNextBeginOffset() <= offset) return;
+            offset = result.getNextBeginOffset();
+        }
+    }
+
+    private static void deliver(SearchHandle handle, List<MessageExt> hits, Consumer<List<MessageExt>> sink) {
+        if (hits == null || hits.isEmpty() || handle.isCancelled()) return;
+        int n = handle.reserve(hits.size());
+        if (n > 0) sink.accept(n < hits.size() ? hits.subList(0, n) : hits);
+    }
+
+    static int indexOf(byte[] haystack, byte[] needle) {
+        if (haystack == null) return -1;
+        outer:
+        for (int i = 0; i <= haystack.length - needle.length; i++) {
+            for (int j = 0; j < needle.length; j++) {
+                if (haystack[i + j] != needle[j]) continue outer;
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    // --- 导出与回放 ---
+
+    /**
+     * 把 Topic 在时间范围内的消息导出到本地文件。
+     * 各队列并行拉取，经有界队列交给单个写线程压缩落盘；写盘跟不上时拉取线程阻塞，内存占用与导出量无关。
+     * 有队列失败时导出仍会完成，失败的队列数见 {@link ArchiveTransfer#getFailed()}。
+     */
+    public ArchiveTransfer exportTopic(String topic, long begin, long end, String subExpression, File file) throws Exception {
+        BlockingQueue<List<MessageExt>> buffer = new ArrayBlockingQueue<>(EXPORT_BUFFER_BATCHES);
+        MessageArchive.Writer writer = MessageArchive.create(file);
+        SearchHandle scan;
+        try {
+            scan = searchByTime(topic, begin, end, subExpression, null, Integer.MAX_VALUE, NO_TIMEOUT, batch -> {
+                try {
+                    buffer.put(batch);
+                } catch (InterruptedException e) {
+                    // 取消: 保留中断标记，扫描循环随即退出
+                    Thread.currentThread().interrupt();
+                }
+            });
+        } catch (Exception e) {
+            writer.close();
+            throw e;
+        }
+        ArchiveTransfer transfer = new ArchiveTransfer();
+        transfer.setOnCancel(scan::cancel);
+        Thread t = new Thread(() -> {
+            try {
+                while (!transfer.isCancelled()) {
+                    List<MessageExt> batch = buffer.poll(100, TimeUnit.MILLISECONDS);
+                    if (batch == null) {
+                        // 所有队列都扫描完且缓冲已空
+                        if (scan.done().isDone() && buffer.isEmpty()) break;
+                        continue;
+                    }
+                    for (MessageExt m : batch) writer.write(m);
+                    transfer.progress(writer.getMessages(), writer.getBytesWritten());
+                }
+                writer.close();
+                transfer.progress(writer.getMessages(), writer.getBytesWritten());
+                transfer.setFailed(scan.getFailedParts());
+                transfer.complete(writer.getMessages());
+            } catch (Exception e) {
+                scan.cancel();
+                try {
+                    writer.close();
+                } catch (IOException ignored) {
+                }
+                transfer.fail(e);
+            }
+        }, "archive-export");
+        t.setDaemon(true);
+        t.start();
+        return transfer;
+    }
+
+    /**
+     * 读取导出文件并通过现有 Producer 重新发送。
+     * 同一 Topic 的连续消息按 batchSize 批量发送，ratePerSec 为 0 时不限速。
+     *
+     * @param targetTopic 为空时发回原 Topic
+     */
+    public ArchiveTransfer replayArchive(File file, String targetTopic, int ratePerSec, int batchSize) throws IOException {
+        MessageArchive.Reader reader = MessageArchive.open(file);
+        ArchiveTransfer transfer = new ArchiveTransfer();
+        transfer.setTotalBytes(reader.getFileSize());
+        Thread t = new Thread(() -> {
+            try {
+                transfer.complete(runReplay(reader, transfer, targetTopic, ratePerSec, Math.max(1, batchSize)));
+            } catch (Exception e) {
+                transfer.fail(e);
+            } finally {
+                try {
+                    reader.close();
+                } catch (IOException ignored) {
+                }
+            }
+        }, "archive-replay");
+        t.setDaemon(true);
+        t.start();
+        return transfer;
+    }
+
+    private long runReplay(MessageArchive.Reader reader, ArchiveTransfer transfer, String targetTopic,
+                           int ratePerSec, int batchSize) throws Exception {
+        DefaultMQProducer producer = producer();
+        long intervalNanos = ratePerSec > 0 ? 1_000_000_000L / ratePerSec : 0;
+        long next = System.nanoTime();
+        long sent = 0, failed = 0;
+        List<Message> batch = new ArrayList<>(batchSize);
+        int batchBytes = 0;
+        while (!transfer.isCancelled()) {
+            Message archived = reader.next();
+            Message msg = null;
+            if (archived != null) {
+                if (archived.getBody() == null || archived.getBody().length == 0) {
+                    failed++; // Producer 不接受空消息体
+                    continue;
+                }
+                msg = MessageArchive.forResend(archived, targetTopic);
+            }
+            // 批次满、换 Topic、超过大小上限或读到文件末尾时发出当前批次
+            boolean flush = !batch.isEmpty() && (msg == null || batch.size() >= batchSize
+                    || !batch.get(0).getTopic().equals(msg.getTopic())
+                    || batchBytes + msg.getBody().length > REPLAY_MAX_BATCH_BYTES);
+            if (flush) {
+                if (intervalNanos > 0) {
+                    long now = System.nanoTime();
+                    if (next > now) Thread.sleep((next - now) / 1_000_000, (int) ((next - now) % 1_000_000));
+                    else if (now - next > TimeUnit.SECONDS.toNanos(1)) next = now;
+                    next += intervalNanos * batch.size();
+                }
+                List<Message> toSend = batch;
+                try {
+                    METRICS.time("rpc.send", () -> toSend.size() == 1 ? producer.send(toSend.get(0)) : producer.send(toSend));
+                    sent += batch.size();
+                } catch (Exception e) {
+                    failed += batch.size();
+                }
+                batch = new ArrayList<>(batchSize);
+                batchBytes = 0;
+                transfer.progress(sent, reader.getBytesRead());
+                transfer.setFailed(failed);
+            }
+            if (msg == null) break;
+            batch.add(msg);
+            batchBytes += msg.getBody().length;
+        }
+        transfer.progress(sent, reader.getBytesRead());
+        transfer.setFailed(failed);
+        return sent;
+    }
+
+    @SuppressWarnings("deprecation") // DefaultMQPullConsumer，见 toolsConsumer
+    private synchronized DefaultMQPullConsumer toolsConsumer() throws Exception {
+        if (toolsConsumer == null) {
+            DefaultMQPullConsumer c = new DefaultMQPullConsumer(MixAll.TOOLS_CONSUMER_GROUP);
+            c.setNamesrvAddr(namesrvAddr);
+            c.setInstanceName("fx-tools-" + UtilAll.getPid() + "-" + System.nanoTime());
+            c.start();
+            toolsConsumer = c;
+        }
+        return toolsConsumer;
+    }
+
+    private synchronized void shutdownTools() {
+        for (PeekSession s : peekSessions) s.cancel();
+        searchFanOut.shutdown();
+        if (toolsConsumer != null) {
+            toolsConsumer.shutdown();
+            toolsConsumer = null;
+        }
     }
 
     public void shutdown() {
+        stopBackgroundRefresh();
+        fanOut.shutdown();
+        shutdownTools();
         if (adminExt != null) adminExt.shutdown();
         if (producer != null) producer.shutdown();
         if (consumer != null) consumer.shutdown();
     }
 
+    private synchronized void stopBackgroundRefresh() {
+        if (backgroundRefresh != null) {
+            backgroundRefresh.shutdownNow();
+            backgroundRefresh = null;
+        }
+        metadata.shutdown();
+    }
+
     // [新增] 专门用于停止消费者的方法
     public void stopConsumer() {
-        if (consumer != null) {
-            consumer.shutdown();
-            consumer = null; // 置空，以便下次重新创建
-        }
+        DefaultMQPushConsumer c = detachConsumer();
+        if (c != null) c.shutdown();
+    }
+
+    /**
+     * 取走当前的消费者 (置空，以便下次重新创建)，由调用方在锁外关闭
+     */
+    synchronized DefaultMQPushConsumer detachConsumer() {
+        DefaultMQPushConsumer c = consumer;
+        consumer = null;
+        return c;
     }
 
     // 在 RocketMQManager.java 中新增
@@ -147,6 +672,9 @@ public class RocketMQManager {
     public void disconnect() throws Exception {
         // 1. 停止任何可能正在运行的消费者（必须先停）
         stopConsumer();
+        stopBackgroundRefresh();
+        fanOut.shutdown();
+        shutdownTools();
 
         // 2. 关闭生产者
         if (producer != null) {
@@ -0,0 +1,87 @@
+package org.tzh.rocketmqgui;
+
+import javafx.animation.AnimationTimer;
+import javafx.scene.control.TableRow;
+
+import java.util.PriorityQueue;
+
+/**
+ * 新消息行高亮的到期处理。
+ * 每个可见行在渲染到"新"消息时登记一次到期时间，FX pulse 上只检查队头，
+ * 到期后只重置那一行的样式；没有待到期的行时 pulse 监听自动停止，不再整表 refresh。
+ * 只能在 FX 线程使用。
+ */
+public class RowHighlighter {
+    private static final String SCHEDULED_KEY = RowHighlighter.class.getName();
+
+    private final long durationMs;
+    private final String style;
+    private final PriorityQueue<Entry> pending = new PriorityQueue<>();
+    private final AnimationTimer timer = new AnimationTimer() {
+        @Override
+        public void handle(long now) {
+            expire();
+        }
+    };
+    private boolean running;
+
+    public RowHighlighter(long durationMs, String style) {
+        this.durationMs = durationMs;
+        this.style = style;
+    }
+
+    /**
+     * 在 TableRow.updateItem 里调用：按 item 的接收时间决定是否高亮，并登记到期
+     */
+    public void apply(TableRow<?> row, Object item, long receivedTime) {
+        long expiresAt = receivedTime + durationMs;
+        if (item == null || expiresAt <= System.currentTimeMillis()) {
+            row.setStyle("");
+            row.getProperties().remove(SCHEDULED_KEY);
+            return;
+        }
+        row.setStyle(style);
+        // 同一行重复渲染同一条消息时不重复登记
+        if (row.getProperties().get(SCHEDULED_KEY) == item) return;
+        row.getProperties().put(SCHEDULED_KEY, item);
+        pending.add(new Entry(row, item, expiresAt));
+        if (!running) {
+            running = true;
+            timer.start();
+        }
+    }
+
+    private void expire() {
+        long now = System.currentTimeMillis();
+        Entry head;
+        while ((head = pending.peek()) != null && head.expiresAt <= now) {
+            pending.poll();
+            // 行已被复用来显示别的消息时，交给它自己的 updateItem 处理
+            if (head.row.getItem() == head.item) {
+                head.row.setStyle("");
+                head.row.getProperties().remove(SCHEDULED_KEY);
+            }
+        }
+        if (pending.isEmpty()) {
+            running = false;
+            timer.stop();
+        }
+    }
+
+    private static final class Entry implements Comparable<Entry> {
+        final TableRow<?> row;
+        final Object item;
+        final long expiresAt;
+
+        Entry(TableRow<?> row, Object item, long expiresAt) {
+            this.row = row;
+            this.item = item;
+            this.expiresAt = expiresAt;
+        }
+
+        @Override
+        public int compareTo(Entry o) {
+            return Long.compare(expiresAt, o.expiresAt);
+        }
+    }
+}
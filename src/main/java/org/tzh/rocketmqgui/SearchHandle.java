@@ -0,0 +1,94 @@
+package org.tzh.rocketmqgui;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 一次正在进行的消息搜索。
+ * 各个队列/Broker 的子任务并行执行，结果通过回调边查边交付；cancel 会中断所有子任务。
+ */
+public class SearchHandle {
+    private final int maxResults;
+    private final AtomicInteger found = new AtomicInteger();
+    private final AtomicInteger pendingParts = new AtomicInteger();
+    private final AtomicInteger failedParts = new AtomicInteger();
+    private final List<CompletableFuture<?>> parts = new CopyOnWriteArrayList<>();
+    private final CompletableFuture<Void> done = new CompletableFuture<>();
+    private volatile boolean cancelled;
+    private volatile String lastError;
+
+    SearchHandle(int maxResults) {
+        this.maxResults = maxResults;
+    }
+
+    /**
+     * 预留 n 个结果名额
+     *
+     * @return 实际可交付的数量，0 表示已达上限
+     */
+    int reserve(int n) {
+        while (true) {
+            int cur = found.get();
+            int grant = Math.min(n, maxResults - cur);
+            if (grant <= 0) return 0;
+            if (found.compareAndSet(cur, cur + grant)) return grant;
+        }
+    }
+
+    boolean isFull() {
+        return found.get() >= maxResults;
+    }
+
+    void setParts(int n) {
+        pendingParts.set(n);
+        if (n == 0) done.complete(null);
+    }
+
+    void track(CompletableFuture<?> part) {
+        parts.add(part);
+        part.whenComplete((v, t) -> {
+            if (t != null && !cancelled) {
+                failedParts.incrementAndGet();
+                lastError = t.getMessage();
+            }
+            if (pendingParts.decrementAndGet() == 0) done.complete(null);
+        });
+        if (cancelled) part.cancel(true);
+    }
+
+    void fail(Throwable t) {
+        lastError = t.getMessage();
+        done.completeExceptionally(t);
+    }
+
+    public void cancel() {
+        cancelled = true;
+        for (CompletableFuture<?> f : parts) f.cancel(true);
+        done.complete(null);
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    public int getFound() {
+        return found.get();
+    }
+
+    public int getFailedParts() {
+        return failedParts.get();
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    /**
+     * 全部子任务结束 (或被取消) 时完成
+     */
+    public CompletableFuture<Void> done() {
+        return done;
+    }
+}
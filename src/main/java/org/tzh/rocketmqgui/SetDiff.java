@@ -0,0 +1,54 @@
+package org.tzh.rocketmqgui;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * 两次元数据快照之间的增删差异，列表只需应用增量而不是 setAll 重建
+ */
+public class SetDiff<T> {
+    private final Set<T> added;
+    private final Set<T> removed;
+    private final Set<T> current;
+    // 没有上一次快照 (刚连接)，调用方应整体替换
+    private final boolean initial;
+
+    private SetDiff(Set<T> added, Set<T> removed, Set<T> current, boolean initial) {
+        this.added = added;
+        this.removed = removed;
+        this.current = current;
+        this.initial = initial;
+    }
+
+    public static <T> SetDiff<T> between(Set<T> previous, Set<T> current) {
+        if (previous == null) {
+            return new SetDiff<>(current, Collections.emptySet(), current, true);
+        }
+        Set<T> added = new HashSet<>();
+        for (T t : current) if (!previous.contains(t)) added.add(t);
+        Set<T> removed = new HashSet<>();
+        for (T t : previous) if (!current.contains(t)) removed.add(t);
+        return new SetDiff<>(added, removed, current, false);
+    }
+
+    public Set<T> getAdded() {
+        return added;
+    }
+
+    public Set<T> getRemoved() {
+        return removed;
+    }
+
+    public Set<T> getCurrent() {
+        return current;
+    }
+
+    public boolean isInitial() {
+        return initial;
+    }
+
+    public boolean isEmpty() {
+        return !initial && added.isEmpty() && removed.isEmpty();
+    }
+}
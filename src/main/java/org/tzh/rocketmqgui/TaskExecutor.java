@@ -0,0 +1,203 @@
+package org.tzh.rocketmqgui;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * 界面上所有后台操作的统一执行器 (替代各处的 new Thread)。
+ * - 有界线程池；JDK 21+ 且 -Drocketmq.gui.virtualThreads=true 时改用虚拟线程，并发仍受 permits 限制
+ * - 相同 key 的任务在执行中时不会重复提交，直接复用进行中的结果 (single-flight)
+ * - cancelAll() 中断所有进行中的任务，断开连接时调用
+ * - 通过 onChange 回调暴露当前任务列表，供界面显示状态
+ */
+public class TaskExecutor {
+    private static final int QUEUE_CAPACITY = 256;
+
+    @FunctionalInterface
+    public interface Task {
+        void run() throws Exception;
+    }
+
+    private final ExecutorService pool;
+    // 虚拟线程模式下限制同时执行的任务数
+    private final Semaphore permits;
+    private final boolean virtual;
+    private final Map<String, Handle<?>> inFlight = new ConcurrentHashMap<>();
+    private volatile Runnable onChange = () -> { };
+    private volatile Consumer<RejectedExecutionException> onRejected = e -> { };
+
+    public TaskExecutor(int maxThreads, boolean preferVirtualThreads) {
+        ExecutorService vt = preferVirtualThreads ? newVirtualThreadExecutor() : null;
+        this.virtual = vt != null;
+        if (virtual) {
+            this.pool = vt;
+            this.permits = new Semaphore(maxThreads);
+        } else {
+            AtomicInteger counter = new AtomicInteger();
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(maxThreads, maxThreads, 60, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>(QUEUE_CAPACITY), r -> {
+                Thread t = new Thread(r, "fx-task-" + counter.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+            executor.allowCoreThreadTimeOut(true);
+            this.pool = executor;
+            this.permits = null;
+        }
+    }
+
+    // 读取系统属性: rocketmq.gui.taskThreads / rocketmq.gui.virtualThreads
+    public static TaskExecutor fromSystemProperties() {
+        int threads = Integer.getInteger("rocketmq.gui.taskThreads", 8);
+        boolean virtual = Boolean.getBoolean("rocketmq.gui.virtualThreads");
+        return new TaskExecutor(threads, virtual);
+    }
+
+    /**
+     * 提交任务；key 相同的任务还在执行时，直接返回进行中的那个
+     *
+     * @param key  去重键，如 "refreshTopics"、"checkDLQ:" + group
+     * @param name 界面上显示的名字
+     */
+    public <T> CompletableFuture<T> submit(String key, String name, Callable<T> task) {
+        Handle<T> handle = new Handle<>(key, name);
+        @SuppressWarnings("unchecked")
+        Handle<T> existing = (Handle<T>) inFlight.putIfAbsent(key, handle);
+        if (existing != null) {
+            return existing.result;
+        }
+        try {
+            handle.future = pool.submit(() -> runHandle(handle, task));
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(key, handle);
+            RejectedExecutionException rejected = new RejectedExecutionException("Too many pending tasks: " + name);
+            handle.result.completeExceptionally(rejected);
+            // 调用方大多不看返回的 future，拒绝必须在这里报告
+            onRejected.accept(rejected);
+        }
+        fireChange();
+        return handle.result;
+    }
+
+    public CompletableFuture<Void> run(String key, String name, Task task) {
+        return submit(key, name, () -> {
+            task.run();
+            return null;
+        });
+    }
+
+    private <T> void runHandle(Handle<T> handle, Callable<T> task) {
+        boolean acquired = false;
+        try {
+            if (permits != null) {
+                permits.acquire();
+                acquired = true;
+            }
+            if (handle.result.isDone()) return; // 排队期间已被取消
+            handle.running = true;
+            fireChange();
+            handle.result.complete(task.call());
+        } catch (Throwable t) {
+            handle.result.completeExceptionally(t);
+        } finally {
+            if (acquired) permits.release();
+            inFlight.remove(handle.key, handle);
+            fireChange();
+        }
+    }
+
+    /**
+     * 取消所有排队中和执行中的任务 (会中断执行线程)
+     */
+    public void cancelAll() {
+        for (Handle<?> handle : new ArrayList<>(inFlight.values())) {
+            handle.result.cancel(false);
+            Future<?> f = handle.future;
+            if (f != null) f.cancel(true);
+            inFlight.remove(handle.key, handle);
+        }
+        fireChange();
+    }
+
+    /**
+     * 当前任务状态，如 "Refresh Topics (running 1.2s)"
+     */
+    public List<String> describeTasks() {
+        long now = System.currentTimeMillis();
+        List<String> list = new ArrayList<>();
+        for (Handle<?> h : inFlight.values()) {
+            if (h.running) {
+                list.add(h.name + " (running " + String.format("%.1f", (now - h.startedAt) / 1000.0) + "s)");
+            } else {
+                list.add(h.name + " (queued)");
+            }
+        }
+        return list;
+    }
+
+    public int activeCount() {
+        return inFlight.size();
+    }
+
+    public boolean isVirtual() {
+        return virtual;
+    }
+
+    public void setOnChange(Runnable onChange) {
+        this.onChange = onChange == null ? () -> { } : onChange;
+    }
+
+    /**
+     * 队列已满、任务被拒绝时回调 (在提交线程上)
+     */
+    public void setOnRejected(Consumer<RejectedExecutionException> onRejected) {
+        this.onRejected = onRejected == null ? e -> { } : onRejected;
+    }
+
+    public void shutdown() {
+        cancelAll();
+        pool.shutdownNow();
+    }
+
+    private void fireChange() {
+        onChange.run();
+    }
+
+    // 编译目标是 Java 9，虚拟线程只能反射获取
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            Method m = java.util.concurrent.Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) m.invoke(null);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private static final class Handle<T> {
+        final String key;
+        final String name;
+        final long startedAt = System.currentTimeMillis();
+        final CompletableFuture<T> result = new CompletableFuture<>();
+        volatile Future<?> future;
+        volatile boolean running;
+
+        Handle(String key, String name) {
+            this.key = key;
+            this.name = name;
+        }
+    }
+}
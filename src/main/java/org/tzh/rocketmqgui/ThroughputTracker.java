@@ -0,0 +1,48 @@
+package org.tzh.rocketmqgui;
+
+import org.apache.rocketmq.common.admin.TopicOffset;
+import org.apache.rocketmq.common.admin.TopicStatsTable;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 由相邻两次采样的 Offset 差值推算 TPS (msg/s)。
+ * 每个 Topic 记住上一次的 Offset 总和与采样时间；第一次采样或 Offset 回退 (Topic 重建) 时返回 NaN。
+ */
+public class ThroughputTracker {
+    private final Map<String, long[]> last = new HashMap<>();
+
+    public static long sumMaxOffset(TopicStatsTable stats) {
+        long total = 0;
+        for (TopicOffset o : stats.getOffsetTable().values()) {
+            total += o.getMaxOffset();
+        }
+        return total;
+    }
+
+    /**
+     * @return 自上次采样以来的 msg/s；没有可比较的上一次采样时返回 NaN
+     */
+    public synchronized double update(String topic, long offsetSum, long timeMillis) {
+        long[] prev = last.get(topic);
+        if (prev == null) {
+            last.put(topic, new long[]{offsetSum, timeMillis});
+            return Double.NaN;
+        }
+        long delta = offsetSum - prev[0];
+        long elapsed = timeMillis - prev[1];
+        prev[0] = offsetSum;
+        prev[1] = timeMillis;
+        if (delta < 0 || elapsed <= 0) return Double.NaN;
+        return delta * 1000.0 / elapsed;
+    }
+
+    public synchronized void remove(String topic) {
+        last.remove(topic);
+    }
+
+    public synchronized void clear() {
+        last.clear();
+    }
+}
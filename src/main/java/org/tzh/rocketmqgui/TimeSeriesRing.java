@@ -0,0 +1,181 @@
+package org.tzh.rocketmqgui;
+
+import java.util.Arrays;
+
+/**
+ * 单条指标的环形缓冲区：时间戳和数值分别放在 long[] / double[] 里，不为每个点创建对象。
+ * 写满后覆盖最旧的点。非线程安全，调用方负责同步 (Dashboard 只在 FX 线程读写)。
+ */
+public class TimeSeriesRing {
+    private final long[] times;
+    private final double[] values;
+    private int head; // 下一次写入的位置
+    private int size;
+
+    public TimeSeriesRing(int capacity) {
+        this.times = new long[capacity];
+        this.values = new double[capacity];
+    }
+
+    /**
+     * 时间戳需单调递增
+     */
+    public void add(long timeMillis, double value) {
+        times[head] = timeMillis;
+        values[head] = value;
+        head = (head + 1) % times.length;
+        if (size < times.length) size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return times.length;
+    }
+
+    public void clear() {
+        head = 0;
+        size = 0;
+    }
+
+    public long lastTime() {
+        return size == 0 ? Long.MIN_VALUE : times[index(size - 1)];
+    }
+
+    public double lastValue() {
+        return size == 0 ? Double.NaN : values[index(size - 1)];
+    }
+
+    /**
+     * 把时间 >= fromMillis 的点按时间顺序复制出来
+     */
+    public Window since(long fromMillis) {
+        int start = firstAtOrAfter(fromMillis);
+        int n = size - start;
+        long[] ts = new long[n];
+        double[] vs = new double[n];
+        for (int i = 0; i < n; i++) {
+            int idx = index(start + i);
+            ts[i] = times[idx];
+            vs[i] = values[idx];
+        }
+        return new Window(ts, vs);
+    }
+
+    // 逻辑下标 (0 = 最旧) 上二分查找
+    private int firstAtOrAfter(long fromMillis) {
+        int lo = 0, hi = size;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (times[index(mid)] < fromMillis) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    private int index(int logical) {
+        int oldest = size < times.length ? 0 : head;
+        return (oldest + logical) % times.length;
+    }
+
+    /**
+     * 按时间排序的一段连续数据
+     */
+    public static final class Window {
+        public final long[] times;
+        public final double[] values;
+
+        public Window(long[] times, double[] values) {
+            this.times = times;
+            this.values = values;
+        }
+
+        public int size() {
+            return times.length;
+        }
+
+        /**
+         * 第一个时间 >= t 的下标
+         */
+        public int indexAtOrAfter(long t) {
+            int lo = 0, hi = times.length;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (times[mid] < t) lo = mid + 1;
+                else hi = mid;
+            }
+            return lo;
+        }
+
+        /**
+         * [from, to] 时间范围内的点，两端各多带一个点以便曲线画到边界外
+         */
+        public Window slice(long from, long to) {
+            int start = Math.max(0, indexAtOrAfter(from) - 1);
+            int end = Math.min(times.length, indexAtOrAfter(to) + 1);
+            if (start == 0 && end == times.length) return this;
+            return new Window(Arrays.copyOfRange(times, start, end), Arrays.copyOfRange(values, start, end));
+        }
+
+        public double min() {
+            return Arrays.stream(values).min().orElse(Double.NaN);
+        }
+
+        public double max() {
+            return Arrays.stream(values).max().orElse(Double.NaN);
+        }
+
+        public double avg() {
+            return Arrays.stream(values).average().orElse(Double.NaN);
+        }
+
+        /**
+         * Largest-Triangle-Three-Buckets 降采样，保留曲线形状；点数不超过 threshold 时原样返回
+         */
+        public Window downsample(int threshold) {
+            int n = times.length;
+            if (threshold >= n || threshold < 3) return this;
+            long[] outT = new long[threshold];
+            double[] outV = new double[threshold];
+            double bucketSize = (double) (n - 2) / (threshold - 2);
+            int a = 0;
+            outT[0] = times[0];
+            outV[0] = values[0];
+            for (int i = 0; i < threshold - 2; i++) {
+                // 下一个桶的平均点
+                int avgStart = (int) Math.floor((i + 1) * bucketSize) + 1;
+                int avgEnd = Math.min((int) Math.floor((i + 2) * bucketSize) + 1, n);
+                double avgT = 0, avgV = 0;
+                for (int j = avgStart; j < avgEnd; j++) {
+                    avgT += times[j];
+                    avgV += values[j];
+                }
+                int avgLen = avgEnd - avgStart;
+                avgT /= avgLen;
+                avgV /= avgLen;
+
+                // 当前桶里与上一个选中点、下一个桶平均点组成最大三角形的点
+                int start = (int) Math.floor(i * bucketSize) + 1;
+                int end = (int) Math.floor((i + 1) * bucketSize) + 1;
+                double ax = times[a], ay = values[a];
+                double maxArea = -1;
+                int chosen = start;
+                for (int j = start; j < end; j++) {
+                    double area = Math.abs((ax - avgT) * (values[j] - ay) - (ax - times[j]) * (avgV - ay));
+                    if (area > maxArea) {
+                        maxArea = area;
+                        chosen = j;
+                    }
+                }
+                outT[i + 1] = times[chosen];
+                outV[i + 1] = values[chosen];
+                a = chosen;
+            }
+            outT[threshold - 1] = times[n - 1];
+            outV[threshold - 1] = values[n - 1];
+            return new Window(outT, outV);
+        }
+    }
+}
@@ -0,0 +1,335 @@
+package org.tzh.rocketmqgui;
+
+import org.apache.rocketmq.client.exception.MQBrokerException;
+import org.apache.rocketmq.client.exception.MQClientException;
+import org.apache.rocketmq.common.MixAll;
+import org.apache.rocketmq.common.TopicConfig;
+import org.apache.rocketmq.common.constant.PermName;
+import org.apache.rocketmq.common.protocol.ResponseCode;
+import org.apache.rocketmq.common.protocol.body.ClusterInfo;
+import org.apache.rocketmq.common.protocol.route.BrokerData;
+import org.apache.rocketmq.common.protocol.route.TopicRouteData;
+import org.apache.rocketmq.common.topic.TopicValidator;
+import org.apache.rocketmq.remoting.exception.RemotingException;
+import org.apache.rocketmq.tools.admin.DefaultMQAdminExt;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * 按清单批量创建 Topic。
+ * 清单每行: topic,queues,perm,cluster (后三列可省略，默认 4 / RW / 唯一的集群；cluster 为 * 表示所有集群)，
+ * 支持 # 注释和 "topic,..." 表头。
+ * - 每个 Topic 一个任务，在独立的扇出池里以固定并发执行，逐个 Master Broker 调用 createAndUpdateTopicConfig
+ * - 创建前总是查一次路由 (元数据缓存可能还没有刚建的 Topic)，只在缺少它的 Broker 上创建，
+ *   已有的 Broker 不会被清单里的队列数 / 权限覆盖；都有则跳过
+ * - 网络错误、Broker 繁忙等可恢复错误按退避重试
+ */
+public class TopicProvisioner {
+    public static final int DEFAULT_QUEUES = 4;
+    // 每个并发一个线程，再多也只是让 Broker 排队
+    public static final int MAX_PARALLELISM = 32;
+    public static final String ALL_CLUSTERS = "*";
+    private static final int MAX_QUEUES = 1024;
+    private static final int MAX_ATTEMPTS = 3;
+    private static final long RETRY_BACKOFF_MS = 300;
+    private static final long ITEM_TIMEOUT_MS = 60_000;
+
+    public enum Status { CREATED, SKIPPED, FAILED }
+
+    /**
+     * 清单中的一行
+     */
+    public static final class Item {
+        final String topic;
+        final int queues;
+        final int perm;
+        final String cluster;
+
+        public Item(String topic, int queues, int perm, String cluster) {
+            this.topic = topic;
+            this.queues = queues;
+            this.perm = perm;
+            this.cluster = cluster == null ? "" : cluster;
+        }
+
+        public String getTopic() {
+            return topic;
+        }
+
+        public String getCluster() {
+            return cluster;
+        }
+    }
+
+    /**
+     * 单个 Topic 的执行结果
+     */
+    public static final class Result {
+        final Item item;
+        final Status status;
+        final int attempts;
+        final long millis;
+        final String message;
+
+        Result(Item item, Status status, int attempts, long millis, String message) {
+            this.item = item;
+            this.status = status;
+            this.attempts = attempts;
+            this.millis = millis;
+            this.message = message;
+        }
+
+        public Item getItem() {
+            return item;
+        }
+
+        public Status getStatus() {
+            return status;
+        }
+
+        public int getAttempts() {
+            return attempts;
+        }
+
+        public long getMillis() {
+            return millis;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+    }
+
+    @FunctionalInterface
+    private interface AdminCall<T> {
+        T call() throws Exception;
+    }
+
+    private final DefaultMQAdminExt admin;
+    private final ClusterInfo clusterInfo;
+    private final int parallelism;
+
+    TopicProvisioner(DefaultMQAdminExt admin, ClusterInfo clusterInfo, int parallelism) {
+        this.admin = admin;
+        this.clusterInfo = clusterInfo;
+        this.parallelism = Math.max(1, Math.min(MAX_PARALLELISM, parallelism));
+    }
+
+    /**
+     * 解析清单，有错误时抛出 IllegalArgumentException (带行号)，不做部分执行
+     */
+    public static List<Item> parse(String manifest) {
+        List<Item> items = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        String[] lines = manifest.split("\r?\n");
+        for (int i = 0; i < lines.length; i++) {
+            String line = lines[i].trim();
+            if (line.isEmpty() || line.startsWith("#")) continue;
+            String[] cols = line.split(",", -1);
+            String topic = cols[0].trim();
+            if (items.isEmpty() && topic.equalsIgnoreCase("topic")) continue; // 表头
+            String where = "Line " + (i + 1) + ": ";
+            if (cols.length > 4) throw new IllegalArgumentException(where + "expected topic,queues,perm,cluster");
+            if (topic.isEmpty() || TopicValidator.isTopicOrGroupIllegal(topic) || topic.length() > 127) {
+                throw new IllegalArgumentException(where + "invalid topic name '" + topic + "'");
+            }
+            if (TopicValidator.isSystemTopic(topic)) {
+                throw new IllegalArgumentException(where + "'" + topic + "' is a system topic");
+            }
+            int queues = DEFAULT_QUEUES;
+            String q = cols.length > 1 ? cols[1].trim() : "";
+            if (!q.isEmpty()) {
+                try {
+                    queues = Integer.parseInt(q);
+                } catch (NumberFormatException e) {
+                    queues = -1;
+                }
+                if (queues < 1 || queues > MAX_QUEUES) {
+                    throw new IllegalArgumentException(where + "queues must be 1-" + MAX_QUEUES + ", got '" + q + "'");
+                }
+            }
+            int perm = parsePerm(cols.length > 2 ? cols[2].trim() : "");
+            if (perm < 0) throw new IllegalArgumentException(where + "perm must be RW, R, W, 6, 4 or 2");
+            String cluster = cols.length > 3 ? cols[3].trim() : "";
+            if (!seen.add(topic + "@" + cluster)) {
+                throw new IllegalArgumentException(where + "duplicate entry for " + topic);
+            }
+            items.add(new Item(topic, queues, perm, cluster));
+        }
+        return items;
+    }
+
+    private static int parsePerm(String s) {
+        switch (s.toUpperCase()) {
+            case "":
+            case "RW":
+            case "6":
+                return PermName.PERM_READ | PermName.PERM_WRITE;
+            case "R":
+            case "4":
+                return PermName.PERM_READ;
+            case "W":
+            case "2":
+                return PermName.PERM_WRITE;
+            default:
+                return -1;
+        }
+    }
+
+    /**
+     * 并发执行全部条目，阻塞直到结束；每完成一个回调一次 onResult (在工作线程上)。
+     * 被中断时取消未完成的条目并抛出 InterruptedException
+     */
+    List<Result> run(List<Item> items, Consumer<Result> onResult) throws InterruptedException {
+        FanOut pool = new FanOut("mq-provision", parallelism);
+        List<CompletableFuture<Result>> calls = new ArrayList<>(items.size());
+        List<CompletableFuture<Result>> futures = new ArrayList<>(items.size());
+        try {
+            for (Item item : items) {
+                long submitted = System.nanoTime();
+                CompletableFuture<Result> f = pool.submit(() -> apply(item), ITEM_TIMEOUT_MS);
+                calls.add(f);
+                // 超时、取消等异常也转成 FAILED 结果
+                futures.add(f.handle((r, err) -> {
+                    Result result = r != null ? r : new Result(item, Status.FAILED, 0, elapsed(submitted), describe(err));
+                    if (onResult != null) onResult.accept(result);
+                    return result;
+                }));
+            }
+            List<Result> results = new ArrayList<>(items.size());
+            for (CompletableFuture<Result> f : futures) {
+                try {
+                    results.add(f.get());
+                } catch (ExecutionException | CancellationException impossible) {
+                    // handle() 已经把异常转成了 FAILED 结果
+                }
+            }
+            return results;
+        } catch (InterruptedException ie) {
+            for (CompletableFuture<Result> f : calls) f.cancel(true);
+            throw ie;
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private Result apply(Item item) throws InterruptedException {
+        long start = System.nanoTime();
+        int[] attempts = {0};
+        Map<String, String> targets;
+        try {
+            targets = masters(item.cluster);
+        } catch (IllegalArgumentException e) {
+            return new Result(item, Status.FAILED, 0, 0, e.getMessage());
+        }
+        try {
+            TopicRouteData route = withRetry(() -> {
+                try {
+                    return admin.examineTopicRouteInfo(item.topic);
+                } catch (MQClientException e) {
+                    if (e.getResponseCode() == ResponseCode.TOPIC_NOT_EXIST) return null;
+                    throw e;
+                }
+            }, attempts);
+            if (route != null) {
+                for (BrokerData b : route.getBrokerDatas()) targets.remove(b.getBrokerName());
+            }
+            if (targets.isEmpty()) {
+                return new Result(item, Status.SKIPPED, attempts[0], elapsed(start), "Already exists");
+            }
+        } catch (InterruptedException ie) {
+            throw ie;
+        } catch (Exception e) {
+            return new Result(item, Status.FAILED, attempts[0], elapsed(start), "Route lookup: " + describe(e));
+        }
+
+        TopicConfig config = new TopicConfig(item.topic, item.queues, item.queues, item.perm);
+        List<String> created = new ArrayList<>();
+        for (Map.Entry<String, String> target : targets.entrySet()) {
+            try {
+                withRetry(() -> {
+                    admin.createAndUpdateTopicConfig(target.getValue(), config);
+                    return null;
+                }, attempts);
+                created.add(target.getKey());
+            } catch (InterruptedException ie) {
+                throw ie;
+            } catch (Exception e) {
+                String msg = target.getKey() + ": " + describe(e);
+                if (!created.isEmpty()) msg = "Created on " + created + ", failed on " + msg;
+                return new Result(item, Status.FAILED, attempts[0], elapsed(start), msg);
+            }
+        }
+        return new Result(item, Status.CREATED, attempts[0], elapsed(start), "Created on " + created);
+    }
+
+    // 目标集群的 Master Broker: brokerName -> 地址
+    private Map<String, String> masters(String cluster) {
+        Map<String, Set<String>> clusters = clusterInfo.getClusterAddrTable();
+        List<String> names = new ArrayList<>();
+        if (ALL_CLUSTERS.equals(cluster)) {
+            names.addAll(clusters.keySet());
+        } else if (cluster.isEmpty()) {
+            if (clusters.size() != 1) {
+                throw new IllegalArgumentException("Cluster required, found " + clusters.keySet());
+            }
+            names.addAll(clusters.keySet());
+        } else if (clusters.containsKey(cluster)) {
+            names.add(cluster);
+        } else {
+            throw new IllegalArgumentException("Unknown cluster " + cluster);
+        }
+        Map<String, String> masters = new LinkedHashMap<>();
+        for (String name : names) {
+            for (String brokerName : clusters.get(name)) {
+                BrokerData broker = clusterInfo.getBrokerAddrTable().get(brokerName);
+                String addr = broker == null ? null : broker.getBrokerAddrs().get(MixAll.MASTER_ID);
+                if (addr != null) masters.put(brokerName, addr);
+            }
+        }
+        if (masters.isEmpty()) throw new IllegalArgumentException("No master broker in " + names);
+        return masters;
+    }
+
+    private static <T> T withRetry(AdminCall<T> call, int[] attempts) throws Exception {
+        for (int i = 1; ; i++) {
+            attempts[0]++;
+            try {
+                return call.call();
+            } catch (Exception e) {
+                if (i >= MAX_ATTEMPTS || !isTransient(e)) throw e;
+                Thread.sleep(RETRY_BACKOFF_MS << (i - 1));
+            }
+        }
+    }
+
+    // 连接/超时类错误和 Broker 繁忙可以重试；权限、参数等错误重试也没用
+    private static boolean isTransient(Throwable e) {
+        if (e instanceof RemotingException) return true;
+        if (e instanceof MQBrokerException) {
+            int code = ((MQBrokerException) e).getResponseCode();
+            return code == ResponseCode.SYSTEM_ERROR || code == ResponseCode.SYSTEM_BUSY;
+        }
+        return e instanceof MQClientException && e.getCause() instanceof RemotingException;
+    }
+
+    private static String describe(Throwable t) {
+        if (t instanceof ExecutionException && t.getCause() != null) t = t.getCause();
+        String msg = t.getMessage();
+        return msg == null || msg.isEmpty() ? t.getClass().getSimpleName() : msg;
+    }
+
+    private static long elapsed(long startNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+}
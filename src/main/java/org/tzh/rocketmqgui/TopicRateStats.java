@@ -0,0 +1,44 @@
+package org.tzh.rocketmqgui;
+
+/**
+ * Dashboard 统计表中的一行：某个 Topic 在可见窗口内的 TPS 统计
+ */
+public class TopicRateStats {
+    private final String topic;
+    private final double current;
+    private final double min;
+    private final double max;
+    private final double avg;
+
+    public TopicRateStats(String topic, double current, double min, double max, double avg) {
+        this.topic = topic;
+        this.current = current;
+        this.min = min;
+        this.max = max;
+        this.avg = avg;
+    }
+
+    public String getTopic() {
+        return topic;
+    }
+
+    public double getCurrent() {
+        return current;
+    }
+
+    public double getMin() {
+        return min;
+    }
+
+    public double getMax() {
+        return max;
+    }
+
+    public double getAvg() {
+        return avg;
+    }
+
+    public static String format(double tps) {
+        return Double.isNaN(tps) ? "-" : String.format("%.1f", tps);
+    }
+}
@@ -0,0 +1,156 @@
+package org.tzh.rocketmqgui;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Topic 名称的只读搜索索引，Topic 列表变化时整体重建 (后台线程)，查询可在任意线程并发进行。
+ * - 小写名称排序后的数组: 前缀匹配用二分查找
+ * - 2-gram / 3-gram 倒排表: 子串匹配只校验最短倒排表里的候选
+ * 结果排序: 完全相等 > 前缀 > 分段前缀 (分隔符之后) > 其他子串，同级按长度、字母序。
+ */
+public final class TopicSearchIndex {
+    public static final TopicSearchIndex EMPTY = new TopicSearchIndex(Collections.emptyList());
+    private static final String SEPARATORS = "_-.%:|/";
+    private static final int[] NO_IDS = new int[0];
+
+    // 按小写名称排序
+    private final String[] names;
+    private final String[] lower;
+    private final Map<Long, int[]> grams;
+
+    public TopicSearchIndex(Collection<String> topics) {
+        String[] sorted = topics.toArray(new String[0]);
+        Arrays.sort(sorted, Comparator.comparing((String s) -> s.toLowerCase()).thenComparing(s -> s));
+        names = sorted;
+        lower = new String[sorted.length];
+        Map<Long, IntList> building = new HashMap<>();
+        for (int id = 0; id < sorted.length; id++) {
+            String l = sorted[id].toLowerCase();
+            lower[id] = l;
+            for (int n = 2; n <= 3; n++) {
+                for (int i = 0; i + n <= l.length(); i++) {
+                    IntList ids = building.computeIfAbsent(gram(l, i, n), k -> new IntList());
+                    // 同一个名称里重复的 gram 只记一次 (id 递增，只需看最后一个)
+                    if (ids.size == 0 || ids.data[ids.size - 1] != id) ids.add(id);
+                }
+            }
+        }
+        grams = new HashMap<>(building.size() * 2);
+        for (Map.Entry<Long, IntList> e : building.entrySet()) grams.put(e.getKey(), e.getValue().toArray());
+    }
+
+    public int size() {
+        return names.length;
+    }
+
+    /**
+     * @param query 为空时返回按字母序的前 limit 个
+     */
+    public List<String> search(String query, int limit) {
+        String q = query == null ? "" : query.trim().toLowerCase();
+        if (q.isEmpty()) {
+            return Arrays.asList(Arrays.copyOf(names, Math.min(limit, names.length)));
+        }
+        int prefixStart = lowerBound(q);
+        int prefixEnd = lowerBound(q + Character.MAX_VALUE);
+
+        // 1 个字符时只做前缀匹配 (子串几乎匹配所有 Topic，没有意义)
+        if (q.length() == 1 || prefixEnd - prefixStart >= limit) {
+            List<String> out = new ArrayList<>(Math.min(limit, prefixEnd - prefixStart));
+            for (int i = prefixStart; i < prefixEnd && out.size() < limit; i++) out.add(names[i]);
+            // 稳定排序，完全相等的 (最短) 排最前
+            out.sort(Comparator.comparingInt(String::length));
+            return out;
+        }
+
+        int[] candidates = candidates(q);
+        List<Hit> hits = new ArrayList<>();
+        for (int id : candidates) {
+            int pos = lower[id].indexOf(q);
+            if (pos < 0) continue;
+            int rank;
+            if (pos == 0) rank = lower[id].length() == q.length() ? 0 : 1;
+            else rank = segmentStart(lower[id], q) ? 2 : 3;
+            hits.add(new Hit(id, rank, lower[id].length()));
+        }
+        hits.sort(null);
+        List<String> out = new ArrayList<>(Math.min(limit, hits.size()));
+        for (int i = 0; i < hits.size() && out.size() < limit; i++) out.add(names[hits.get(i).id]);
+        return out;
+    }
+
+    // 查询串中最稀有的 gram 的倒排表；查询只有 2 个字符时就是它的 2-gram
+    private int[] candidates(String q) {
+        int n = q.length() >= 3 ? 3 : 2;
+        int[] best = null;
+        for (int i = 0; i + n <= q.length(); i++) {
+            int[] ids = grams.get(gram(q, i, n));
+            if (ids == null) return NO_IDS;
+            if (best == null || ids.length < best.length) best = ids;
+        }
+        return best == null ? NO_IDS : best;
+    }
+
+    private static boolean segmentStart(String name, String q) {
+        for (int pos = name.indexOf(q); pos > 0; pos = name.indexOf(q, pos + 1)) {
+            if (SEPARATORS.indexOf(name.charAt(pos - 1)) >= 0) return true;
+        }
+        return false;
+    }
+
+    private int lowerBound(String q) {
+        int lo = 0, hi = lower.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (lower[mid].compareTo(q) < 0) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    private static long gram(String s, int from, int n) {
+        long key = n;
+        for (int i = 0; i < n; i++) key = (key << 16) | s.charAt(from + i);
+        return key;
+    }
+
+    private static final class Hit implements Comparable<Hit> {
+        final int id;
+        final int rank;
+        final int length;
+
+        Hit(int id, int rank, int length) {
+            this.id = id;
+            this.rank = rank;
+            this.length = length;
+        }
+
+        @Override
+        public int compareTo(Hit o) {
+            if (rank != o.rank) return Integer.compare(rank, o.rank);
+            if (length != o.length) return Integer.compare(length, o.length);
+            return Integer.compare(id, o.id);
+        }
+    }
+
+    private static final class IntList {
+        int[] data = new int[4];
+        int size;
+
+        void add(int v) {
+            if (size == data.length) data = Arrays.copyOf(data, size * 2);
+            data[size++] = v;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(data, size);
+        }
+    }
+}